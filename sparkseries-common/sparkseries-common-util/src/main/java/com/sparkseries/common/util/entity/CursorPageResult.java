@@ -0,0 +1,30 @@
+package com.sparkseries.common.util.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * 游标分页响应类
+ * 下一页以 nextCursor 继续查询, 不按页码跳页
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "游标分页响应类")
+public class CursorPageResult<T> extends PageResult<T> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "下一页游标, 没有下一页时为空")
+    private String nextCursor;
+
+    public CursorPageResult(long total, List<T> list, String nextCursor) {
+        super(total, list);
+        this.nextCursor = nextCursor;
+    }
+}
@@ -13,11 +13,56 @@ public class Constants {
      */
     public final static String AVATAR_STORAGE_PATH = "avatar/";
 
+    /**
+     * 分片上传临时分片存储路径
+     */
+    public static final String MULTIPART_STAGING_PATH = ".multipart";
+
+    /**
+     * 文件内容存储路径, 文件按 {@code .content/{文件 id}/{文件名}} 存放, 相同内容只保留一份
+     */
+    public static final String CONTENT_STORAGE_PATH = ".content";
+
+    /**
+     * 直传上传地址有效期 30分钟
+     */
+    public static final int DIRECT_UPLOAD_EXPIRE_SECONDS = 30 * 60;
+
+    /**
+     * 直传最小分片大小 8MB
+     */
+    public static final long DIRECT_UPLOAD_PART_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * 分片上传最大分片数
+     */
+    public static final int MULTIPART_MAX_PARTS = 10000;
+
+    /**
+     * 元数据批量查询及写入的单批最大行数
+     */
+    public static final int METADATA_BATCH_SIZE = 500;
+
+    /**
+     * 文件夹分页列表的默认每页条目数
+     */
+    public static final int FOLDER_LIST_PAGE_SIZE = 100;
+
+    /**
+     * 文件搜索的默认每页条目数
+     */
+    public static final int SEARCH_PAGE_SIZE = 20;
+
     /**
      * 头像最大大小 10MB
      */
     public final static Integer AVATAR_MAX_SIZE = 10 * 1024 * 1024;
 
+    /**
+     * 批量获取头像的最大用户数
+     */
+    public static final int AVATAR_BATCH_MAX_SIZE = 200;
+
     /**
      * 支持的图片MIME类型
      */
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
 /**
  * 文件存储DTO
@@ -18,6 +19,8 @@ public class UploadFileDTO {
     private String userId;
     @Schema(description = "文件数据流")
     private InputStream inputStream;
+    @Schema(description = "文件数据所在的本地临时文件, 非空时本地存储直接转移该文件")
+    private Path sourcePath;
     @Schema(description = "文件名")
     private String fileName;
     @Schema(description = "文件大小")
@@ -28,4 +31,6 @@ public class UploadFileDTO {
     private VisibilityEnum visibility;
     @Schema(description = "文件在OSS中的存储位置 绝对路径")
     private String targetPath;
+    @Schema(description = "存储时使用的压缩编码, 上传时由存储服务回填, 读取本地文件时由调用方提供, 为空时未压缩")
+    private String contentEncoding;
 }
@@ -6,9 +6,13 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.Map;
+
 
 /**
  * 头像服务调用接口
@@ -36,5 +40,15 @@ public interface AvatarClient {
     @Operation(summary = "修改头像")
     Result<?> changeAvatar(@RequestParam("file") @NotNull(message = "请指定上传头像") MultipartFile avatar);
 
+    /**
+     * 批量获取用户头像
+     *
+     * @param userIds 用户 ID, 最多 {@link com.sparkeries.constant.Constants#AVATAR_BATCH_MAX_SIZE} 个
+     * @param size 需要的头像边长(像素), 为空时返回原图
+     * @return 用户 ID 与头像 url 的映射, 不包含没有头像的用户
+     */
+    @PostMapping("/batch")
+    Result<Map<Long, String>> getAvatars(@RequestBody List<Long> userIds, @RequestParam(value = "size", required = false) Integer size);
+
 
 }
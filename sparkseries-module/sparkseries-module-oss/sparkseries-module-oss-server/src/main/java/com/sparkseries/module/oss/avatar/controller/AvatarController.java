@@ -4,19 +4,27 @@ package com.sparkseries.module.oss.avatar.controller;
 import com.sparkseries.common.security.util.CurrentUser;
 import com.sparkseries.common.util.entity.Result;
 import com.sparkseries.module.oss.avatar.service.AvatarService;
+import com.sparkseries.module.oss.common.util.MimeTypeUtil;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static com.sparkeries.constant.Constants.AVATAR_BATCH_MAX_SIZE;
 
 /**
  * 用户头像管理
@@ -43,8 +51,10 @@ public class AvatarController {
     public Result<String> uploadAvatar(@RequestParam("avatar") @NotNull(message = "请指定上传头像") MultipartFile avatar,
                                        @RequestParam("userId") @NotNull(message = "请指定用户 ID") Long userId) {
         try {
-            Tika tika = new Tika();
-            String type = tika.detect(avatar.getInputStream(), avatar.getContentType());
+            String type;
+            try (InputStream inputStream = avatar.getInputStream()) {
+                type = MimeTypeUtil.detect(inputStream, avatar.getContentType());
+            }
             MultipartFileDTO avatarDTO = MultipartFileDTO.builder()
                     .fileName(avatar.getOriginalFilename())
                     .userId(userId)
@@ -70,8 +80,10 @@ public class AvatarController {
     public Result<?> updateAvatar(@RequestParam("file") @NotNull(message = "请指定上传头像") MultipartFile avatar) {
         try {
             Long userId = CurrentUser.getId();
-            Tika tika = new Tika();
-            String type = tika.detect(avatar.getInputStream(), avatar.getContentType());
+            String type;
+            try (InputStream inputStream = avatar.getInputStream()) {
+                type = MimeTypeUtil.detect(inputStream, avatar.getContentType());
+            }
             MultipartFileDTO file = MultipartFileDTO.builder()
                     .fileName(avatar.getOriginalFilename())
                     .userId(userId)
@@ -90,23 +102,45 @@ public class AvatarController {
      * 获取用户头像
      *
      * @param userId 用户 ID
+     * @param size 需要的头像边长(像素), 返回不小于该值的最小缩略图, 为空时返回原图
      * @return 头像 url
      */
     @GetMapping("{userId}")
     @Operation(summary = "获取用户头像")
-    public Result<String> getAvatar(@PathVariable("userId") @NotNull(message = "用户 ID 不能为空") Long userId) {
-        return avatarService.getUserAvatar(userId);
+    public Result<String> getAvatar(@PathVariable("userId") @NotNull(message = "用户 ID 不能为空") Long userId,
+                                    @RequestParam(value = "size", required = false) @Min(value = 1, message = "头像边长必须大于0") Integer size) {
+        return avatarService.getUserAvatar(userId, size);
+    }
+
+    /**
+     * 批量获取用户头像
+     *
+     * @param userIds 用户 ID
+     * @param size 需要的头像边长(像素), 返回不小于该值的最小缩略图, 为空时返回原图
+     * @return 用户 ID 与头像 url 的映射, 不包含没有头像的用户
+     */
+    @PostMapping("batch")
+    @Operation(summary = "批量获取用户头像")
+    public Result<Map<Long, String>> getAvatars(@RequestBody @NotEmpty(message = "用户 ID 不能为空")
+                                                @Size(max = AVATAR_BATCH_MAX_SIZE, message = "单次最多获取 " + AVATAR_BATCH_MAX_SIZE + " 个用户的头像")
+                                                List<@NotNull(message = "用户 ID 不能为空") Long> userIds,
+                                                @RequestParam(value = "size", required = false) @Min(value = 1, message = "头像边长必须大于0") Integer size) {
+        return avatarService.getUserAvatars(userIds, size);
     }
 
     /**
      * 预览本地存储头像
      *
      * @param userId 用户 ID
+     * @param version 头像版本号, 由获取头像接口返回的地址携带
+     * @param size 头像边长, 由获取头像接口返回的地址携带
      * @return 文件预览响应
      */
     @GetMapping("local/{userId}")
     @Operation(summary = "预览本地文件")
-    public ResponseEntity<?> getLocalFile(@PathVariable("userId") @NotNull(message = "用户 ID 不能为空") Long userId) {
-        return avatarService.getLocalAvatar(userId);
+    public ResponseEntity<?> getLocalFile(@PathVariable("userId") @NotNull(message = "用户 ID 不能为空") Long userId,
+                                          @RequestParam(value = "v", required = false) String version,
+                                          @RequestParam(value = "size", required = false) Integer size) {
+        return avatarService.getLocalAvatar(userId, version, size);
     }
 }
\ No newline at end of file
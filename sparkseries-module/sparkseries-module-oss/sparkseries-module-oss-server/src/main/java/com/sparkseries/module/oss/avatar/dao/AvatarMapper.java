@@ -6,6 +6,9 @@ import com.sparkseries.module.oss.avatar.entity.AvatarEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 用户头像管理
  */
@@ -37,5 +40,14 @@ public interface AvatarMapper {
      */
     AvatarEntity getAvatarByUserId(@Param("userId") Long userId, @Param("storageType") StorageTypeEnum storageType);
 
+    /**
+     * 根据用户 ID 批量查询头像信息
+     *
+     * @param userIds 用户 ID
+     * @param storageType 存储类型
+     * @return 头像信息, 不包含没有头像的用户
+     */
+    List<AvatarEntity> listAvatarByUserIds(@Param("userIds") Collection<Long> userIds, @Param("storageType") StorageTypeEnum storageType);
+
 
 }
\ No newline at end of file
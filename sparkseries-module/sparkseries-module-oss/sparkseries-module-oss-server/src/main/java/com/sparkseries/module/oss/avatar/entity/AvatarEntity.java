@@ -22,4 +22,6 @@ public class AvatarEntity {
     private String folderPath;
     @Schema(description = "头像的存储方式(OSS COS KODO Minio Local)")
     private StorageTypeEnum storageType;
+    @Schema(description = "已生成的缩略图边长, 以逗号分隔, 为空时没有缩略图")
+    private String derivativeSizes;
 }
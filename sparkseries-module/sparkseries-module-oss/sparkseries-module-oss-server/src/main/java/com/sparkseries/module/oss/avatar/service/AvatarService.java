@@ -4,6 +4,9 @@ import com.sparkseries.common.util.entity.Result;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用户头像管理
  */
@@ -29,16 +32,28 @@ public interface AvatarService {
      * 获取用户头像
      *
      * @param userId 用户 ID
+     * @param size 需要的头像边长(像素), 为空时返回原图
      * @return 头像 url
      */
-    Result<String> getUserAvatar(Long userId);
+    Result<String> getUserAvatar(Long userId, Integer size);
+
+    /**
+     * 批量获取用户头像
+     *
+     * @param userIds 用户 ID
+     * @param size 需要的头像边长(像素), 为空时返回原图
+     * @return 用户 ID 与头像 url 的映射, 不包含没有头像的用户
+     */
+    Result<Map<Long, String>> getUserAvatars(List<Long> userIds, Integer size);
 
     /**
      * 预览本地用户头像
      *
      * @param userId 用户 ID
+     * @param version 头像版本号, 与当前版本一致时响应允许长期缓存
+     * @param size 需要的头像边长(像素), 为空时返回原图
      * @return 文件预览响应
      */
-    ResponseEntity<?> getLocalAvatar(Long userId);
+    ResponseEntity<?> getLocalAvatar(Long userId, String version, Integer size);
 
 }
\ No newline at end of file
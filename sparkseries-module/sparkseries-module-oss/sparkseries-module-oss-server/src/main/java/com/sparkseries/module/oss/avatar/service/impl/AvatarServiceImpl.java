@@ -9,8 +9,11 @@ import com.sparkseries.module.oss.avatar.dao.AvatarMapper;
 import com.sparkseries.module.oss.avatar.entity.AvatarEntity;
 import com.sparkseries.module.oss.avatar.service.AvatarService;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.AvatarLocationCache;
+import com.sparkseries.module.oss.common.config.AvatarDerivativeConfig;
 import com.sparkseries.module.oss.common.exception.OssException;
 import com.sparkseries.module.oss.common.util.FileUtil;
+import com.sparkseries.module.oss.common.util.ImageDerivativeUtil;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
 import com.sparkseries.module.oss.provider.local.oss.LocalOssServiceImpl;
 import com.sparkseries.module.oss.switching.DynamicStorageSwitchService;
@@ -18,6 +21,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,9 +29,19 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static com.sparkeries.constant.Constants.*;
 
@@ -39,8 +53,20 @@ import static com.sparkeries.constant.Constants.*;
 @RequiredArgsConstructor
 public class AvatarServiceImpl implements AvatarService {
 
+    /**
+     * 缩略图的扩展名
+     */
+    private static final String DERIVATIVE_SUFFIX = ".jpg";
+
     private final AvatarMapper avatarMapper;
     private final DynamicStorageSwitchService provider;
+    private final AvatarDerivativeConfig derivativeConfig;
+    private final AvatarLocationCache avatarLocationCache;
+
+    /**
+     * 服务器主机地址
+     */
+    private volatile String localHost;
 
     /**
      * 获取当前存储服务实例
@@ -73,16 +99,19 @@ public class AvatarServiceImpl implements AvatarService {
             throw new OssException("请上传带有扩展名的图片");
         }
         String fileName = userId + suffix;
+        byte[] data = readAvatar(avatar);
         // 执行上传
         UploadFileDTO avatarDTO = UploadFileDTO.builder()
                 .userId(userId.toString())
                 .fileName(fileName)
-                .inputStream(avatar.getInputStream())
+                .inputStream(new ByteArrayInputStream(data))
                 .size(avatar.getSize())
                 .folderPath(AVATAR_STORAGE_PATH)
+                .visibility(VisibilityEnum.USER_INFO)
                 .build();
         StorageTypeEnum currentStorage = provider.getCurrentStorageEnum();
-        boolean uploadSuccess = getCurrentStorageService().uploadFile(avatarDTO);
+        OssService ossService = getCurrentStorageService();
+        boolean uploadSuccess = ossService.uploadFile(avatarDTO);
 
         if (!uploadSuccess) {
             log.warn("Service层:头像向 {} 存储失败", currentStorage);
@@ -96,9 +125,11 @@ public class AvatarServiceImpl implements AvatarService {
                 .size(conversion)
                 .folderPath(AVATAR_STORAGE_PATH)
                 .suffixName(suffix)
+                .derivativeSizes(generateDerivatives(ossService, userId, data))
                 .build();
 
         Integer row = avatarMapper.insertAvatar(avatarEntity);
+        avatarLocationCache.invalidate(currentStorage, userId);
 
         if (row <= 0) {
             log.warn("Service层:头像向数据库保存失败 头像信息: {}", avatarEntity);
@@ -136,16 +167,19 @@ public class AvatarServiceImpl implements AvatarService {
             throw new OssException("头像无法进行修改");
         }
 
+        byte[] data = readAvatar(avatar);
         UploadFileDTO avatarDTO = UploadFileDTO.builder()
                 .userId(userId.toString())
-                .inputStream(avatar.getInputStream())
+                .fileName(userId + suffix)
+                .inputStream(new ByteArrayInputStream(data))
                 .size(avatar.getSize())
                 .folderPath(AVATAR_STORAGE_PATH)
+                .visibility(VisibilityEnum.USER_INFO)
                 .build();
 
         // 执行上传
-
-        boolean uploadSuccess = getCurrentStorageService().uploadFile(avatarDTO);
+        OssService ossService = getCurrentStorageService();
+        boolean uploadSuccess = ossService.uploadFile(avatarDTO);
         if (!uploadSuccess) {
             log.warn("Service层:头像向 {} 存储失败", currentStorage);
             throw new OssException("头像上传失败");
@@ -158,8 +192,11 @@ public class AvatarServiceImpl implements AvatarService {
                 .folderPath(AVATAR_STORAGE_PATH)
                 .storageType(currentStorage)
                 .size(conversion)
+                .suffixName(suffix)
+                .derivativeSizes(generateDerivatives(ossService, userId, data))
                 .build();
         Integer row = avatarMapper.updateAvatar(avatarEntity);
+        avatarLocationCache.invalidate(currentStorage, userId);
 
         if (row <= 0) {
             log.warn("头像信息更新失败 数据库操作失败 头像信息: {}", avatarDTO);
@@ -173,77 +210,268 @@ public class AvatarServiceImpl implements AvatarService {
      * 获取用户头像
      *
      * @param userId 用户 ID
+     * @param size 需要的头像边长(像素), 为空时返回原图
      * @return 用户头像 URL
      */
     @Override
-    public Result<String> getUserAvatar(Long userId) {
-
-        if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
+    public Result<String> getUserAvatar(Long userId, Integer size) {
+        OssService ossService = getCurrentStorageService();
+        StorageTypeEnum storageType = ossService.getStorageType();
+        AvatarEntity avatarEntity = avatarLocationCache.get(storageType, userId, ids -> avatarMapper.listAvatarByUserIds(ids, storageType));
 
-            try {
-                // 从请求上下文中获取 HttpServletRequest
-                ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-                if (attributes == null) {
-                    log.warn("无法获取当前请求上下文");
-                    throw new OssException("无法获取当前请求上下文");
-                }
-                HttpServletRequest request = attributes.getRequest();
-
-                // 动态构建URL
-                String host = InetAddress.getLocalHost().getHostAddress();
-                String avatarUrl = UriComponentsBuilder
-                        .newInstance()
-                        .scheme(request.getScheme())
-                        .host(host)
-                        .port(request.getServerPort())
-                        .path("/user/avatar/local/{userId}")
-                        .buildAndExpand(userId)
-                        .toUriString();
-                return Result.ok(avatarUrl);
-            } catch (UnknownHostException e) {
-                log.error("获取服务器主机地址失败", e);
-                throw new OssException("无法生成头像URL，获取主机地址失败");
-            }
+        if (ossService instanceof LocalOssServiceImpl localOssService) {
+            return Result.ok(buildLocalAvatarUrl(localOssService, currentRequest(), userId, avatarEntity, size));
         }
 
-        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
-        AvatarEntity avatarEntity = avatarMapper.getAvatarByUserId(userId, storageType);
         if (ObjectUtils.isEmpty(avatarEntity)) {
             log.warn("在{} 存储方式中不存在用户:{} 的头像", storageType, userId);
             return Result.error("用户的头像信息无法获取");
         }
-        String avatarName = avatarEntity.getUserId() + avatarEntity.getSuffixName();
-
-        String folderPath = avatarEntity.getFolderPath();
-
-        String previewUrl = getCurrentStorageService().previewFile(avatarName, folderPath, VisibilityEnum.USER_INFO, userId.toString());
+        return Result.ok(buildAvatarUrl(ossService, avatarEntity, size));
+    }
 
-        return Result.ok(previewUrl);
+    /**
+     * 批量获取用户头像, 未缓存的用户合并为一次查询
+     *
+     * @param userIds 用户 ID
+     * @param size 需要的头像边长(像素), 为空时返回原图
+     * @return 用户 ID 与头像 URL 的映射, 不包含没有头像的用户
+     */
+    @Override
+    public Result<Map<Long, String>> getUserAvatars(List<Long> userIds, Integer size) {
+        OssService ossService = getCurrentStorageService();
+        StorageTypeEnum storageType = ossService.getStorageType();
+        List<Long> distinctIds = userIds.stream().distinct().toList();
+        Map<Long, AvatarEntity> avatars = avatarLocationCache.getAll(storageType, distinctIds,
+                ids -> avatarMapper.listAvatarByUserIds(ids, storageType));
+
+        HttpServletRequest request = ossService instanceof LocalOssServiceImpl ? currentRequest() : null;
+        Map<Long, String> avatarUrls = new LinkedHashMap<>();
+        for (Long userId : distinctIds) {
+            AvatarEntity avatarEntity = avatars.get(userId);
+            if (avatarEntity == null) {
+                continue;
+            }
+            if (ossService instanceof LocalOssServiceImpl localOssService) {
+                avatarUrls.put(userId, buildLocalAvatarUrl(localOssService, request, userId, avatarEntity, size));
+            } else {
+                avatarUrls.put(userId, buildAvatarUrl(ossService, avatarEntity, size));
+            }
+        }
+        log.debug("批量获取 {} 个用户的头像, 其中 {} 个用户有头像", distinctIds.size(), avatarUrls.size());
+        return Result.ok(avatarUrls);
     }
 
     /**
      * 预览本地用户头像
      *
      * @param userId 用户 ID
+     * @param version 头像版本号
+     * @param size 需要的头像边长(像素), 为空时返回原图
      * @return 头像预览响应
      */
     @Override
-    public ResponseEntity<?> getLocalAvatar(Long userId) {
+    public ResponseEntity<?> getLocalAvatar(Long userId, String version, Integer size) {
+
+        if (getCurrentStorageService() instanceof LocalOssServiceImpl localOssService) {
 
-        if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
+            AvatarEntity avatarEntity = avatarLocationCache.get(StorageTypeEnum.LOCAL, userId,
+                    ids -> avatarMapper.listAvatarByUserIds(ids, StorageTypeEnum.LOCAL));
+            if (ObjectUtils.isEmpty(avatarEntity)) {
+                log.warn("用户:{} 在本地存储中没有头像", userId);
+                throw new OssException("用户的头像信息无法获取");
+            }
 
-            AvatarEntity avatarEntity = avatarMapper.getAvatarByUserId(userId, StorageTypeEnum.LOCAL);
+            return localOssService.previewLocalAvatar(getAvatarPath(avatarEntity, selectDerivativeSize(avatarEntity, size)), version);
+        }
+        log.warn("获取本地用户头像操作错误请重试 userId:{}",userId);
+        throw new OssException("出现异常 请稍后尝试");
+    }
 
-            String avatarName = avatarEntity.getUserId() + avatarEntity.getSuffixName();
+    /**
+     * 生成云存储头像的预览地址
+     *
+     * @param ossService 存储服务
+     * @param avatarEntity 头像信息
+     * @param size 需要的头像边长
+     * @return 头像预览地址
+     */
+    private String buildAvatarUrl(OssService ossService, AvatarEntity avatarEntity, Integer size) {
+        String avatarName = getAvatarFileName(avatarEntity, selectDerivativeSize(avatarEntity, size));
+        return ossService.previewFile(avatarName, avatarEntity.getFolderPath(), VisibilityEnum.USER_INFO,
+                avatarEntity.getUserId().toString());
+    }
 
-            String folderPath = avatarEntity.getFolderPath();
+    /**
+     * 生成本地头像地址
+     * 地址携带头像版本号, 头像更新后地址随之变化, 旧地址可以被长期缓存
+     *
+     * @param localOssService 本地存储服务
+     * @param request 当前请求
+     * @param userId 用户 ID
+     * @param avatarEntity 头像信息, 没有头像时为 null
+     * @param size 需要的头像边长
+     * @return 头像地址
+     */
+    private String buildLocalAvatarUrl(LocalOssServiceImpl localOssService, HttpServletRequest request, Long userId,
+                                       AvatarEntity avatarEntity, Integer size) {
+        String version = null;
+        Integer derivativeSize = null;
+        if (ObjectUtils.isNotEmpty(avatarEntity)) {
+            derivativeSize = selectDerivativeSize(avatarEntity, size);
+            version = localOssService.getAvatarVersion(getAvatarPath(avatarEntity, derivativeSize));
+        }
 
-            String absolutePath = Path.of(folderPath, avatarName).toString();
+        // 动态构建URL
+        return UriComponentsBuilder
+                .newInstance()
+                .scheme(request.getScheme())
+                .host(getLocalHost())
+                .port(request.getServerPort())
+                .path("/user/avatar/local/{userId}")
+                .queryParamIfPresent("size", Optional.ofNullable(derivativeSize))
+                .queryParamIfPresent("v", Optional.ofNullable(version))
+                .buildAndExpand(userId)
+                .toUriString();
+    }
 
-            return ((LocalOssServiceImpl) getCurrentStorageService()).previewLocalAvatar(absolutePath);
+    /**
+     * 从请求上下文中获取 HttpServletRequest
+     *
+     * @return 当前请求
+     */
+    private HttpServletRequest currentRequest() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            log.warn("无法获取当前请求上下文");
+            throw new OssException("无法获取当前请求上下文");
+        }
+        return attributes.getRequest();
+    }
+
+    /**
+     * 获取服务器主机地址, 首次解析后复用
+     *
+     * @return 主机地址
+     */
+    private String getLocalHost() {
+        String host = localHost;
+        if (host == null) {
+            try {
+                host = InetAddress.getLocalHost().getHostAddress();
+            } catch (UnknownHostException e) {
+                log.error("获取服务器主机地址失败", e);
+                throw new OssException("无法生成头像URL，获取主机地址失败");
+            }
+            localHost = host;
+        }
+        return host;
+    }
+
+    /**
+     * 获取头像文件在头像目录下的路径
+     *
+     * @param avatarEntity 头像信息
+     * @param derivativeSize 缩略图边长, 为空时为原图
+     * @return 头像文件路径
+     */
+    private String getAvatarPath(AvatarEntity avatarEntity, Integer derivativeSize) {
+        return Path.of(avatarEntity.getFolderPath(), getAvatarFileName(avatarEntity, derivativeSize)).toString();
+    }
+
+    /**
+     * 获取头像文件名
+     *
+     * @param avatarEntity 头像信息
+     * @param derivativeSize 缩略图边长, 为空时为原图
+     * @return 头像文件名
+     */
+    private String getAvatarFileName(AvatarEntity avatarEntity, Integer derivativeSize) {
+        if (derivativeSize == null) {
+            return avatarEntity.getUserId() + avatarEntity.getSuffixName();
+        }
+        return getDerivativeFileName(avatarEntity.getUserId(), derivativeSize);
+    }
+
+    private static String getDerivativeFileName(Long userId, int size) {
+        return userId + "_" + size + DERIVATIVE_SUFFIX;
+    }
+
+    /**
+     * 选择满足所需边长的最小缩略图, 所需边长超过所有缩略图时使用最大的缩略图
+     *
+     * @param avatarEntity 头像信息
+     * @param size 需要的头像边长
+     * @return 缩略图边长, 未指定边长或没有缩略图时为 null
+     */
+    private Integer selectDerivativeSize(AvatarEntity avatarEntity, Integer size) {
+        if (size == null || StringUtils.isBlank(avatarEntity.getDerivativeSizes())) {
+            return null;
+        }
+        List<Integer> sizes = Arrays.stream(avatarEntity.getDerivativeSizes().split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .sorted()
+                .toList();
+        return sizes.stream().filter(s -> s >= size).findFirst().orElse(sizes.get(sizes.size() - 1));
+    }
+
+    /**
+     * 读取头像内容, 头像大小已校验不超过 AVATAR_MAX_SIZE
+     *
+     * @param avatar 用户头像相关信息
+     * @return 头像内容
+     */
+    private byte[] readAvatar(MultipartFileDTO avatar) {
+        try (InputStream inputStream = avatar.getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.warn("读取头像内容失败: {}", e.getMessage(), e);
+            throw new OssException("头像上传失败");
+        }
+    }
+
+    /**
+     * 生成并上传头像缩略图, 原图只解码一次
+     * 缩略图生成失败不影响头像上传, 此时获取头像时返回原图
+     *
+     * @param ossService 存储服务
+     * @param userId 用户 ID
+     * @param data 原图内容
+     * @return 已生成的缩略图边长, 以逗号分隔, 未生成时为 null
+     */
+    private String generateDerivatives(OssService ossService, Long userId, byte[] data) {
+        if (!derivativeConfig.isEnabled()) {
+            return null;
+        }
+        List<Integer> sizes = derivativeConfig.getSizes().stream().distinct().sorted().toList();
+        try {
+            BufferedImage image = ImageDerivativeUtil.decode(data, sizes.get(sizes.size() - 1));
+            if (image == null) {
+                log.info("用户:{} 的头像格式不支持生成缩略图, 使用原图", userId);
+                return null;
+            }
+            List<String> generated = new ArrayList<>();
+            for (int size : sizes) {
+                byte[] derivative = ImageDerivativeUtil.toJpeg(image, size, derivativeConfig.getQuality());
+                UploadFileDTO derivativeDTO = UploadFileDTO.builder()
+                        .userId(userId.toString())
+                        .fileName(getDerivativeFileName(userId, size))
+                        .inputStream(new ByteArrayInputStream(derivative))
+                        .size((long) derivative.length)
+                        .folderPath(AVATAR_STORAGE_PATH)
+                        .visibility(VisibilityEnum.USER_INFO)
+                        .build();
+                if (ossService.uploadFile(derivativeDTO)) {
+                    generated.add(String.valueOf(size));
+                }
+            }
+            log.info("用户:{} 的头像缩略图生成完成: {}", userId, generated);
+            return generated.isEmpty() ? null : String.join(",", generated);
+        } catch (IOException | RuntimeException e) {
+            log.warn("用户:{} 的头像缩略图生成失败, 使用原图: {}", userId, e.getMessage(), e);
+            return null;
         }
-        log.warn("获取本地用户头像操作错误请重试 userId:{}",userId);
-        throw new OssException("出现异常 请稍后尝试");
     }
 
     /**
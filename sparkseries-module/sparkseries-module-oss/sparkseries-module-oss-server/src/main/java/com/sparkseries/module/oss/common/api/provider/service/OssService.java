@@ -4,7 +4,11 @@ package com.sparkseries.module.oss.common.api.provider.service;
 import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
+
+import java.io.InputStream;
+import java.util.Map;
 
 /**
  * 文件存储服务接口
@@ -42,7 +46,7 @@ public interface OssService {
     boolean deleteFile(String fileName, String folderPath, VisibilityEnum visibility, String userId);
 
     /**
-     * 删除文件夹
+     * 删除文件夹, 文件夹下没有存储对象时视为删除成功
      *
      * @param folderName 文件夹名称
      * @param folderPath 文件夹路径
@@ -63,17 +67,6 @@ public interface OssService {
      */
     String downLoad(String fileName, String folderPath, VisibilityEnum visibility, String userId);
 
-    /**
-     * 列出文件夹下的文件及文件夹
-     *
-     * @param folderName 文件夹名称
-     * @param folderPath 文件夹路径
-     * @param visibility 能见度
-     * @param userId 用户 id
-     * @return 文件夹下的文件和文件夹列表
-     */
-    FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId);
-
     /**
      * 获取文件预览 url
      *
@@ -98,6 +91,70 @@ public interface OssService {
     boolean moveFile(String fileName, String sourceFolderPath, String targetFolderPath, VisibilityEnum visibility, String userId);
 
 
+    /**
+     * 初始化分片上传
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id)
+     * @return 存储服务的分片上传 id
+     */
+    String initiateMultipartUpload(UploadFileDTO file);
+
+    /**
+     * 上传单个分片
+     *
+     * @param file 分片信息(文件名、文件夹路径、能见度、用户 id、分片输入流及大小)
+     * @param uploadId 存储服务的分片上传 id
+     * @param partNumber 分片序号, 从 1 开始
+     * @return 分片 ETag
+     */
+    String uploadPart(UploadFileDTO file, String uploadId, int partNumber);
+
+    /**
+     * 完成分片上传, 按分片序号合并为完整文件
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id)
+     * @param uploadId 存储服务的分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags);
+
+    /**
+     * 取消分片上传并清理已上传的分片
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id)
+     * @param uploadId 存储服务的分片上传 id
+     * @return 操作结果
+     */
+    boolean abortMultipartUpload(UploadFileDTO file, String uploadId);
+
+    /**
+     * 生成客户端直传存储服务的预签名上传地址
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id)
+     * @param uploadId 存储服务的分片上传 id, 为空时生成整体上传地址
+     * @param partNumber 分片序号, 从 1 开始
+     * @param expireSeconds 地址有效期(秒)
+     * @return 预签名上传地址
+     */
+    PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds);
+
+    /**
+     * 获取存储对象的元信息, 用于校验直传结果
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id)
+     * @return 对象大小及 ETag
+     */
+    ObjectStatDTO statObject(UploadFileDTO file);
+
+    /**
+     * 打开存储对象的输入流, 用于服务端读取文件内容(如打包下载), 调用方负责关闭
+     *
+     * @param file 文件信息(文件名、文件夹路径、能见度、用户 id, 本地存储还需内容编码)
+     * @return 对象内容的输入流
+     */
+    InputStream openObject(UploadFileDTO file);
+
     /**
      * 获取此服务的存储类型
      *
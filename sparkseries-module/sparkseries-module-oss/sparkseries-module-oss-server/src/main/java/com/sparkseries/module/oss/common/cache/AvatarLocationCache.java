@@ -0,0 +1,118 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkseries.module.oss.avatar.entity.AvatarEntity;
+import com.sparkseries.module.oss.common.config.AvatarCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.sparkseries.module.oss.common.util.TransactionUtil.afterCompletion;
+
+/**
+ * 头像位置缓存
+ * 以 (存储类型, 用户 ID) 为键缓存头像元数据, 没有头像的用户同样缓存(较短时间), 未命中的用户合并为一次查询
+ * 头像上传或修改时由头像服务主动失效, 仅在当前节点内有效
+ */
+@Slf4j
+@Component
+public class AvatarLocationCache {
+
+    private final AvatarCacheConfig config;
+
+    /**
+     * 用户的头像信息, 没有头像的用户为空值, 超出容量时淘汰最久未使用的用户
+     */
+    private final ExpiringLruMap<Key, Optional<AvatarEntity>> cache;
+
+    public AvatarLocationCache(AvatarCacheConfig config) {
+        this.config = config;
+        this.cache = new ExpiringLruMap<>(config::getMaxSize);
+    }
+
+    /**
+     * 批量获取用户头像信息
+     *
+     * @param storageType 存储类型
+     * @param userIds 用户 ID
+     * @param loader 查询未命中用户的头像信息
+     * @return 用户 ID 与头像信息的映射, 不包含没有头像的用户
+     */
+    public Map<Long, AvatarEntity> getAll(StorageTypeEnum storageType, Collection<Long> userIds,
+                                          Function<List<Long>, List<AvatarEntity>> loader) {
+        Map<Long, AvatarEntity> result = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        if (config.isEnabled()) {
+            for (Long userId : userIds) {
+                Optional<AvatarEntity> avatar = cache.get(new Key(storageType, userId));
+                if (avatar == null) {
+                    misses.add(userId);
+                } else {
+                    avatar.ifPresent(entity -> result.put(userId, entity));
+                }
+            }
+        } else {
+            misses.addAll(userIds);
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long invalidations = cache.invalidations();
+        Map<Long, AvatarEntity> loaded = new HashMap<>();
+        for (AvatarEntity avatar : loader.apply(misses)) {
+            loaded.put(avatar.getUserId(), avatar);
+        }
+        result.putAll(loaded);
+        log.debug("头像位置缓存未命中 {} 个用户, 已合并查询", misses.size());
+
+        if (config.isEnabled()) {
+            for (Long userId : misses) {
+                AvatarEntity avatar = loaded.get(userId);
+                long ttl = avatar != null ? config.getTtlSeconds() : config.getNegativeTtlSeconds();
+                if (ttl <= 0) {
+                    continue;
+                }
+                if (!cache.putIfNotInvalidated(new Key(storageType, userId), Optional.ofNullable(avatar), ttl * 1000, invalidations)) {
+                    // 加载期间发生过失效, 其余结果同样不缓存
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取用户头像信息
+     *
+     * @param storageType 存储类型
+     * @param userId 用户 ID
+     * @param loader 查询头像信息
+     * @return 头像信息, 没有头像时为 null
+     */
+    public AvatarEntity get(StorageTypeEnum storageType, Long userId, Function<List<Long>, List<AvatarEntity>> loader) {
+        return getAll(storageType, List.of(userId), loader).get(userId);
+    }
+
+    /**
+     * 失效用户的头像信息, 在事务中调用时提交后再失效一次, 防止提交前被其他请求重新加载旧数据
+     *
+     * @param storageType 存储类型
+     * @param userId 用户 ID
+     */
+    public void invalidate(StorageTypeEnum storageType, Long userId) {
+        Key key = new Key(storageType, userId);
+        cache.remove(key);
+        afterCompletion(() -> cache.remove(key));
+    }
+
+    private record Key(StorageTypeEnum storageType, Long userId) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.sparkseries.module.oss.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.IntSupplier;
+
+/**
+ * 有容量上限及过期时间的 LRU 映射
+ * 按访问顺序排列, 超出容量时淘汰最久未使用的条目, 过期条目在读取时移除; 所有方法线程安全
+ * 每次失效递增失效次数, 加载前记录、写入时比对, 加载期间发生过失效时不写入, 防止旧数据覆盖失效
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ExpiringLruMap<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private long invalidations;
+
+    /**
+     * @param maxSize 容量上限, 每次写入时读取, 配置修改后立即生效
+     */
+    public ExpiringLruMap(IntSupplier maxSize) {
+        this.map = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize.getAsInt();
+            }
+        };
+    }
+
+    /**
+     * 获取未过期的值
+     *
+     * @param key 键
+     * @return 值, 不存在或已过期时为 null
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt()) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 写入值
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlMillis 有效期(毫秒)
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 加载期间没有发生失效时写入值
+     *
+     * @param key 键
+     * @param value 值
+     * @param ttlMillis 有效期(毫秒)
+     * @param invalidationsBeforeLoad 加载前的失效次数, 由 {@link #invalidations()} 获取
+     * @return 是否写入
+     */
+    public synchronized boolean putIfNotInvalidated(K key, V value, long ttlMillis, long invalidationsBeforeLoad) {
+        if (invalidations != invalidationsBeforeLoad) {
+            return false;
+        }
+        put(key, value, ttlMillis);
+        return true;
+    }
+
+    /**
+     * 获取失效次数
+     *
+     * @return 失效次数
+     */
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    /**
+     * 失效单个条目
+     *
+     * @param key 键
+     */
+    public synchronized void remove(K key) {
+        invalidations++;
+        map.remove(key);
+    }
+
+    /**
+     * 失效满足条件的条目
+     *
+     * @param filter 键与值的判断条件
+     */
+    public synchronized void removeIf(BiPredicate<? super K, ? super V> filter) {
+        invalidations++;
+        map.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue().value()));
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
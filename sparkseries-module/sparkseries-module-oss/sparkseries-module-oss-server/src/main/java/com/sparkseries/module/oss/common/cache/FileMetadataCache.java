@@ -0,0 +1,118 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.config.MetadataCacheConfig;
+import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity.Scope;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 文件元数据缓存
+ * 以 (文件 ID, 存储类型, 能见度) 为键缓存文件元数据, 供预览、下载等只读路径使用, 不缓存不存在的文件
+ * 文件删除、移动时经失效日志失效本节点及其他节点的缓存, 通知丢失时由缓存时间兜底
+ */
+@Slf4j
+@Component
+public class FileMetadataCache {
+
+    private final MetadataCacheConfig config;
+
+    private final MetadataInvalidationLog invalidationLog;
+
+    /**
+     * 文件元数据, 超出容量时淘汰最久未使用的文件
+     */
+    private final ExpiringLruMap<Key, FileMetadataEntity> cache;
+
+    public FileMetadataCache(MetadataCacheConfig config, MetadataInvalidationLog invalidationLog) {
+        this.config = config;
+        this.invalidationLog = invalidationLog;
+        this.cache = new ExpiringLruMap<>(config::getMaxSize);
+        if (config.isEnabled()) {
+            invalidationLog.subscribe(this::apply);
+        }
+    }
+
+    /**
+     * 获取文件元数据
+     *
+     * @param id 文件 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param loader 查询文件元数据
+     * @return 文件元数据, 不存在时为 null
+     */
+    public FileMetadataEntity get(Long id, StorageTypeEnum storageType, VisibilityEnum visibility,
+                                  Supplier<FileMetadataEntity> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        Key key = new Key(id, storageType, visibility);
+        FileMetadataEntity cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long invalidations = cache.invalidations();
+        FileMetadataEntity metadata = loader.get();
+        if (metadata != null) {
+            cache.putIfNotInvalidated(key, metadata, config.getTtlSeconds() * 1000L, invalidations);
+        }
+        return metadata;
+    }
+
+    /**
+     * 失效文件元数据并通知其他节点, 须在修改元数据的事务中调用
+     *
+     * @param file 文件元数据
+     */
+    public void invalidate(FileMetadataEntity file) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        invalidationLog.publish(new MetadataInvalidationEntity(null, Scope.FILE, file.getId(), null, null,
+                file.getStorageType(), file.getVisibility(), null));
+    }
+
+    /**
+     * 失效文件夹及其子文件夹下的文件元数据并通知其他节点, 须在修改元数据的事务中调用
+     * 同一日志也会失效文件夹及其子文件夹的列表缓存
+     *
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 所属用户 ID
+     * @param folderPath 文件夹路径
+     */
+    public void invalidateFolder(StorageTypeEnum storageType, VisibilityEnum visibility, Long userId, String folderPath) {
+        invalidationLog.publish(new MetadataInvalidationEntity(null, Scope.FOLDER, null, userId, folderPath, storageType,
+                visibility, null));
+    }
+
+    /**
+     * 按失效日志失效本地缓存
+     *
+     * @param row 失效日志
+     */
+    private void apply(MetadataInvalidationEntity row) {
+        if (row.getScope() == Scope.FILE) {
+            cache.remove(new Key(row.getFileId(), row.getStorageType(), row.getVisibility()));
+        } else if (row.getScope() == Scope.FOLDER) {
+            removeFolder(row.getStorageType(), row.getVisibility(), row.getUserId(), row.getFolderPath());
+        }
+    }
+
+    private void removeFolder(StorageTypeEnum storageType, VisibilityEnum visibility, Long userId, String folderPath) {
+        String prefix = folderPath + "/";
+        cache.removeIf((key, metadata) -> key.storageType() == storageType && key.visibility() == visibility
+                && metadata.getUserId().equals(userId)
+                && (metadata.getFolderPath().equals(folderPath) || metadata.getFolderPath().startsWith(prefix)));
+    }
+
+    private record Key(Long id, StorageTypeEnum storageType, VisibilityEnum visibility) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.config.ListingCacheConfig;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity.Scope;
+import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 文件夹列表缓存
+ * 以 (用户 ID, 存储类型, 能见度, 文件夹路径) 为键缓存文件夹下的文件及子文件夹, 文件夹未变更时列表不查询数据库
+ * 文件夹内容变更时递增文件夹的版本号, 缓存的列表只在版本号与加载时一致时使用; 变更经失效日志通知其他节点
+ */
+@Slf4j
+@Component
+public class FolderListingCache {
+
+    private final ListingCacheConfig config;
+
+    private final MetadataInvalidationLog invalidationLog;
+
+    /**
+     * 版本号来源, 全局递增, 淘汰后重新出现的文件夹不会得到旧的版本号
+     */
+    private long stamps;
+
+    /**
+     * 批量失效次数, 删除文件夹或淘汰版本号期间加载的列表不缓存
+     */
+    private long generation;
+
+    /**
+     * 变更过的文件夹的版本号, 从未变更的文件夹版本号为 0
+     */
+    private final LinkedHashMap<Key, Long> versions = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+            if (size() <= config.getMaxSize()) {
+                return false;
+            }
+            generation++;
+            listings.remove(eldest.getKey());
+            return true;
+        }
+    };
+
+    /**
+     * 文件夹列表及加载时的版本号, 超出容量时淘汰最久未使用的文件夹
+     */
+    private final ExpiringLruMap<Key, Entry> listings;
+
+    public FolderListingCache(ListingCacheConfig config, MetadataInvalidationLog invalidationLog) {
+        this.config = config;
+        this.invalidationLog = invalidationLog;
+        this.listings = new ExpiringLruMap<>(config::getMaxSize);
+        if (config.isEnabled()) {
+            invalidationLog.subscribe(this::apply);
+        }
+    }
+
+    /**
+     * 获取文件夹列表
+     *
+     * @param userId 用户 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param folderPath 文件夹路径
+     * @param loader 查询文件夹列表
+     * @return 文件夹列表
+     */
+    public FilesAndFoldersVO get(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, String folderPath,
+                                 Supplier<FilesAndFoldersVO> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        Key key = new Key(userId, storageType, visibility, folderPath);
+        long version;
+        long loadGeneration;
+        synchronized (this) {
+            version = versions.getOrDefault(key, 0L);
+            Entry entry = listings.get(key);
+            if (entry != null && entry.version() == version) {
+                return entry.listing();
+            }
+            loadGeneration = generation;
+        }
+
+        FilesAndFoldersVO listing = loader.get();
+        synchronized (this) {
+            if (loadGeneration == generation && versions.getOrDefault(key, 0L) == version) {
+                listings.put(key, new Entry(listing, version), config.getTtlSeconds() * 1000L);
+            }
+        }
+        return listing;
+    }
+
+    /**
+     * 文件夹下的文件或子文件夹变更后递增版本号并通知其他节点, 须在修改元数据的事务中调用
+     * 删除文件夹时使用 {@link FileMetadataCache#invalidateFolder}, 同时失效其子文件夹的列表
+     *
+     * @param userId 用户 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param folderPath 文件夹路径
+     */
+    public void invalidate(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, String folderPath) {
+        invalidationLog.publish(new MetadataInvalidationEntity(null, Scope.LISTING, null, userId, folderPath, storageType,
+                visibility, null));
+    }
+
+    /**
+     * 按失效日志递增版本号
+     *
+     * @param row 失效日志
+     */
+    private synchronized void apply(MetadataInvalidationEntity row) {
+        if (row.getScope() == Scope.LISTING) {
+            Key key = new Key(row.getUserId(), row.getStorageType(), row.getVisibility(), row.getFolderPath());
+            versions.put(key, ++stamps);
+            listings.remove(key);
+        } else if (row.getScope() == Scope.FOLDER) {
+            generation++;
+            String prefix = row.getFolderPath() + "/";
+            listings.removeIf((key, entry) -> key.userId().equals(row.getUserId()) && key.storageType() == row.getStorageType()
+                    && key.visibility() == row.getVisibility()
+                    && (key.folderPath().equals(row.getFolderPath()) || key.folderPath().startsWith(prefix)));
+        }
+    }
+
+    private record Key(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, String folderPath) {
+    }
+
+    private record Entry(FilesAndFoldersVO listing, long version) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkseries.module.oss.common.config.MetadataCacheConfig;
+import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.sparkseries.module.oss.common.util.TransactionUtil.afterCompletion;
+
+/**
+ * 元数据缓存失效日志
+ * 修改元数据的事务中发布失效日志, 本节点的缓存立即失效, 事务完成后再失效一次; 日志同时写入数据库,
+ * 各节点轮询日志并交给本节点的缓存失效, 作为节点间的失效通知通道
+ * 本节点没有启用任何缓存及搜索索引时不写日志也不轮询
+ */
+@Slf4j
+@Component
+public class MetadataInvalidationLog {
+
+    /**
+     * 单次轮询读取的最大日志行数
+     */
+    private static final int POLL_BATCH_SIZE = 1000;
+
+    /**
+     * 过期日志的清理间隔
+     */
+    private static final long PURGE_INTERVAL_MILLIS = 60 * 1000;
+
+    /**
+     * 等待较小 ID 可见的最长时间, 回滚的事务也会留下 ID 间隔, 超时后不再等待, 由缓存时间兜底
+     */
+    private static final long GAP_WAIT_MILLIS = 30 * 1000;
+
+    private final MetadataCacheConfig config;
+
+    private final MetadataMapper metadataMapper;
+
+    private final List<Consumer<MetadataInvalidationEntity>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 只接收轮询读到的日志的订阅者
+     */
+    private final List<Consumer<MetadataInvalidationEntity>> pollListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 已处理的最大日志 ID, 首次轮询前为 -1
+     */
+    private long lastId = -1;
+
+    /**
+     * 小于 lastId 但尚未读到的日志 ID 及其放弃等待的时间
+     * 自增 ID 在事务提交前分配, 较小的 ID 可能晚于较大的 ID 可见
+     */
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    private long nextPurgeAt;
+
+    private ScheduledExecutorService poller;
+
+    public MetadataInvalidationLog(MetadataCacheConfig config, MetadataMapper metadataMapper) {
+        this.config = config;
+        this.metadataMapper = metadataMapper;
+    }
+
+    /**
+     * 订阅其他节点的失效通知, 首次订阅时开始轮询
+     *
+     * @param listener 失效处理
+     */
+    public synchronized void subscribe(Consumer<MetadataInvalidationEntity> listener) {
+        listeners.add(listener);
+        startPolling();
+    }
+
+    /**
+     * 订阅轮询读到的失效日志, 包括本节点写入的日志, 只在轮询线程中调用, 此时写入日志的事务已提交
+     * 用于需要回表重新加载数据的订阅者, 发布日志时仍在事务中, 不能查询
+     *
+     * @param listener 失效处理
+     */
+    public synchronized void subscribePolled(Consumer<MetadataInvalidationEntity> listener) {
+        pollListeners.add(listener);
+        startPolling();
+    }
+
+    private void startPolling() {
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metadata-invalidation-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            poller.scheduleWithFixedDelay(this::poll, config.getPollIntervalMillis(), config.getPollIntervalMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 发布失效日志, 须在修改元数据的事务中调用
+     * 事务完成后再失效一次, 防止提交前被其他请求重新加载旧数据
+     *
+     * @param invalidation 失效日志
+     */
+    public void publish(MetadataInvalidationEntity invalidation) {
+        if (listeners.isEmpty() && pollListeners.isEmpty()) {
+            return;
+        }
+        listeners.forEach(listener -> listener.accept(invalidation));
+        afterCompletion(() -> listeners.forEach(listener -> listener.accept(invalidation)));
+        metadataMapper.insertInvalidation(invalidation);
+    }
+
+    /**
+     * 关闭轮询线程
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * 轮询失效日志, 交给订阅者失效其他节点修改过的数据
+     */
+    private void poll() {
+        try {
+            long now = System.currentTimeMillis();
+            if (lastId < 0) {
+                lastId = metadataMapper.getMaxInvalidationId();
+                return;
+            }
+            gaps.values().removeIf(deadline -> now >= deadline);
+            long afterId = gaps.keySet().stream().mapToLong(id -> id - 1).min().orElse(lastId);
+            List<MetadataInvalidationEntity> rows;
+            do {
+                rows = metadataMapper.listInvalidationsAfter(afterId, POLL_BATCH_SIZE);
+                for (MetadataInvalidationEntity row : rows) {
+                    afterId = row.getId();
+                    if (row.getId() <= lastId && gaps.remove(row.getId()) == null) {
+                        continue;
+                    }
+                    // 间隔过大时不是并发事务造成的, 不再等待
+                    if (row.getId() - lastId <= POLL_BATCH_SIZE) {
+                        for (long gap = lastId + 1; gap < row.getId(); gap++) {
+                            gaps.put(gap, now + GAP_WAIT_MILLIS);
+                        }
+                    }
+                    lastId = Math.max(lastId, row.getId());
+                    listeners.forEach(listener -> listener.accept(row));
+                    pollListeners.forEach(listener -> listener.accept(row));
+                }
+            } while (rows.size() == POLL_BATCH_SIZE);
+
+            if (now >= nextPurgeAt) {
+                nextPurgeAt = now + PURGE_INTERVAL_MILLIS;
+                metadataMapper.deleteInvalidationsBefore(LocalDateTime.now().minusSeconds(config.getRetentionSeconds()));
+            }
+        } catch (Exception e) {
+            log.warn("[元数据缓存] 轮询失效日志失败, 错误信息: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.config.ObjectCacheConfig;
+import com.sparkseries.module.oss.common.exception.OssException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 云存储对象本地磁盘缓存
+ * 以对象位置(存储类型、能见度、所属用户、路径)为键, 内容以键的 SHA-256 命名保存在缓存目录下;
+ * 内存中维护按访问顺序排列的索引, 占用空间超出上限时淘汰最久未使用的对象;
+ * 对象在准入窗口内第二次未命中时才写入缓存, 首次读取直接透传, 打包下载等只顺序读取一次的大批对象不会挤出热点对象;
+ * 同一对象的并发未命中只回源一次, 其余请求等待填充完成后读取缓存文件
+ */
+@Slf4j
+@Component
+public class ObjectDiskCache {
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 准入候选记录的数量上限
+     */
+    private static final int MAX_ADMISSION_CANDIDATES = 10_000;
+
+    private final ObjectCacheConfig config;
+
+    private final Path directory;
+
+    /**
+     * 按访问顺序排列的缓存索引, 键为缓存文件名
+     */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * 正在回源填充的对象, 值在填充完成后为缓存文件路径, 对象过大未缓存时为 null
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 准入窗口内首次未命中的对象, 键为缓存文件名, 记录在准入窗口结束时过期, 超出数量上限时丢弃最久未使用的记录
+     */
+    private final ExpiringLruMap<String, Boolean> candidates = new ExpiringLruMap<>(() -> MAX_ADMISSION_CANDIDATES);
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter bytesSaved;
+
+    private long totalBytes;
+
+    public ObjectDiskCache(ObjectCacheConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.directory = Path.of(config.getDirectory()).toAbsolutePath().normalize();
+        if (config.isEnabled()) {
+            resetDirectory();
+        }
+
+        this.hits = Counter.builder("oss.object.cache.hits")
+                .description("对象缓存命中次数")
+                .register(meterRegistry);
+        this.misses = Counter.builder("oss.object.cache.misses")
+                .description("对象缓存未命中次数")
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder("oss.object.cache.bytes.saved")
+                .description("由缓存提供、无需回源读取的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("oss.object.cache.hit.ratio", this, ObjectDiskCache::getHitRatio)
+                .description("对象缓存命中率")
+                .register(meterRegistry);
+        Gauge.builder("oss.object.cache.size", this, ObjectDiskCache::getTotalBytes)
+                .description("对象缓存占用的磁盘空间")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 读取对象, 未命中时通过 loader 回源, 准入窗口内再次未命中时写入缓存
+     *
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 所属用户 ID
+     * @param folderPath 文件夹路径
+     * @param fileName 文件名
+     * @param loader 回源读取对象的方法
+     * @return 对象内容的输入流
+     */
+    public InputStream open(StorageTypeEnum storageType, VisibilityEnum visibility, String userId, String folderPath,
+                            String fileName, Supplier<InputStream> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        Key key = new Key(storageType, visibility, ownerOf(visibility, userId), String.join("/", folderPath, fileName));
+        String name = DigestUtils.sha256Hex(key.toString());
+
+        InputStream cached = openCached(name);
+        if (cached != null) {
+            return cached;
+        }
+        if (!admit(name)) {
+            misses.increment();
+            return loader.get();
+        }
+
+        CompletableFuture<Path> fill = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(name, fill);
+        if (existing != null) {
+            return awaitFill(name, existing, loader);
+        }
+        misses.increment();
+        try {
+            return fill(name, key, loader, fill);
+        } finally {
+            inFlight.remove(name, fill);
+        }
+    }
+
+    /**
+     * 失效单个对象
+     *
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 所属用户 ID
+     * @param folderPath 文件夹路径
+     * @param fileName 文件名
+     */
+    public void invalidate(StorageTypeEnum storageType, VisibilityEnum visibility, String userId, String folderPath, String fileName) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Key key = new Key(storageType, visibility, ownerOf(visibility, userId), String.join("/", folderPath, fileName));
+        String name = DigestUtils.sha256Hex(key.toString());
+        Entry removed;
+        synchronized (index) {
+            removed = index.remove(name);
+            if (removed != null) {
+                totalBytes -= removed.size();
+            }
+        }
+        if (removed != null) {
+            deleteQuietly(directory.resolve(name));
+        }
+    }
+
+    /**
+     * 失效文件夹下所有用户的对象
+     *
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param folderPath 文件夹路径
+     */
+    public void invalidateFolder(StorageTypeEnum storageType, VisibilityEnum visibility, String folderPath) {
+        removeIf(key -> key.storageType() == storageType && key.visibility() == visibility && key.path().startsWith(folderPath));
+    }
+
+    /**
+     * 失效存储类型的所有对象, 存储配置切换后旧存储桶的内容不再使用
+     *
+     * @param storageType 存储类型
+     */
+    public void invalidateAll(StorageTypeEnum storageType) {
+        removeIf(key -> key.storageType() == storageType);
+        log.info("已清空 {} 的对象缓存", storageType);
+    }
+
+    /**
+     * 获取缓存命中率
+     *
+     * @return 命中率, 尚无访问时为 0
+     */
+    public double getHitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    /**
+     * 获取缓存占用的磁盘空间
+     *
+     * @return 字节数
+     */
+    public long getTotalBytes() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * 判断未命中的对象是否写入缓存
+     * 首次未命中只记录时间, 准入窗口内再次未命中时准入; 窗口为 0 时总是准入
+     *
+     * @param name 缓存文件名
+     * @return 是否写入缓存
+     */
+    private boolean admit(String name) {
+        long windowMillis = config.getAdmissionWindowMinutes() * 60_000L;
+        if (windowMillis == 0) {
+            return true;
+        }
+        if (candidates.get(name) != null) {
+            candidates.remove(name);
+            return true;
+        }
+        candidates.put(name, Boolean.TRUE, windowMillis);
+        return false;
+    }
+
+    /**
+     * 打开已缓存的对象
+     *
+     * @param name 缓存文件名
+     * @return 缓存文件的输入流, 未命中时为 null
+     */
+    private InputStream openCached(String name) {
+        Entry entry;
+        synchronized (index) {
+            entry = index.get(name);
+        }
+        if (entry == null) {
+            return null;
+        }
+        try {
+            InputStream inputStream = Files.newInputStream(directory.resolve(name));
+            hits.increment();
+            bytesSaved.increment(entry.size());
+            return inputStream;
+        } catch (NoSuchFileException e) {
+            // 在查询索引与打开文件之间被淘汰, 按未命中处理
+            return null;
+        } catch (IOException e) {
+            log.warn("[对象缓存] 读取缓存文件失败: {}, 错误信息: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 等待其他请求的回源填充完成后读取缓存, 填充失败或对象未缓存时自行回源
+     *
+     * @param name 缓存文件名
+     * @param existing 正在进行的填充
+     * @param loader 回源读取对象的方法
+     * @return 对象内容的输入流
+     */
+    private InputStream awaitFill(String name, CompletableFuture<Path> existing, Supplier<InputStream> loader) {
+        try {
+            if (existing.join() != null) {
+                InputStream cached = openCached(name);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        } catch (CompletionException e) {
+            log.debug("[对象缓存] 等待的回源填充失败: {}", e.getMessage());
+        }
+        misses.increment();
+        return loader.get();
+    }
+
+    /**
+     * 回源读取对象并写入缓存
+     * 对象超过单个对象上限时不再写入, 已写出的部分与剩余的源数据拼接后返回, 读取结束后删除临时文件
+     *
+     * @param name 缓存文件名
+     * @param key 缓存键
+     * @param loader 回源读取对象的方法
+     * @param fill 本次填充
+     * @return 对象内容的输入流
+     */
+    private InputStream fill(String name, Key key, Supplier<InputStream> loader, CompletableFuture<Path> fill) {
+        long maxObjectBytes = config.getMaxObjectSizeMb() * MB;
+        Path tempFile = null;
+        InputStream source = null;
+        try {
+            source = loader.get();
+            tempFile = Files.createTempFile(directory, name, ".tmp");
+            long size = 0;
+            boolean truncated = false;
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                    size += read;
+                    if (size > maxObjectBytes) {
+                        truncated = true;
+                        break;
+                    }
+                }
+            }
+
+            if (truncated) {
+                log.debug("[对象缓存] 对象超过缓存上限, 不缓存: {}", key.path());
+                fill.complete(null);
+                return new SequenceInputStream(new DeleteOnCloseInputStream(Files.newInputStream(tempFile), tempFile), source);
+            }
+            source.close();
+
+            Path target = directory.resolve(name);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            register(name, new Entry(key, size));
+            fill.complete(target);
+            return Files.newInputStream(target);
+        } catch (IOException | RuntimeException e) {
+            fill.completeExceptionally(e);
+            closeQuietly(source);
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
+            if (e instanceof OssException ossException) {
+                throw ossException;
+            }
+            log.warn("[对象缓存] 回源填充失败: {}, 错误信息: {}", key.path(), e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 登记缓存条目并淘汰超出空间上限的对象
+     *
+     * @param name 缓存文件名
+     * @param entry 缓存条目
+     */
+    private void register(String name, Entry entry) {
+        long maxBytes = config.getMaxSizeMb() * MB;
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            Entry previous = index.put(name, entry);
+            totalBytes += entry.size() - (previous == null ? 0 : previous.size());
+            Iterator<Map.Entry<String, Entry>> iterator = index.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue().size();
+                evicted.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        evicted.forEach(evictedName -> deleteQuietly(directory.resolve(evictedName)));
+    }
+
+    /**
+     * 失效满足条件的对象
+     *
+     * @param predicate 缓存键的判断条件
+     */
+    private void removeIf(Predicate<Key> predicate) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        List<String> removed = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Entry>> iterator = index.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                if (predicate.test(entry.getValue().key())) {
+                    totalBytes -= entry.getValue().size();
+                    removed.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        removed.forEach(name -> deleteQuietly(directory.resolve(name)));
+    }
+
+    /**
+     * 清空缓存目录, 重启后内存索引为空, 磁盘上的旧文件无法再被失效
+     */
+    private void resetDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(Files::isRegularFile).forEach(this::deleteQuietly);
+            }
+            log.info("[对象缓存] 缓存目录: {}, 空间上限: {}MB", directory, config.getMaxSizeMb());
+        } catch (IOException e) {
+            log.warn("[对象缓存] 初始化缓存目录失败: {}", e.getMessage(), e);
+            throw new OssException("初始化对象缓存目录失败");
+        }
+    }
+
+    /**
+     * 公共对象的存储位置与用户无关
+     */
+    private static String ownerOf(VisibilityEnum visibility, String userId) {
+        return visibility == VisibilityEnum.PRIVATE ? userId : "";
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("[对象缓存] 删除缓存文件失败: {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        if (inputStream == null) {
+            return;
+        }
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("关闭文件流失败", e);
+        }
+    }
+
+    /**
+     * 缓存键
+     *
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 所属用户 ID, 公共对象为空
+     * @param path 对象路径(文件夹路径/文件名)
+     */
+    private record Key(StorageTypeEnum storageType, VisibilityEnum visibility, String userId, String path) {
+
+        @Override
+        public String toString() {
+            return storageType + ":" + visibility + ":" + userId + ":" + path;
+        }
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param key 缓存键
+     * @param size 对象大小
+     */
+    private record Entry(Key key, long size) {
+    }
+
+    /**
+     * 关闭时删除临时文件的输入流
+     */
+    private static class DeleteOnCloseInputStream extends FilterInputStream {
+
+        private final Path file;
+
+        DeleteOnCloseInputStream(InputStream in, Path file) {
+            super(in);
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
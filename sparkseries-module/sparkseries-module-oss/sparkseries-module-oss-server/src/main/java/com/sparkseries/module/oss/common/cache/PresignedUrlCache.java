@@ -0,0 +1,117 @@
+package com.sparkseries.module.oss.common.cache;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkseries.module.oss.common.config.PresignedUrlCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 预签名 URL 缓存
+ * 以 (存储类型, 存储桶, 对象键, 响应方式) 为键复用已签名的预览/下载地址, 避免每次请求都借用客户端重新签名
+ * 地址在剩余有效期不足时不再复用, 对象被删除、移动或覆盖时由存储服务主动失效
+ */
+@Slf4j
+@Component
+public class PresignedUrlCache {
+
+    /**
+     * 预览地址的响应方式
+     */
+    public static final String INLINE = "inline";
+
+    /**
+     * 下载地址的响应方式
+     */
+    public static final String ATTACHMENT = "attachment";
+
+    private final PresignedUrlCacheConfig config;
+
+    /**
+     * 已签名的地址, 在剩余有效期不足时过期, 超出容量时淘汰最久未使用的地址
+     */
+    private final ExpiringLruMap<Key, String> cache;
+
+    public PresignedUrlCache(PresignedUrlCacheConfig config) {
+        this.config = config;
+        this.cache = new ExpiringLruMap<>(config::getMaxSize);
+    }
+
+    /**
+     * 获取仍可复用的地址
+     *
+     * @param storageType 存储类型
+     * @param bucket 存储桶
+     * @param objectKey 对象键
+     * @param disposition 响应方式
+     * @return 已签名的地址, 不存在或即将过期时为 null
+     */
+    public String get(StorageTypeEnum storageType, String bucket, String objectKey, String disposition) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        String url = cache.get(new Key(storageType, bucket, objectKey, disposition));
+        if (url != null) {
+            log.debug("复用预签名地址: {}", objectKey);
+        }
+        return url;
+    }
+
+    /**
+     * 缓存新签名的地址
+     *
+     * @param storageType 存储类型
+     * @param bucket 存储桶
+     * @param objectKey 对象键
+     * @param disposition 响应方式
+     * @param url 已签名的地址
+     * @param expireSeconds 地址有效期(秒)
+     */
+    public void put(StorageTypeEnum storageType, String bucket, String objectKey, String disposition, String url, long expireSeconds) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long expireMillis = expireSeconds * 1000;
+        long margin = Math.max(config.getSafetyMarginSeconds() * 1000L, (long) (expireMillis * config.getMinRemainingRatio()));
+        if (margin >= expireMillis) {
+            return;
+        }
+        cache.put(new Key(storageType, bucket, objectKey, disposition), url, expireMillis - margin);
+    }
+
+    /**
+     * 失效对象的所有地址
+     *
+     * @param storageType 存储类型
+     * @param bucket 存储桶
+     * @param objectKey 对象键
+     */
+    public void invalidate(StorageTypeEnum storageType, String bucket, String objectKey) {
+        cache.remove(new Key(storageType, bucket, objectKey, INLINE));
+        cache.remove(new Key(storageType, bucket, objectKey, ATTACHMENT));
+    }
+
+    /**
+     * 失效指定前缀(文件夹)下所有对象的地址
+     *
+     * @param storageType 存储类型
+     * @param bucket 存储桶
+     * @param prefix 对象键前缀
+     */
+    public void invalidatePrefix(StorageTypeEnum storageType, String bucket, String prefix) {
+        cache.removeIf((key, url) -> key.storageType() == storageType && key.bucket().equals(bucket)
+                && key.objectKey().startsWith(prefix));
+    }
+
+    /**
+     * 失效存储类型的所有地址, 存储配置切换后旧密钥签名的地址不再复用
+     *
+     * @param storageType 存储类型
+     */
+    public void invalidateAll(StorageTypeEnum storageType) {
+        cache.removeIf((key, url) -> key.storageType() == storageType);
+        log.info("已清空 {} 的预签名地址缓存", storageType);
+    }
+
+    private record Key(StorageTypeEnum storageType, String bucket, String objectKey, String disposition) {
+    }
+}
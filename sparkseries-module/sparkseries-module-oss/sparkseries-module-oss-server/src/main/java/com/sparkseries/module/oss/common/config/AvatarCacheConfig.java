@@ -0,0 +1,41 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 头像位置缓存配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "avatar.cache")
+public class AvatarCacheConfig {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的用户数量, 超出时淘汰最久未使用的
+     */
+    @Min(1)
+    private int maxSize = 100000;
+
+    /**
+     * 头像位置的缓存时间（秒）
+     */
+    @Min(1)
+    private int ttlSeconds = 600;
+
+    /**
+     * 没有头像的用户的缓存时间（秒）
+     */
+    @Min(0)
+    private int negativeTtlSeconds = 60;
+}
@@ -0,0 +1,40 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+
+/**
+ * 头像缩略图配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "avatar.derivative")
+public class AvatarDerivativeConfig {
+
+    /**
+     * 是否在上传头像时生成缩略图
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缩略图边长（像素）
+     */
+    @NotEmpty
+    private List<Integer> sizes = List.of(32, 64, 128, 256);
+
+    /**
+     * JPEG 压缩质量
+     */
+    @DecimalMin("0.1")
+    @DecimalMax("1.0")
+    private float quality = 0.85f;
+}
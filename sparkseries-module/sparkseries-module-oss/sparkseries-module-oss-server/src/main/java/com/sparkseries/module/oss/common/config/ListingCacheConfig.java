@@ -0,0 +1,35 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 文件夹列表缓存配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "listing.cache")
+public class ListingCacheConfig {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的文件夹数量, 超出时淘汰最久未使用的
+     */
+    @Min(1)
+    private int maxSize = 10000;
+
+    /**
+     * 文件夹列表的缓存时间（秒）
+     */
+    @Min(1)
+    private int ttlSeconds = 300;
+}
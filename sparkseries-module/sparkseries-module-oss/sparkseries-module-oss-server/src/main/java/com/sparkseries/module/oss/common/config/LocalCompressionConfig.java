@@ -0,0 +1,41 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import com.sparkeries.enums.VisibilityEnum;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 本地存储压缩配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "local.compression")
+public class LocalCompressionConfig {
+
+    /**
+     * 启用 gzip 压缩存储的能见度, 为空时不压缩(头像不参与压缩)
+     */
+    private Set<VisibilityEnum> visibilities = EnumSet.noneOf(VisibilityEnum.class);
+
+    /**
+     * 参与压缩的最小文件大小（字节）
+     */
+    @Min(0)
+    private long minSize = 4 * 1024;
+
+    /**
+     * 压缩级别 1-9
+     */
+    @Min(1)
+    @Max(9)
+    private int level = 6;
+}
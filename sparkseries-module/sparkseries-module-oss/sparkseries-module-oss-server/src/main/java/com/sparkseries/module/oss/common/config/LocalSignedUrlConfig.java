@@ -0,0 +1,34 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 本地存储签名 URL 配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "local.signed-url")
+public class LocalSignedUrlConfig {
+
+    /**
+     * 是否启用签名 URL, 关闭时仍使用按文件 ID 访问的接口
+     */
+    private boolean enabled = true;
+
+    /**
+     * 签名密钥, 多实例部署时须保持一致; 为空时启动时随机生成, 重启后已签发的 URL 失效
+     */
+    private String secret = "";
+
+    /**
+     * URL 的最短有效期（秒）, 同一时间窗口内签发的 URL 相同, 实际有效期在该值的 1~2 倍之间
+     */
+    @Min(60)
+    private long expireSeconds = 3600;
+}
@@ -0,0 +1,47 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 文件元数据缓存配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "metadata.cache")
+public class MetadataCacheConfig {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的文件数量, 超出时淘汰最久未使用的
+     */
+    @Min(1)
+    private int maxSize = 100000;
+
+    /**
+     * 文件元数据的缓存时间（秒）, 也是其他节点失效通知丢失时的最长不一致时间
+     */
+    @Min(1)
+    private int ttlSeconds = 300;
+
+    /**
+     * 轮询失效日志的间隔（毫秒）
+     */
+    @Min(100)
+    private int pollIntervalMillis = 1000;
+
+    /**
+     * 失效日志的保留时间（秒）, 须大于缓存时间
+     */
+    @Min(1)
+    private int retentionSeconds = 3600;
+}
@@ -0,0 +1,48 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 云存储对象本地磁盘缓存配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "object.cache")
+public class ObjectCacheConfig {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录, 启动时会被清空
+     */
+    @NotBlank
+    private String directory = "./Folder/cache";
+
+    /**
+     * 缓存占用的磁盘空间上限（MB）, 超出时淘汰最久未使用的对象
+     */
+    @Min(1)
+    private long maxSizeMb = 1024;
+
+    /**
+     * 单个对象的缓存上限（MB）, 更大的对象只透传不缓存
+     */
+    @Min(1)
+    private long maxObjectSizeMb = 64;
+
+    /**
+     * 准入窗口（分钟）, 对象在窗口内第二次被读取时才写入缓存, 只读取一次的对象直接透传; 为 0 时首次读取即写入缓存
+     */
+    @Min(0)
+    private long admissionWindowMinutes = 10;
+}
@@ -0,0 +1,44 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 预签名 URL 缓存配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "presigned.cache")
+public class PresignedUrlCacheConfig {
+
+    /**
+     * 是否启用缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的 URL 数量, 超出时淘汰最久未使用的
+     */
+    @Min(1)
+    private int maxSize = 10000;
+
+    /**
+     * 距离过期不足该时间（秒）的 URL 不再复用
+     */
+    @Min(0)
+    private int safetyMarginSeconds = 30;
+
+    /**
+     * 剩余有效期低于总有效期的该比例时不再复用, 保证返回给客户端的 URL 仍有足够的可用时间
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double minRemainingRatio = 0.5;
+}
@@ -0,0 +1,36 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 文件搜索索引配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "search.index")
+public class SearchIndexConfig {
+
+    /**
+     * 是否启用文件搜索
+     */
+    private boolean enabled = true;
+
+    /**
+     * 构建索引时单次扫描的文件元数据行数
+     */
+    @Min(1)
+    private int scanBatchSize = 5000;
+
+    /**
+     * 重新扫描文件元数据的间隔（分钟）, 其他节点的修改通过元数据失效日志同步, 定时扫描用于补充失效日志清理前未读到的修改,
+     * 为 0 时只在启动时扫描
+     */
+    @Min(0)
+    private int rescanIntervalMinutes = 0;
+}
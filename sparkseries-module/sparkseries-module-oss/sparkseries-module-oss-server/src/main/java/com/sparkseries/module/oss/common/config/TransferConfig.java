@@ -0,0 +1,83 @@
+package com.sparkseries.module.oss.common.config;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 传输线程池配置属性
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "transfer.config")
+public class TransferConfig {
+
+    /**
+     * 分片上传线程数
+     */
+    @Min(1)
+    private int partThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 分片上传任务队列容量
+     */
+    @Min(1)
+    private int queueCapacity = 256;
+
+    /**
+     * 空闲线程存活时间（秒）
+     */
+    @Min(1)
+    private long keepAliveSeconds = 60;
+
+    /**
+     * 全局同时在途的最大分片数
+     */
+    @Min(1)
+    private int maxConcurrentParts = 32;
+
+    /**
+     * 单次分片上传可循环使用的分片缓冲区数
+     */
+    @Min(1)
+    private int partBuffers = 4;
+
+    /**
+     * 批量上传时文件级任务线程数（与分片线程池分离, 避免文件任务占满线程后分片任务无法执行）
+     */
+    @Min(1)
+    private int fileThreads = 8;
+
+    /**
+     * 单次批量上传允许的最大并发文件数
+     */
+    @Min(1)
+    private int maxBatchParallelism = 8;
+
+    /**
+     * 是否使用虚拟线程执行阻塞的 SDK 调用（需要 JDK 21 及以上，否则回退为平台线程池）
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 文件夹打包下载时预读的文件数
+     */
+    @Min(0)
+    private int archivePrefetch = 4;
+
+    /**
+     * 文件夹打包下载时每个预读文件最多缓存的字节数, 预读占用的内存不超过 预读文件数 × 该值
+     */
+    @Min(0)
+    private int archivePrefetchBytes = 1024 * 1024;
+
+    /**
+     * 文件夹打包下载时每次查询的文件元数据数量
+     */
+    @Min(1)
+    private int archivePageSize = 200;
+}
@@ -0,0 +1,237 @@
+package com.sparkseries.module.oss.common.config;
+
+import com.sparkseries.module.oss.common.util.PartBufferPool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 传输线程池
+ * 所有存储服务共享的长生命周期分片上传线程池, 替代每次上传时临时创建的线程池
+ */
+@Slf4j
+@Component
+public class TransferExecutor {
+
+    private final ExecutorService partExecutor;
+
+    private final ExecutorService fileExecutor;
+
+    private final Semaphore partPermits;
+
+    private final int maxConcurrentParts;
+
+    private final int partBuffers;
+
+    private final int maxBatchParallelism;
+
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final AtomicInteger activeFileTasks = new AtomicInteger();
+
+    public TransferExecutor(TransferConfig transferConfig, MeterRegistry meterRegistry) {
+        this.maxConcurrentParts = transferConfig.getMaxConcurrentParts();
+        this.partBuffers = transferConfig.getPartBuffers();
+        this.maxBatchParallelism = transferConfig.getMaxBatchParallelism();
+        this.partPermits = new Semaphore(maxConcurrentParts, true);
+        this.partExecutor = createExecutor(transferConfig, "oss-transfer-", transferConfig.getPartThreads());
+        this.fileExecutor = createExecutor(transferConfig, "oss-transfer-file-", transferConfig.getFileThreads());
+
+        Gauge.builder("oss.transfer.queue.depth", queuedTasks, AtomicInteger::get)
+                .description("等待执行的分片上传任务数")
+                .register(meterRegistry);
+        Gauge.builder("oss.transfer.active", activeTasks, AtomicInteger::get)
+                .description("正在执行的分片上传任务数")
+                .register(meterRegistry);
+        Gauge.builder("oss.transfer.parts.in.flight", this, TransferExecutor::getPartsInFlight)
+                .description("已提交但尚未完成的分片数")
+                .register(meterRegistry);
+        Gauge.builder("oss.transfer.file.active", activeFileTasks, AtomicInteger::get)
+                .description("正在执行的文件级上传任务数")
+                .register(meterRegistry);
+        log.info("[初始化传输线程池] 虚拟线程: {}, 分片线程数: {}, 全局在途分片上限: {}",
+                transferConfig.isVirtualThreads(), transferConfig.getPartThreads(), maxConcurrentParts);
+    }
+
+    /**
+     * 提交分片上传任务
+     * 全局在途分片数达到上限时阻塞调用线程, 形成背压
+     *
+     * @param task 分片上传任务
+     * @param <T> 任务结果类型
+     * @return 任务结果
+     * @throws InterruptedException 等待分片许可时被中断
+     */
+    public <T> CompletableFuture<T> submitPart(Supplier<T> task) throws InterruptedException {
+        partPermits.acquire();
+        queuedTasks.incrementAndGet();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queuedTasks.decrementAndGet();
+                activeTasks.incrementAndGet();
+                try {
+                    return task.get();
+                } finally {
+                    activeTasks.decrementAndGet();
+                    partPermits.release();
+                }
+            }, partExecutor);
+        } catch (RejectedExecutionException e) {
+            queuedTasks.decrementAndGet();
+            partPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 等待已提交的分片任务全部结束, 不论成功或失败
+     * 取消分片上传前调用, 避免取消后仍在执行的分片继续写入存储服务, 留下无法清理的分片
+     *
+     * @param futures 已提交的分片任务
+     */
+    public void awaitParts(Collection<? extends CompletableFuture<?>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((result, e) -> null)
+                .join();
+    }
+
+    /**
+     * 提交文件级上传任务
+     * 文件级任务内部会继续提交分片任务, 因此使用独立的线程池执行
+     *
+     * @param task 文件上传任务
+     * @param <T> 任务结果类型
+     * @return 任务结果
+     */
+    public <T> CompletableFuture<T> submitFile(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            activeFileTasks.incrementAndGet();
+            try {
+                return task.get();
+            } finally {
+                activeFileTasks.decrementAndGet();
+            }
+        }, fileExecutor);
+    }
+
+    /**
+     * 将请求的批量上传并发数限制在配置范围内
+     *
+     * @param parallelism 请求的并发数
+     * @return 实际使用的并发数
+     */
+    public int resolveBatchParallelism(int parallelism) {
+        return Math.max(1, Math.min(parallelism, maxBatchParallelism));
+    }
+
+    /**
+     * 创建单次分片上传使用的分片缓冲区池
+     *
+     * @param partSize 分片大小
+     * @return 分片缓冲区池
+     */
+    public PartBufferPool newPartBufferPool(long partSize) {
+        return new PartBufferPool(partBuffers, Math.toIntExact(partSize));
+    }
+
+    /**
+     * 获取等待执行的分片任务数
+     *
+     * @return 等待执行的分片任务数
+     */
+    public int getQueueDepth() {
+        return queuedTasks.get();
+    }
+
+    /**
+     * 获取正在执行的分片任务数
+     *
+     * @return 正在执行的分片任务数
+     */
+    public int getActiveCount() {
+        return activeTasks.get();
+    }
+
+    /**
+     * 获取已提交但尚未完成的分片数
+     *
+     * @return 在途分片数
+     */
+    public int getPartsInFlight() {
+        return maxConcurrentParts - partPermits.availablePermits();
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        log.info("[关闭传输线程池] 等待在途上传任务完成");
+        shutdown(fileExecutor);
+        shutdown(partExecutor);
+    }
+
+    /**
+     * 关闭单个线程池
+     *
+     * @param executor 线程池
+     */
+    private void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("[关闭传输线程池] 线程池未在30秒内关闭，强制关闭");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 创建线程池
+     * 开启虚拟线程且运行环境支持时使用虚拟线程, 否则使用有界平台线程池
+     *
+     * @param transferConfig 传输线程池配置
+     * @param threadNamePrefix 线程名前缀
+     * @param threads 平台线程数
+     * @return 线程池
+     */
+    private ExecutorService createExecutor(TransferConfig transferConfig, String threadNamePrefix, int threads) {
+        if (transferConfig.isVirtualThreads()) {
+            try {
+                // 通过反射创建, 使编译目标保持在 JDK 17
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("[初始化传输线程池] 当前运行环境不支持虚拟线程，回退为平台线程池");
+            }
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, threadNamePrefix + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                transferConfig.getKeepAliveSeconds(),
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(transferConfig.getQueueCapacity()),
+                threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,170 @@
+package com.sparkseries.module.oss.common.migration;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回填文件夹树
+ * 为已有文件夹设置父文件夹并生成祖先关系, 为只存在于文件路径中的文件夹补建文件夹记录, 并回填文件所在文件夹 id
+ * 同一位置的重复文件夹记录只保留一条, 以便 V5 添加唯一约束
+ */
+@Slf4j
+@Component
+public class V4__BackfillFolderTree extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+
+        Map<FolderKey, Long> folders = new LinkedHashMap<>();
+        List<Long> duplicates = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT id, user_id, folder_path, folder_name, storage_type, visibility FROM folder_metadata ORDER BY id")) {
+            while (rs.next()) {
+                FolderKey key = new FolderKey(rs.getString("storage_type"), rs.getString("visibility"), rs.getLong("user_id"),
+                        join(rs.getString("folder_path"), rs.getString("folder_name")));
+                if (folders.putIfAbsent(key, rs.getLong("id")) != null) {
+                    duplicates.add(rs.getLong("id"));
+                }
+            }
+        }
+        executeBatch(connection, "DELETE FROM folder_metadata WHERE id = ?", duplicates, (ps, id) -> ps.setLong(1, id));
+
+        // 文件路径中的各级文件夹
+        List<FolderKey> filePaths = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT DISTINCT storage_type, visibility, user_id, folder_path FROM file_metadata")) {
+            while (rs.next()) {
+                filePaths.add(new FolderKey(rs.getString("storage_type"), rs.getString("visibility"), rs.getLong("user_id"),
+                        rs.getString("folder_path")));
+            }
+        }
+        List<FolderKey> created = new ArrayList<>();
+        for (FolderKey key : new ArrayList<>(folders.keySet())) {
+            addAncestors(key.parent(), folders, created);
+        }
+        for (FolderKey key : filePaths) {
+            addAncestors(key, folders, created);
+        }
+        executeBatch(connection, "INSERT INTO folder_metadata (id, user_id, folder_path, folder_name, storage_type, visibility) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", created, (ps, key) -> {
+            ps.setLong(1, folders.get(key));
+            ps.setLong(2, key.userId());
+            ps.setString(3, key.parent() == null ? "" : key.parent().path());
+            ps.setString(4, key.name());
+            ps.setString(5, key.storageType());
+            ps.setString(6, key.visibility());
+        });
+
+        // 父文件夹及祖先关系
+        List<FolderKey> all = new ArrayList<>(folders.keySet());
+        executeBatch(connection, "UPDATE folder_metadata SET parent_id = ? WHERE id = ?", all, (ps, key) -> {
+            ps.setLong(1, key.parent() == null ? 0L : folders.get(key.parent()));
+            ps.setLong(2, folders.get(key));
+        });
+        List<long[]> closures = new ArrayList<>();
+        for (FolderKey key : all) {
+            int depth = 0;
+            for (FolderKey ancestor = key; ancestor != null; ancestor = ancestor.parent(), depth++) {
+                closures.add(new long[]{folders.get(ancestor), folders.get(key), depth});
+            }
+        }
+        executeBatch(connection, "INSERT IGNORE INTO folder_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)", closures,
+                (ps, closure) -> {
+                    ps.setLong(1, closure[0]);
+                    ps.setLong(2, closure[1]);
+                    ps.setInt(3, (int) closure[2]);
+                });
+
+        // 文件所在文件夹
+        executeBatch(connection, "UPDATE file_metadata SET folder_id = ? "
+                + "WHERE storage_type = ? and visibility = ? and user_id = ? and folder_path = ?", filePaths, (ps, key) -> {
+            ps.setLong(1, folders.get(key));
+            ps.setString(2, key.storageType());
+            ps.setString(3, key.visibility());
+            ps.setLong(4, key.userId());
+            ps.setString(5, key.path());
+        });
+
+        log.info("[数据库迁移] 文件夹树回填完成, 文件夹: {}, 补建: {}, 删除重复: {}", folders.size(), created.size(), duplicates.size());
+    }
+
+    /**
+     * 补建路径及其各级父路径中不存在的文件夹
+     *
+     * @param key 文件夹路径
+     * @param folders 已有文件夹
+     * @param created 补建的文件夹
+     */
+    private static void addAncestors(FolderKey key, Map<FolderKey, Long> folders, List<FolderKey> created) {
+        List<FolderKey> missing = new ArrayList<>();
+        for (FolderKey current = key; current != null && !folders.containsKey(current); current = current.parent()) {
+            missing.add(current);
+        }
+        // 父文件夹先于子文件夹创建
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            folders.put(missing.get(i), IdWorker.getId());
+            created.add(missing.get(i));
+        }
+    }
+
+    private static String join(String folderPath, String folderName) {
+        return folderPath == null || folderPath.isEmpty() ? folderName : folderPath + "/" + folderName;
+    }
+
+    private static <T> void executeBatch(Connection connection, String sql, List<T> items, Binder<T> binder) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (T item : items) {
+                binder.bind(ps, item);
+                ps.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /**
+     * 文件夹位置
+     *
+     * @param path 文件夹完整路径
+     */
+    private record FolderKey(String storageType, String visibility, long userId, String path) {
+
+        FolderKey parent() {
+            int index = path.lastIndexOf('/');
+            return index < 0 ? null : new FolderKey(storageType, visibility, userId, path.substring(0, index));
+        }
+
+        String name() {
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+    }
+}
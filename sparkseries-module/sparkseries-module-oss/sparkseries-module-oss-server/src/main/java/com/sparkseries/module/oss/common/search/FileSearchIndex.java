@@ -0,0 +1,388 @@
+package com.sparkseries.module.oss.common.search;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.cache.MetadataInvalidationLog;
+import com.sparkseries.module.oss.common.config.SearchIndexConfig;
+import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.file.dto.FileSearchDTO;
+import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity.Scope;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.sparkseries.module.oss.common.util.TransactionUtil.afterCommit;
+
+/**
+ * 文件搜索索引
+ * 按 (用户 ID, 存储类型, 能见度) 分区在内存中索引文件名三元组及文件类型、大小、最后更新时间, 查询不访问数据库
+ * 启动时按 ID 分批扫描文件元数据构建, 之后随本节点的文件添加、删除、移动在事务提交后增量更新;
+ * 其他节点的修改通过元数据失效日志同步: 文件夹列表变更时重新加载该文件夹下的文件, 删除文件夹时删除其下的文件,
+ * 查询结果回表时仍会剔除已不存在的文件, 定时重新扫描作为兜底
+ */
+@Slf4j
+@Component
+public class FileSearchIndex {
+
+    /**
+     * 首次扫描失败后的重试间隔
+     */
+    private static final long RETRY_DELAY_SECONDS = 60;
+
+    private final SearchIndexConfig config;
+
+    private final MetadataMapper metadataMapper;
+
+    private final Map<Key, SearchPartition> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * 首次扫描完成前索引不完整, 不提供查询
+     */
+    private volatile boolean ready;
+
+    /**
+     * 扫描期间删除的文件 ID, 防止扫描读到的旧数据把已删除的文件重新加入索引; 不在扫描时为 null
+     * 修改索引时持有本对象的锁, 保证删除与扫描写入的先后顺序
+     */
+    private Set<Long> removedDuringScan;
+
+    /**
+     * 扫描期间删除的文件夹, 作用同 removedDuringScan
+     */
+    private List<RemovedFolder> foldersRemovedDuringScan;
+
+    private ScheduledExecutorService scanner;
+
+    public FileSearchIndex(SearchIndexConfig config, MetadataMapper metadataMapper, MetadataInvalidationLog invalidationLog) {
+        this.config = config;
+        this.metadataMapper = metadataMapper;
+        if (config.isEnabled()) {
+            invalidationLog.subscribePolled(this::apply);
+        }
+    }
+
+    /**
+     * 应用启动后在后台线程构建索引, 并按配置定时重新扫描
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!config.isEnabled() || scanner != null) {
+            return;
+        }
+        scanner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.getRescanIntervalMinutes() > 0) {
+            scanner.scheduleWithFixedDelay(this::scan, 0, config.getRescanIntervalMinutes(), TimeUnit.MINUTES);
+        } else {
+            scanner.execute(this::scan);
+        }
+    }
+
+    /**
+     * 关闭扫描线程
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scanner != null) {
+            scanner.shutdownNow();
+        }
+    }
+
+    /**
+     * 查询当前用户符合条件的文件
+     *
+     * @param userId 用户 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param search 搜索条件
+     * @param sort 排序字段
+     * @param asc 是否升序
+     * @param offset 跳过的文件数
+     * @param limit 返回的最大文件数
+     * @return 符合条件的文件总数及当前页的文件 ID
+     */
+    public SearchHits search(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, FileSearchDTO search,
+                             SortField sort, boolean asc, long offset, int limit) {
+        if (!config.isEnabled()) {
+            throw new OssException("文件搜索未启用");
+        }
+        if (!ready) {
+            throw new OssException("搜索索引构建中, 请稍后重试");
+        }
+        SearchPartition partition = partitions.get(new Key(userId, storageType, visibility));
+        if (partition == null) {
+            return new SearchHits(0, List.of());
+        }
+        return partition.search(toFilter(search), sort, asc, offset, limit);
+    }
+
+    /**
+     * 事务提交后添加文件
+     *
+     * @param file 文件元数据
+     */
+    public void add(FileMetadataEntity file) {
+        addAll(List.of(file));
+    }
+
+    /**
+     * 事务提交后批量添加文件
+     *
+     * @param files 文件元数据
+     */
+    public void addAll(Collection<FileMetadataEntity> files) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                files.forEach(this::put);
+            }
+        });
+    }
+
+    /**
+     * 事务提交后删除文件
+     *
+     * @param file 文件元数据
+     */
+    public void remove(FileMetadataEntity file) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Key key = new Key(file.getUserId(), file.getStorageType(), file.getVisibility());
+        afterCommit(() -> evict(key, List.of(file.getId())));
+    }
+
+    /**
+     * 事务提交后删除文件夹及其子文件夹下的文件
+     *
+     * @param userId 用户 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param folderPath 文件夹路径
+     */
+    public void removeFolder(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, String folderPath) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Key key = new Key(userId, storageType, visibility);
+        afterCommit(() -> evictFolder(key, folderPath));
+    }
+
+    /**
+     * 事务提交后修改文件所在的文件夹
+     *
+     * @param file 移动前的文件元数据
+     * @param folderPath 目标文件夹路径
+     */
+    public void move(FileMetadataEntity file, String folderPath) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Key key = new Key(file.getUserId(), file.getStorageType(), file.getVisibility());
+        afterCommit(() -> {
+            synchronized (this) {
+                SearchPartition partition = partitions.get(key);
+                if (partition != null) {
+                    partition.move(file.getId(), folderPath, System.currentTimeMillis());
+                }
+            }
+        });
+    }
+
+    /**
+     * 立即删除索引中已不存在的文件, 用于剔除查询结果回表时发现的其他节点删除的文件
+     *
+     * @param userId 用户 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param ids 文件 ID
+     */
+    public void evict(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility, Collection<Long> ids) {
+        evict(new Key(userId, storageType, visibility), ids);
+    }
+
+    private synchronized void evictFolder(Key key, String folderPath) {
+        if (foldersRemovedDuringScan != null) {
+            foldersRemovedDuringScan.add(new RemovedFolder(key, folderPath));
+        }
+        SearchPartition partition = partitions.get(key);
+        if (partition != null) {
+            partition.removeFolder(folderPath);
+        }
+    }
+
+    /**
+     * 按失效日志同步其他节点的修改, 在失效日志的轮询线程中执行
+     * 本节点的修改同样会读到, 此时索引已在事务提交后更新, 重新加载的结果相同
+     *
+     * @param row 失效日志
+     */
+    private void apply(MetadataInvalidationEntity row) {
+        Key key = new Key(row.getUserId(), row.getStorageType(), row.getVisibility());
+        if (row.getScope() == Scope.FOLDER) {
+            evictFolder(key, row.getFolderPath());
+        } else if (row.getScope() == Scope.LISTING) {
+            try {
+                reloadFolder(key, row.getFolderPath());
+            } catch (Exception e) {
+                log.warn("[搜索索引] 重新加载文件夹失败: {}, 错误信息: {}", row.getFolderPath(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按数据库重新加载文件夹下(不含子文件夹)的文件, 删除索引中已不在该文件夹的文件
+     * 加载后本节点又提交了该文件夹的修改时, 该修改的失效日志会再次触发重新加载
+     *
+     * @param key 分区
+     * @param folderPath 文件夹路径
+     */
+    private void reloadFolder(Key key, String folderPath) {
+        List<FileMetadataEntity> rows = metadataMapper.listFileByFolderPath(folderPath, key.storageType(), key.visibility(),
+                key.userId());
+        Set<Long> ids = new HashSet<>(rows.size());
+        rows.forEach(row -> ids.add(row.getId()));
+        synchronized (this) {
+            SearchPartition partition = partitions.get(key);
+            if (partition != null) {
+                List<Long> removed = partition.retainFolder(folderPath, ids);
+                if (removedDuringScan != null) {
+                    removedDuringScan.addAll(removed);
+                }
+                if (rows.isEmpty() && partition.isEmpty()) {
+                    partitions.remove(key);
+                }
+            }
+            rows.forEach(this::put);
+        }
+    }
+
+    private synchronized void evict(Key key, Collection<Long> ids) {
+        if (removedDuringScan != null) {
+            removedDuringScan.addAll(ids);
+        }
+        SearchPartition partition = partitions.get(key);
+        if (partition != null) {
+            ids.forEach(partition::remove);
+            if (partition.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 按 ID 分批扫描全部文件元数据写入索引, 已在索引中的文件以扫描结果为准
+     */
+    private void scan() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            removedDuringScan = new HashSet<>();
+            foldersRemovedDuringScan = new ArrayList<>();
+        }
+        try {
+            long afterId = 0;
+            long count = 0;
+            List<FileMetadataEntity> rows;
+            do {
+                rows = metadataMapper.listFileAfterId(afterId, config.getScanBatchSize());
+                if (rows.isEmpty()) {
+                    break;
+                }
+                afterId = rows.get(rows.size() - 1).getId();
+                synchronized (this) {
+                    for (FileMetadataEntity row : rows) {
+                        if (!removedDuringScan.contains(row.getId()) && !isInRemovedFolder(row)) {
+                            put(row);
+                        }
+                    }
+                }
+                count += rows.size();
+            } while (rows.size() == config.getScanBatchSize());
+            ready = true;
+            log.info("[搜索索引] 扫描完成, 文件数: {}, 耗时: {} ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("[搜索索引] 扫描文件元数据失败, 错误信息: {}", e.getMessage());
+            // 未定时重新扫描时, 首次扫描失败需要重试, 否则索引一直不可用
+            if (!ready && config.getRescanIntervalMinutes() == 0) {
+                scanner.schedule(this::scan, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            synchronized (this) {
+                removedDuringScan = null;
+                foldersRemovedDuringScan = null;
+            }
+        }
+    }
+
+    private boolean isInRemovedFolder(FileMetadataEntity file) {
+        Key key = new Key(file.getUserId(), file.getStorageType(), file.getVisibility());
+        for (RemovedFolder folder : foldersRemovedDuringScan) {
+            if (folder.key().equals(key) && (file.getFolderPath().equals(folder.folderPath())
+                    || file.getFolderPath().startsWith(folder.folderPath() + "/"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(FileMetadataEntity file) {
+        Key key = new Key(file.getUserId(), file.getStorageType(), file.getVisibility());
+        partitions.computeIfAbsent(key, k -> new SearchPartition())
+                .put(file.getId(), lowerCase(file.getFileName()), lowerCase(file.getFileType()),
+                        file.getFileSizeBytes() == null ? -1 : file.getFileSizeBytes(),
+                        toMillis(file.getLastUpdateDate()), file.getFolderPath());
+    }
+
+    private static SearchFilter toFilter(FileSearchDTO search) {
+        String fileType = StringUtils.isBlank(search.getFileType()) ? null : lowerCase(search.getFileType().trim());
+        if (fileType != null && fileType.endsWith("/*")) {
+            fileType = fileType.substring(0, fileType.length() - 1);
+        }
+        return new SearchFilter(StringUtils.isEmpty(search.getKeyword()) ? null : lowerCase(search.getKeyword()), search.isPrefix(),
+                fileType, search.getMinSize(), search.getMaxSize(),
+                search.getUpdatedFrom() == null ? null : toMillis(search.getUpdatedFrom()),
+                search.getUpdatedTo() == null ? null : toMillis(search.getUpdatedTo()));
+    }
+
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 新写入的文件元数据没有最后更新时间, 由数据库取当前时间, 索引同样取当前时间
+     */
+    private static long toMillis(LocalDateTime date) {
+        return date == null ? System.currentTimeMillis() : date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Key(Long userId, StorageTypeEnum storageType, VisibilityEnum visibility) {
+    }
+
+    private record RemovedFolder(Key key, String folderPath) {
+    }
+}
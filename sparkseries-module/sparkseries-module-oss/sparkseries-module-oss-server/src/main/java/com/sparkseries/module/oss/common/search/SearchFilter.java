@@ -0,0 +1,16 @@
+package com.sparkseries.module.oss.common.search;
+
+/**
+ * 规范化后的搜索条件, 为 null 的条件不限制
+ *
+ * @param keyword 小写的文件名关键字
+ * @param prefix 是否只匹配文件名前缀
+ * @param fileType 小写的文件类型, 以 / 结尾时匹配该大类
+ * @param minSize 最小文件大小(字节)
+ * @param maxSize 最大文件大小(字节)
+ * @param updatedFrom 最后更新时间下限(毫秒)
+ * @param updatedTo 最后更新时间上限(毫秒)
+ */
+record SearchFilter(String keyword, boolean prefix, String fileType, Long minSize, Long maxSize, Long updatedFrom,
+                    Long updatedTo) {
+}
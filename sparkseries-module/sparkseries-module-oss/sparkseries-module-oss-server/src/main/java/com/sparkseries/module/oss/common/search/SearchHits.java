@@ -0,0 +1,12 @@
+package com.sparkseries.module.oss.common.search;
+
+import java.util.List;
+
+/**
+ * 搜索命中结果
+ *
+ * @param total 符合条件的文件总数
+ * @param ids 当前页的文件 ID, 按排序字段排列
+ */
+public record SearchHits(long total, List<Long> ids) {
+}
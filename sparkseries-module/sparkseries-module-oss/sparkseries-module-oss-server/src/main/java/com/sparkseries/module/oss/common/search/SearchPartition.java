@@ -0,0 +1,352 @@
+package com.sparkseries.module.oss.common.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 搜索索引分区, 保存同一用户在同一存储类型、能见度下的文件
+ * 文件按加入顺序分配槽位, 各字段按槽位存放在数组中; 文件名的每个三元组对应一个按槽位升序的倒排表
+ * 删除的文件只标记槽位, 删除的槽位过半时整体压缩
+ */
+class SearchPartition {
+
+    /**
+     * 触发压缩的最少删除槽位数
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private int size;
+
+    private long[] ids = new long[16];
+
+    /**
+     * 小写的文件名
+     */
+    private String[] names = new String[16];
+
+    /**
+     * 小写的文件类型
+     */
+    private String[] types = new String[16];
+
+    /**
+     * 文件大小(字节), 未知时为 -1
+     */
+    private long[] sizes = new long[16];
+
+    /**
+     * 最后更新时间(毫秒)
+     */
+    private long[] dates = new long[16];
+
+    private String[] paths = new String[16];
+
+    private final BitSet deleted = new BitSet();
+
+    private int deletedCount;
+
+    /**
+     * 文件 ID 到槽位的映射
+     */
+    private final Map<Long, Integer> slots = new HashMap<>();
+
+    /**
+     * 三元组到槽位的倒排表
+     */
+    private Map<Long, IntList> postings = new HashMap<>();
+
+    /**
+     * 文件类型及文件夹路径的字符串池, 同一文件夹下的文件共用一个路径
+     */
+    private Map<String, String> pool = new HashMap<>();
+
+    /**
+     * 添加或更新文件
+     *
+     * @param id 文件 ID
+     * @param name 小写的文件名
+     * @param type 小写的文件类型
+     * @param fileSize 文件大小(字节)
+     * @param date 最后更新时间(毫秒)
+     * @param path 文件夹路径
+     */
+    synchronized void put(long id, String name, String type, long fileSize, long date, String path) {
+        Integer slot = slots.get(id);
+        if (slot != null && names[slot].equals(name)) {
+            types[slot] = intern(type);
+            sizes[slot] = fileSize;
+            dates[slot] = date;
+            paths[slot] = intern(path);
+            return;
+        }
+        if (slot != null) {
+            delete(slot);
+        }
+        append(id, name, intern(type), fileSize, date, intern(path));
+    }
+
+    /**
+     * 删除文件
+     *
+     * @param id 文件 ID
+     */
+    synchronized void remove(long id) {
+        Integer slot = slots.remove(id);
+        if (slot != null) {
+            delete(slot);
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * 删除文件夹及其子文件夹下的文件
+     *
+     * @param folderPath 文件夹路径
+     */
+    synchronized void removeFolder(String folderPath) {
+        String prefix = folderPath + "/";
+        for (int slot = 0; slot < size; slot++) {
+            if (!deleted.get(slot) && (paths[slot].equals(folderPath) || paths[slot].startsWith(prefix))) {
+                slots.remove(ids[slot]);
+                delete(slot);
+            }
+        }
+        compactIfSparse();
+    }
+
+    /**
+     * 删除文件夹下(不含子文件夹)不在给定 ID 中的文件
+     *
+     * @param folderPath 文件夹路径
+     * @param retained 保留的文件 ID
+     * @return 删除的文件 ID
+     */
+    synchronized List<Long> retainFolder(String folderPath, Set<Long> retained) {
+        List<Long> removed = new ArrayList<>();
+        for (int slot = 0; slot < size; slot++) {
+            if (!deleted.get(slot) && paths[slot].equals(folderPath) && !retained.contains(ids[slot])) {
+                removed.add(ids[slot]);
+                slots.remove(ids[slot]);
+                delete(slot);
+            }
+        }
+        compactIfSparse();
+        return removed;
+    }
+
+    /**
+     * 修改文件所在的文件夹
+     *
+     * @param id 文件 ID
+     * @param folderPath 目标文件夹路径
+     * @param date 最后更新时间(毫秒)
+     */
+    synchronized void move(long id, String folderPath, long date) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            paths[slot] = intern(folderPath);
+            dates[slot] = date;
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * 查询符合条件的文件
+     * 关键字不少于三个字符时只校验最短倒排表中的槽位, 否则校验分区内全部槽位
+     *
+     * @param filter 搜索条件
+     * @param sort 排序字段
+     * @param asc 是否升序
+     * @param offset 跳过的文件数
+     * @param limit 返回的最大文件数
+     * @return 符合条件的文件总数及当前页的文件 ID
+     */
+    synchronized SearchHits search(SearchFilter filter, SortField sort, boolean asc, long offset, int limit) {
+        IntList candidates = null;
+        String keyword = filter.keyword();
+        if (keyword != null && keyword.length() >= 3) {
+            for (int i = 0; i + 3 <= keyword.length(); i++) {
+                IntList posting = postings.get(trigram(keyword, i));
+                if (posting == null) {
+                    return new SearchHits(0, List.of());
+                }
+                if (candidates == null || posting.size < candidates.size) {
+                    candidates = posting;
+                }
+            }
+        }
+
+        Comparator<Integer> order = comparator(sort, asc);
+        long top = offset + limit;
+        // 大顶堆保留排序后的前 offset + limit 个文件
+        PriorityQueue<Integer> heap = new PriorityQueue<>(order.reversed());
+        long total = 0;
+        int count = candidates == null ? size : candidates.size;
+        for (int i = 0; i < count; i++) {
+            int slot = candidates == null ? i : candidates.values[i];
+            if (deleted.get(slot) || !matches(slot, filter)) {
+                continue;
+            }
+            total++;
+            if (heap.size() < top) {
+                heap.add(slot);
+            } else if (order.compare(slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+
+        List<Long> page = new ArrayList<>(limit);
+        Integer[] ordered = heap.toArray(new Integer[0]);
+        Arrays.sort(ordered, order);
+        for (long i = offset; i < ordered.length; i++) {
+            page.add(ids[ordered[(int) i]]);
+        }
+        return new SearchHits(total, page);
+    }
+
+    private boolean matches(int slot, SearchFilter filter) {
+        String keyword = filter.keyword();
+        if (keyword != null && !(filter.prefix() ? names[slot].startsWith(keyword) : names[slot].contains(keyword))) {
+            return false;
+        }
+        if (filter.fileType() != null) {
+            if (types[slot] == null) {
+                return false;
+            }
+            boolean matched = filter.fileType().endsWith("/") ? types[slot].startsWith(filter.fileType())
+                    : types[slot].equals(filter.fileType());
+            if (!matched) {
+                return false;
+            }
+        }
+        if (filter.minSize() != null || filter.maxSize() != null) {
+            if (sizes[slot] < 0 || (filter.minSize() != null && sizes[slot] < filter.minSize())
+                    || (filter.maxSize() != null && sizes[slot] > filter.maxSize())) {
+                return false;
+            }
+        }
+        return (filter.updatedFrom() == null || dates[slot] >= filter.updatedFrom())
+                && (filter.updatedTo() == null || dates[slot] <= filter.updatedTo());
+    }
+
+    private Comparator<Integer> comparator(SortField sort, boolean asc) {
+        Comparator<Integer> order = switch (sort) {
+            case NAME -> Comparator.comparing(slot -> names[slot]);
+            case SIZE -> Comparator.comparingLong(slot -> sizes[slot]);
+            case DATE -> Comparator.comparingLong(slot -> dates[slot]);
+        };
+        if (!asc) {
+            order = order.reversed();
+        }
+        return order.thenComparingLong(slot -> ids[slot]);
+    }
+
+    private void append(long id, String name, String type, long fileSize, long date, String path) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        names[slot] = name;
+        types[slot] = type;
+        sizes[slot] = fileSize;
+        dates[slot] = date;
+        paths[slot] = path;
+        slots.put(id, slot);
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            IntList posting = postings.computeIfAbsent(trigram(name, i), key -> new IntList());
+            // 同一文件名中重复的三元组只记录一次, 槽位递增, 只需比较最后一个
+            if (posting.size == 0 || posting.values[posting.size - 1] != slot) {
+                posting.add(slot);
+            }
+        }
+    }
+
+    private void delete(int slot) {
+        deleted.set(slot);
+        deletedCount++;
+        names[slot] = "";
+        types[slot] = null;
+        paths[slot] = null;
+    }
+
+    /**
+     * 删除的槽位过半时按存活的文件重建数组及倒排表
+     */
+    private void compactIfSparse() {
+        if (deletedCount < COMPACT_THRESHOLD || deletedCount * 2 < size) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[] oldNames = names;
+        String[] oldTypes = types;
+        long[] oldSizes = sizes;
+        long[] oldDates = dates;
+        String[] oldPaths = paths;
+        int oldSize = size;
+
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, oldSize - deletedCount)) * 2);
+        ids = new long[capacity];
+        names = new String[capacity];
+        types = new String[capacity];
+        sizes = new long[capacity];
+        dates = new long[capacity];
+        paths = new String[capacity];
+        size = 0;
+        slots.clear();
+        postings = new HashMap<>();
+        pool = new HashMap<>();
+        for (int slot = 0; slot < oldSize; slot++) {
+            if (!deleted.get(slot)) {
+                append(oldIds[slot], oldNames[slot], intern(oldTypes[slot]), oldSizes[slot], oldDates[slot], intern(oldPaths[slot]));
+            }
+        }
+        deleted.clear();
+        deletedCount = 0;
+    }
+
+    private String intern(String value) {
+        return value == null ? null : pool.computeIfAbsent(value, key -> key);
+    }
+
+    /**
+     * 将三个字符拼接为三元组键
+     */
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * 可增长的 int 数组, 避免倒排表装箱
+     */
+    private static class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sparkseries.module.oss.common.search;
+
+import com.sparkseries.module.oss.common.exception.OssException;
+
+/**
+ * 搜索结果的排序字段
+ */
+public enum SortField {
+
+    /**
+     * 文件名, 不区分大小写
+     */
+    NAME("fileName"),
+
+    /**
+     * 文件大小
+     */
+    SIZE("fileSize"),
+
+    /**
+     * 最后更新时间
+     */
+    DATE("lastUpdateDate");
+
+    private final String field;
+
+    SortField(String field) {
+        this.field = field;
+    }
+
+    /**
+     * 根据查询参数中的排序字段获取排序方式
+     *
+     * @param field 排序字段, 为空时按最后更新时间排序
+     * @return 排序字段
+     */
+    public static SortField of(String field) {
+        if (field == null || field.isBlank()) {
+            return DATE;
+        }
+        for (SortField sort : values()) {
+            if (sort.field.equals(field)) {
+                return sort;
+            }
+        }
+        throw new OssException("不支持的排序字段: " + field);
+    }
+}
@@ -5,9 +5,13 @@ import com.sparkseries.module.oss.common.exception.OssException;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static com.sparkeries.constant.Constants.CONTENT_STORAGE_PATH;
+import static com.sparkeries.constant.Constants.MULTIPART_STAGING_PATH;
+
 /**
  * 文件名和路径校验工具类
  */
@@ -29,6 +33,11 @@ public class FileUtil {
      */
     private static final Pattern ILLEGAL_CHARS_PATTERN = Pattern.compile("[<>:\"|?*\\\\]");
 
+    /**
+     * 系统保留的顶级目录, 用户文件不能存放在其中
+     */
+    private static final List<String> RESERVED_FOLDERS = List.of(CONTENT_STORAGE_PATH, MULTIPART_STAGING_PATH);
+
     /**
      * 校验文件名合法性，包括长度、非法字符和连续点号
      *
@@ -162,6 +171,11 @@ public class FileUtil {
             log.warn("路径包含非法字符");
             throw new OssException("路径包含非法字符");
         }
+
+        if (RESERVED_FOLDERS.contains(path.split("/")[0])) {
+            log.warn("路径使用了系统保留目录: {}", path);
+            throw new OssException("路径不能使用系统保留目录");
+        }
     }
 
     /**
@@ -0,0 +1,123 @@
+package com.sparkseries.module.oss.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片缩略图工具类
+ * 原图只解码一次, 解码时按目标尺寸降采样; 缩略图重新编码为 JPEG, 不携带原图的 EXIF 等元数据
+ */
+@Slf4j
+public class ImageDerivativeUtil {
+
+    /**
+     * 允许解码的最大像素数, 防止小体积的超大尺寸图片耗尽内存
+     */
+    private static final long MAX_PIXELS = 64L * 1024 * 1024;
+
+    private ImageDerivativeUtil() {
+    }
+
+    /**
+     * 解码图片, 降采样后的短边不小于目标边长的两倍, 保证缩放质量
+     *
+     * @param data 图片数据
+     * @param maxSize 最大的缩略图边长
+     * @return 解码后的图片, 格式不受支持或尺寸超限时为 null
+     * @throws IOException 图片数据损坏
+     */
+    public static BufferedImage decode(byte[] data, int maxSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    log.warn("图片尺寸过大, 不生成缩略图: {}x{}", width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.min(width, height) / (maxSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 生成正方形 JPEG 缩略图, 居中裁剪, 透明区域填充白色
+     *
+     * @param source 原图
+     * @param size 缩略图边长
+     * @param quality JPEG 压缩质量
+     * @return JPEG 数据
+     * @throws IOException 编码失败
+     */
+    public static byte[] toJpeg(BufferedImage source, int size, float quality) throws IOException {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        BufferedImage current = source.getSubimage((source.getWidth() - side) / 2, (source.getHeight() - side) / 2, side, side);
+        // 逐级减半缩小, 避免一次大比例缩放产生锯齿
+        while (current.getWidth() / 2 >= size) {
+            current = scale(current, current.getWidth() / 2);
+        }
+        current = scale(current, Math.min(size, current.getWidth()));
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(current, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 缩放为指定边长的 RGB 图片
+     *
+     * @param source 原图
+     * @param size 目标边长
+     * @return 缩放后的图片
+     */
+    private static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage target = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, size, size);
+            graphics.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,204 @@
+package com.sparkseries.module.oss.common.util;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * 上传检查输入流
+ * 包装上传流, 在数据流向存储服务的同时统计字节数、计算 CRC32C 与 SHA-256, 并保留文件头部用于类型检测,
+ * 上传完成后即可获得检查结果, 无需再次读取文件
+ */
+public class InspectingInputStream extends FilterInputStream {
+
+    /**
+     * 保留的文件头部大小 64KB, 覆盖 Tika 类型检测所需的最大长度
+     */
+    public static final int PREFIX_SIZE = 64 * 1024;
+
+    /**
+     * 检查本地文件时的读取缓冲区大小 1MB
+     */
+    private static final int INSPECT_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 每个线程复用的直接缓冲区, 直接内存分配代价高且回收依赖 GC, 不随每次检查分配
+     */
+    private static final ThreadLocal<ByteBuffer> INSPECT_BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(INSPECT_BUFFER_SIZE));
+
+    private final byte[] prefix;
+
+    private int prefixLength;
+
+    private final CRC32C crc32c = new CRC32C();
+
+    private final MessageDigest sha256;
+
+    private long bytesRead;
+
+    private String sha256Hex;
+
+    public InspectingInputStream(InputStream in) {
+        this(in, PREFIX_SIZE);
+    }
+
+    public InspectingInputStream(InputStream in, int prefixSize) {
+        super(in);
+        this.prefix = new byte[prefixSize];
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前环境不支持 SHA-256", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            if (prefixLength < prefix.length) {
+                prefix[prefixLength++] = (byte) b;
+            }
+            crc32c.update(b);
+            sha256.update((byte) b);
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            update(b, off, n);
+        }
+        return n;
+    }
+
+    /**
+     * 跳过的数据同样需要参与校验, 因此以读取代替跳过
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    /**
+     * 重复读取会使校验结果失真, 不支持 mark/reset
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * 检查本地文件, 使用当前线程的直接缓冲区顺序读取一次, 适用于数据已落盘、无需经过输入流上传的场景
+     *
+     * @param path 文件路径
+     * @return 已读取完毕的检查结果
+     * @throws IOException 读取失败
+     */
+    public static InspectingInputStream inspect(Path path) throws IOException {
+        InspectingInputStream inspector = new InspectingInputStream(InputStream.nullInputStream());
+        ByteBuffer buffer = INSPECT_BUFFERS.get().clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                inspector.update(buffer);
+                buffer.clear();
+            }
+        }
+        return inspector;
+    }
+
+    /**
+     * 获取已读取的字节数
+     *
+     * @return 字节数
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * 获取已读取数据的 CRC32C
+     *
+     * @return 8 位小写十六进制
+     */
+    public String getCrc32c() {
+        return String.format("%08x", crc32c.getValue());
+    }
+
+    /**
+     * 获取已读取数据的 SHA-256, 调用后不应再读取
+     *
+     * @return 64 位小写十六进制
+     */
+    public String getSha256() {
+        if (sha256Hex == null) {
+            sha256Hex = Hex.encodeHexString(sha256.digest());
+        }
+        return sha256Hex;
+    }
+
+    /**
+     * 获取文件头部
+     *
+     * @return 文件头部字节
+     */
+    public byte[] getPrefix() {
+        return Arrays.copyOf(prefix, prefixLength);
+    }
+
+    private void update(ByteBuffer buffer) {
+        int len = buffer.remaining();
+        if (prefixLength < prefix.length) {
+            int copy = Math.min(len, prefix.length - prefixLength);
+            buffer.duplicate().get(prefix, prefixLength, copy);
+            prefixLength += copy;
+        }
+        crc32c.update(buffer.duplicate());
+        sha256.update(buffer);
+        bytesRead += len;
+    }
+
+    private void update(byte[] b, int off, int len) {
+        if (prefixLength < prefix.length) {
+            int copy = Math.min(len, prefix.length - prefixLength);
+            System.arraycopy(b, off, prefix, prefixLength, copy);
+            prefixLength += copy;
+        }
+        crc32c.update(b, off, len);
+        sha256.update(b, off, len);
+        bytesRead += len;
+    }
+}
@@ -0,0 +1,134 @@
+package com.sparkseries.module.oss.common.util;
+
+import org.apache.tika.Tika;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件类型检测工具类
+ * 全局共用一个 Tika 实例(线程安全), 避免每次请求重新加载类型库
+ */
+public class MimeTypeUtil {
+
+    private static final Tika TIKA = new Tika();
+
+    /**
+     * 类型检测读取的文件头部大小 8KB
+     */
+    public static final int SNIFF_SIZE = 8 * 1024;
+
+    /**
+     * 按扩展名缓存的本地文件类型数量上限
+     */
+    private static final int CONTENT_TYPE_CACHE_SIZE = 1024;
+
+    /**
+     * 无法识别类型时使用的默认类型
+     */
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * 本地文件类型缓存, 系统的类型探测按扩展名判断, 同一扩展名只探测一次
+     */
+    private static final Map<String, String> CONTENT_TYPE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 自身已压缩、再次压缩几乎没有收益的文件类型
+     */
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-rar-compressed", "application/vnd.rar", "application/x-bzip2", "application/x-xz",
+            "application/zstd", "application/x-lz4", "application/java-archive", "application/vnd.android.package-archive",
+            "application/pdf", "application/x-compress"
+    );
+
+    /**
+     * 根据文件头部及文件名检测文件类型
+     *
+     * @param prefix 文件头部字节
+     * @param fileName 文件名
+     * @return 文件类型
+     */
+    public static String detect(byte[] prefix, String fileName) {
+        return TIKA.detect(prefix, fileName);
+    }
+
+    /**
+     * 根据输入流检测文件类型, 只读取流的头部, 调用方负责关闭流
+     *
+     * @param inputStream 输入流
+     * @param fileName 文件名
+     * @return 文件类型
+     * @throws IOException 读取失败
+     */
+    public static String detect(InputStream inputStream, String fileName) throws IOException {
+        return TIKA.detect(inputStream, fileName);
+    }
+
+    /**
+     * 探测本地文件的类型, 结果按扩展名缓存
+     *
+     * @param path 文件路径
+     * @return 文件类型, 无法识别时为 application/octet-stream
+     * @throws IOException 探测失败
+     */
+    public static String probeContentType(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        int index = fileName.lastIndexOf('.');
+        if (index < 0) {
+            return probe(path);
+        }
+        String extension = fileName.substring(index + 1).toLowerCase();
+        String contentType = CONTENT_TYPE_CACHE.get(extension);
+        if (contentType == null) {
+            contentType = probe(path);
+            if (CONTENT_TYPE_CACHE.size() < CONTENT_TYPE_CACHE_SIZE) {
+                CONTENT_TYPE_CACHE.putIfAbsent(extension, contentType);
+            }
+        }
+        return contentType;
+    }
+
+    private static String probe(Path path) throws IOException {
+        String contentType = Files.probeContentType(path);
+        return contentType == null ? DEFAULT_CONTENT_TYPE : contentType;
+    }
+
+    /**
+     * 判断该类型的文件是否值得压缩, 图片、音视频、压缩包及基于 zip 的文档格式不压缩
+     *
+     * @param mimeType 文件类型
+     * @return 是否值得压缩
+     */
+    public static boolean isCompressible(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        String type = mimeType.toLowerCase();
+        if ("image/svg+xml".equals(type) || "image/bmp".equals(type)) {
+            return true;
+        }
+        if (type.startsWith("image/") || type.startsWith("video/") || type.startsWith("audio/")) {
+            return false;
+        }
+        return !COMPRESSED_TYPES.contains(type)
+                && !type.startsWith("application/vnd.openxmlformats-officedocument.")
+                && !type.startsWith("application/vnd.oasis.opendocument.");
+    }
+
+    /**
+     * 根据文件名检测文件类型
+     *
+     * @param fileName 文件名
+     * @return 文件类型
+     */
+    public static String detect(String fileName) {
+        return TIKA.detect(fileName);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sparkseries.module.oss.common.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 分片缓冲区池
+ * 单次分片上传内循环复用的定长缓冲区, 所有缓冲区都被占用时读取线程阻塞等待, 峰值内存为 缓冲区数 × 分片大小
+ */
+@Slf4j
+public class PartBufferPool {
+
+    private final BlockingQueue<byte[]> freeBuffers;
+
+    private final int capacity;
+
+    private final int bufferSize;
+
+    private int allocated;
+
+    public PartBufferPool(int capacity, int bufferSize) {
+        if (capacity < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("缓冲区数量和大小必须大于0");
+        }
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+        this.freeBuffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 获取空闲缓冲区
+     * 未达到容量上限时按需分配, 否则阻塞直到有缓冲区被归还
+     *
+     * @return 缓冲区
+     * @throws InterruptedException 等待缓冲区时被中断
+     */
+    public byte[] acquire() throws InterruptedException {
+        byte[] buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (this) {
+            if (allocated < capacity) {
+                allocated++;
+                log.debug("分配分片缓冲区 {}/{}, 大小: {} bytes", allocated, capacity, bufferSize);
+                return new byte[bufferSize];
+            }
+        }
+        return freeBuffers.take();
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 缓冲区
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            freeBuffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 获取缓冲区大小
+     *
+     * @return 缓冲区大小
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,324 @@
+package com.sparkseries.module.oss.common.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地文件分段响应工具类
+ * 支持 Range/If-Range 请求, 单个区间返回 206, 多个区间返回 multipart/byteranges
+ * 支持 If-None-Match/If-Modified-Since 条件请求, 未修改时返回 304 且不打开文件
+ * 完整文件及单个区间在 Tomcat 连接器支持 sendfile 时由容器以 sendfile 零拷贝发送, 请求处理线程不读取文件;
+ * 多个区间、较小的文件或容器不支持时, 通过 FileChannel.transferTo 写出到响应输出流,
+ * 输出流不是文件描述符通道, JDK 会经由临时缓冲区分块复制, 不是零拷贝
+ */
+@Slf4j
+public class RangeResponseUtil {
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    /**
+     * Tomcat 连接器支持 sendfile 时为 Boolean.TRUE 的请求属性
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * 结束位置(不含)
+     */
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 使用 sendfile 的最小长度 48KB, 与 Tomcat DefaultServlet 的默认值一致, 更小的内容直接写出更快
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private RangeResponseUtil() {
+    }
+
+    /**
+     * 构建本地文件响应
+     *
+     * @param request 当前请求, 为空时返回完整文件
+     * @param headers 响应头(需已包含 Content-Type)
+     * @param file 文件路径
+     * @return 完整文件(200)、部分内容(206)、未修改(304)或区间无效(416)的响应
+     * @throws IOException 读取文件属性失败
+     */
+    public static ResponseEntity<?> build(HttpServletRequest request, HttpHeaders headers, Path file) throws IOException {
+        return build(request, headers, file, Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    /**
+     * 构建本地文件响应
+     *
+     * @param request 当前请求, 为空时返回完整文件
+     * @param headers 响应头(需已包含 Content-Type, 未设置 ETag 时根据文件属性生成)
+     * @param file 文件路径
+     * @param attributes 文件属性
+     * @return 完整文件(200)、部分内容(206)、未修改(304)或区间无效(416)的响应
+     */
+    public static ResponseEntity<?> build(HttpServletRequest request, HttpHeaders headers, Path file, BasicFileAttributes attributes) {
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (headers.getETag() == null) {
+            headers.setETag(etag(attributes));
+        }
+        headers.setLastModified(lastModified);
+        if (isNotModified(request, headers.getETag(), lastModified)) {
+            return notModified(headers);
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String rangeHeader = request == null ? null : request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !isIfRangeSatisfied(request, headers, lastModified)) {
+            headers.setContentLength(length);
+            return single(request, headers, file, new long[]{0, length - 1}, HttpStatus.OK);
+        }
+
+        List<long[]> ranges = resolveRanges(rangeHeader, length);
+        if (ranges.isEmpty()) {
+            log.debug("请求区间无效: {}, 文件大小: {}", rangeHeader, length);
+            HttpHeaders unsatisfiable = new HttpHeaders();
+            unsatisfiable.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return new ResponseEntity<>(unsatisfiable, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            headers.set(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            headers.setContentLength(range[1] - range[0] + 1);
+            return single(request, headers, file, range, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        String contentType = String.valueOf(headers.getContentType());
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (range[1] - range[0] + 1) + CRLF.length;
+        }
+        byte[] closing = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        contentLength += closing.length;
+
+        headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        headers.setContentLength(contentLength);
+        return new ResponseEntity<StreamingResponseBody>(outputStream -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                for (int i = 0; i < ranges.size(); i++) {
+                    outputStream.write(partHeaders.get(i));
+                    outputStream.flush();
+                    transferRange(channel, ranges.get(i), target);
+                    outputStream.write(CRLF);
+                }
+                outputStream.write(closing);
+            }
+        }, headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * 根据文件大小及最后修改时间生成强 ETag, 文件被替换后随之变化
+     *
+     * @param attributes 文件属性
+     * @return 带引号的 ETag
+     */
+    public static String etag(BasicFileAttributes attributes) {
+        return "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+    }
+
+    /**
+     * 判断客户端缓存是否仍然有效
+     * 存在 If-None-Match 时只比较 ETag, 否则比较 If-Modified-Since
+     *
+     * @param request 当前请求
+     * @param etag 当前 ETag
+     * @param lastModified 文件最后修改时间
+     * @return 客户端缓存有效时为 true
+     */
+    public static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        if (request == null || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String current = stripWeak(etag);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if ("*".equals(value) || stripWeak(value).equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 构建 304 响应, 只保留缓存相关的响应头
+     *
+     * @param headers 响应头
+     * @return 304 响应
+     */
+    public static <T> ResponseEntity<T> notModified(HttpHeaders headers) {
+        HttpHeaders notModified = new HttpHeaders();
+        for (String name : List.of(HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.VARY)) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                notModified.put(name, values);
+            }
+        }
+        return new ResponseEntity<>(notModified, HttpStatus.NOT_MODIFIED);
+    }
+
+    private static String stripWeak(String etag) {
+        return etag != null && etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    /**
+     * 判断 If-Range 条件是否成立, 不成立时应返回完整文件
+     *
+     * @param request 当前请求
+     * @param headers 响应头
+     * @param lastModified 文件最后修改时间
+     * @return If-Range 不存在或与当前文件匹配时为 true
+     */
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, HttpHeaders headers, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        // 实体标签须强匹配
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return !ifRange.startsWith("W/") && ifRange.equals(headers.getETag());
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析请求区间, 丢弃无法满足的区间
+     *
+     * @param rangeHeader Range 请求头
+     * @param length 文件大小
+     * @return 区间列表(闭区间), 无有效区间时为空
+     */
+    private static List<long[]> resolveRanges(String rangeHeader, long length) {
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+        List<long[]> ranges = new ArrayList<>(httpRanges.size());
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            long start = httpRange.getRangeStart(length);
+            long end = httpRange.getRangeEnd(length);
+            if (start >= length || start > end) {
+                continue;
+            }
+            ranges.add(new long[]{start, end});
+            total += end - start + 1;
+        }
+        // 与 Spring 的处理一致, 区间总长超过文件大小时视为无效请求, 避免重叠区间放大响应
+        if (total > length && ranges.size() > 1) {
+            return List.of();
+        }
+        return ranges;
+    }
+
+    /**
+     * 构建单个区间的响应
+     * 容器支持 sendfile 时只设置请求属性并返回无响应体的实体, 由 Tomcat 在请求处理结束后发送文件;
+     * 必须同步返回, 异步写出的响应不会经过 Tomcat 的 sendfile 处理
+     *
+     * @param request 当前请求
+     * @param headers 响应头(需已包含 Content-Length)
+     * @param file 文件路径
+     * @param range 区间(闭区间)
+     * @param status 响应状态
+     * @return 文件响应
+     */
+    private static ResponseEntity<?> single(HttpServletRequest request, HttpHeaders headers, Path file, long[] range,
+                                            HttpStatus status) {
+        if (request != null && "GET".equals(request.getMethod()) && range[1] - range[0] + 1 >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, range[0]);
+            request.setAttribute(SENDFILE_END_ATTR, range[1] + 1);
+            return new ResponseEntity<>(headers, status);
+        }
+        StreamingResponseBody body = outputStream -> transfer(file, List.of(range), outputStream);
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    private static String contentRange(long[] range, long length) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + length;
+    }
+
+    /**
+     * 将文件的指定区间写出到输出流, 经由 JDK 的临时缓冲区分块复制
+     *
+     * @param file 文件路径
+     * @param ranges 区间列表
+     * @param outputStream 输出流
+     * @throws IOException 读写失败
+     */
+    private static void transfer(Path file, List<long[]> ranges, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            for (long[] range : ranges) {
+                transferRange(channel, range, target);
+            }
+        }
+    }
+
+    private static void transferRange(FileChannel channel, long[] range, WritableByteChannel target) throws IOException {
+        long position = range[0];
+        long remaining = range[1] - range[0] + 1;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                throw new IOException("文件在传输过程中被截断");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
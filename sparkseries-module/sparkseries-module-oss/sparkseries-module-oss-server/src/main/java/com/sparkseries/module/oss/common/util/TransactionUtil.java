@@ -0,0 +1,49 @@
+package com.sparkseries.module.oss.common.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具类
+ * 将操作推迟到当前事务结束后执行, 没有事务时立即执行
+ */
+public class TransactionUtil {
+
+    private TransactionUtil() {
+    }
+
+    /**
+     * 有事务时在提交后执行, 回滚时不执行; 否则立即执行
+     *
+     * @param action 待执行的操作
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 有事务时在事务结束(提交或回滚)后执行; 否则不执行
+     * 用于在事务中已执行过一次的失效操作, 防止提交前被其他请求重新加载旧数据
+     *
+     * @param action 待执行的操作
+     */
+    public static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -4,27 +4,35 @@ import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.core.toolkit.ObjectUtils;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.common.security.util.CurrentUser;
+import com.sparkseries.common.util.entity.Query;
 import com.sparkseries.common.util.entity.Result;
 import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.common.util.MimeTypeUtil;
+import com.sparkseries.module.oss.file.dto.FileSearchDTO;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
 import com.sparkseries.module.oss.file.service.FileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
+import jakarta.validation.constraints.Pattern;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.sparkeries.constant.Constants.FOLDER_LIST_PAGE_SIZE;
+import static com.sparkeries.constant.Constants.SEARCH_PAGE_SIZE;
+
 /**
  * 文件管理
  */
@@ -44,40 +52,60 @@ public class FileController {
      * @param files 待上传的文件列表
      * @param folderPath 文件的存储文件夹路径
      * @param visibility 能见度
+     * @param parallelism 并发上传的文件数
      * @return 上传结果
      */
     @PostMapping("file")
     @Operation(summary = "文件上传")
     public Result<?> uploadFile(@RequestParam("files") @NotEmpty(message = "上传文件不能为空") List<MultipartFile> files,
                                 @RequestParam("folderPath") String folderPath,
-                                @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility) {
+                                @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                @RequestParam(defaultValue = "1") @Min(value = 1, message = "并发数不能小于1") int parallelism) {
         if (ObjectUtils.isEmpty(folderPath)) {
             throw new OssException("请输入文件夹路径");
         }
         Long userId = CurrentUser.getId();
         List<MultipartFileDTO> fileInfos = new ArrayList<>();
-        Tika tika = new Tika();
         for (MultipartFile file : files) {
-            try {
-                long id = IdWorker.getId();
-                String filename = file.getOriginalFilename();
-                long size = file.getSize();
-                String type = tika.detect(file.getInputStream());
-                fileInfos.add(MultipartFileDTO.builder()
-                        .id(id)
-                        .userId(userId)
-                        .fileName(filename)
-                        .inputStream(file.getInputStream())
-                        .size(size)
-                        .type(type)
-                        .build()
-                );
-            } catch (IOException e) {
-                log.warn("文件上传失败", e);
-                throw new OssException("文件上传失败", e);
-            }
+            long id = IdWorker.getId();
+            String filename = file.getOriginalFilename();
+            long size = file.getSize();
+            // 输入流由上传时按需打开, 本地存储直接转移临时文件, 不打开输入流
+            fileInfos.add(MultipartFileDTO.builder()
+                    .id(id)
+                    .userId(userId)
+                    .fileName(filename)
+                    .source(file)
+                    .size(size)
+                    .build()
+            );
         }
-        return fileServer.uploadFiles(fileInfos, folderPath, visibility);
+        return fileServer.uploadFiles(fileInfos, folderPath, visibility, parallelism);
+    }
+
+    /**
+     * 秒传, 客户端上传前提交文件内容的 SHA-256, 未命中时再正常上传
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件的存储文件夹路径
+     * @param visibility 能见度
+     * @param hash 文件内容 SHA-256(小写十六进制)
+     * @param size 文件大小(字节)
+     * @param type 文件类型, 为空时根据文件名推断
+     * @return 秒传结果
+     */
+    @PostMapping("file/instant")
+    @Operation(summary = "秒传")
+    public Result<?> instantUpload(@RequestParam("fileName") @NotBlank(message = "文件名不能为空") String fileName,
+                                   @RequestParam("folderPath") @NotBlank(message = "文件夹路径不能为空") String folderPath,
+                                   @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                   @RequestParam("hash") @Pattern(regexp = "^[0-9a-f]{64}$", message = "文件哈希格式不正确") String hash,
+                                   @RequestParam("size") @NotNull(message = "文件大小不能为空") @Min(value = 1, message = "文件大小必须大于0") Long size,
+                                   @RequestParam(value = "type", required = false) String type) {
+        if (StringUtils.isBlank(type)) {
+            type = MimeTypeUtil.detect(fileName);
+        }
+        return fileServer.instantUpload(fileName, folderPath, visibility, hash, size, type);
     }
 
     /**
@@ -179,6 +207,22 @@ public class FileController {
     }
 
 
+    /**
+     * 打包下载文件夹
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @return ZIP 流式响应
+     */
+    @GetMapping("folder/archive")
+    @Operation(summary = "打包下载文件夹")
+    public ResponseEntity<StreamingResponseBody> downloadFolder(@RequestParam("folderName") @NotBlank(message = "文件夹名不能为空") String folderName,
+                                                                @RequestParam("folderPath") @NotBlank(message = "文件路径不能为空") String folderPath,
+                                                                @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility) {
+        return fileServer.downloadFolder(folderName, folderPath, visibility);
+    }
+
     /**
      * 获取指定文件夹下的文件及文件夹
      *
@@ -196,6 +240,45 @@ public class FileController {
         return fileServer.listFileAndFolder(folderName, folderPath, visibility);
     }
 
+    /**
+     * 分页获取指定文件夹下的文件及文件夹
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @param query 分页参数, 只使用每页大小
+     * @param cursor 上一页返回的游标, 第一页为空
+     * @return 文件及文件夹条目分页
+     */
+    @GetMapping("list/page")
+    @Operation(summary = "分页获取指定文件夹下的文件及文件夹")
+    public Result<?> listFolderEntries(@RequestParam("folderName") @NotBlank(message = "文件夹名不能为空") String folderName,
+                                       @RequestParam("folderPath") @NotBlank(message = "文件路径不能为空") String folderPath,
+                                       @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                       @Validated Query query,
+                                       @RequestParam(required = false) String cursor) {
+        int size = query.getSize() == null ? FOLDER_LIST_PAGE_SIZE : query.getSize();
+        return fileServer.listFolderEntries(folderName, folderPath, visibility, size, cursor);
+    }
+
+    /**
+     * 搜索文件
+     *
+     * @param visibility 能见度
+     * @param search 搜索条件
+     * @param query 分页及排序参数, 排序字段可选 fileName、fileSize、lastUpdateDate
+     * @return 文件搜索结果分页
+     */
+    @GetMapping("file/search")
+    @Operation(summary = "搜索文件")
+    public Result<?> searchFiles(@RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                 @Validated FileSearchDTO search,
+                                 @Validated Query query) {
+        int current = query.getCurrent() == null ? 1 : query.getCurrent();
+        int size = query.getSize() == null ? SEARCH_PAGE_SIZE : query.getSize();
+        return fileServer.searchFiles(visibility, search, current, size, query.getSortField(), query.isAsc());
+    }
+
 
     /**
      * 预览本地文件
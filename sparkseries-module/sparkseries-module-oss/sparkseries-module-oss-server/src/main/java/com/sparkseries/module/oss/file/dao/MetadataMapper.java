@@ -3,12 +3,18 @@ package com.sparkseries.module.oss.file.dao;
 
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.file.entity.FileContentEntity;
 import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
 import com.sparkseries.module.oss.file.entity.FolderMetadataEntity;
+import com.sparkseries.module.oss.file.entity.MetadataInvalidationEntity;
 import com.sparkseries.module.oss.file.vo.FileInfoVO;
+import com.sparkseries.module.oss.file.vo.FileSearchVO;
+import com.sparkseries.module.oss.file.vo.FolderEntryVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,6 +33,14 @@ public interface MetadataMapper {
      */
     Integer insertFile(@Param("file") FileMetadataEntity file);
 
+    /**
+     * 批量添加文件元数据
+     *
+     * @param files 文件元数据
+     * @return 添加的文件元数据数量
+     */
+    Integer insertFiles(@Param("files") List<FileMetadataEntity> files);
+
 
     /**
      * 根据 ID 删除文件元数据
@@ -41,26 +55,24 @@ public interface MetadataMapper {
 
 
     /**
-     * 删除指定文件夹下的文件列表
+     * 删除指定文件夹及其子文件夹下的文件
      *
-     * @param folderPath 文件夹路径
-     * @param storageType 存储类型
-     * @param visibility 能见度
+     * @param folderId 文件夹 ID
      * @return 删除的文件元数据行数
      */
-    Integer deleteFileByFolderPath(@Param("folderPath") String folderPath, @Param("storageType") StorageTypeEnum storageType,
-                                   @Param("visibility") VisibilityEnum visibility);
+    Integer deleteFileBySubtree(@Param("folderId") Long folderId);
 
     /**
      * 修改文件存储路径
      *
      * @param id 文件 ID
      * @param folderPath 文件路径
+     * @param folderId 文件夹 ID
      * @param storageType 存储类型
      * @param visibility 能见度
      * @return 更新的文件元数据数量
      */
-    Integer updateFileFolderPath(@Param("id") Long id, @Param("folderPath") String folderPath,
+    Integer updateFileFolderPath(@Param("id") Long id, @Param("folderPath") String folderPath, @Param("folderId") Long folderId,
                                  @Param("storageType") StorageTypeEnum storageType, @Param("visibility") VisibilityEnum visibility);
 
     /**
@@ -75,6 +87,18 @@ public interface MetadataMapper {
     Integer isExistFileByFileName(@Param("fileName") String fileName, @Param("folderPath") String folderPath,
                                   @Param("storageType") StorageTypeEnum storageType, @Param("visibility") VisibilityEnum visibility);
 
+    /**
+     * 批量查询文件夹下已存在的文件名
+     *
+     * @param fileNames 文件名
+     * @param folderPath 文件路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @return 已存在的文件名
+     */
+    List<String> listExistFileNames(@Param("fileNames") Collection<String> fileNames, @Param("folderPath") String folderPath,
+                                    @Param("storageType") StorageTypeEnum storageType, @Param("visibility") VisibilityEnum visibility);
+
 
     /**
      * 根据文件 ID 查询文件
@@ -100,16 +124,156 @@ public interface MetadataMapper {
 
 
     /**
-     * 查询指定文件夹路径下的文件列表
+     * 查询指定文件夹下的文件列表
      *
-     * @param folderPath 文件路径
+     * @param folderId 文件夹 ID
+     * @return 文件元数据列表
+     */
+    List<FileInfoVO> listFileByFolderId(@Param("folderId") Long folderId);
+
+    /**
+     * 按 (文件名, ID) 分页查询指定文件夹下的文件
+     *
+     * @param folderId 文件夹 ID
+     * @param afterName 上一页最后一个文件的文件名, 第一页为 null
+     * @param afterId 上一页最后一个文件的 ID
+     * @param limit 每页数量
+     * @return 文件条目列表
+     */
+    List<FolderEntryVO> listFileEntries(@Param("folderId") Long folderId, @Param("afterName") String afterName,
+                                        @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 查询指定文件夹下的文件数量
+     *
+     * @param folderId 文件夹 ID
+     * @return 文件数量
+     */
+    long countFileByFolderId(@Param("folderId") Long folderId);
+
+    /**
+     * 查询指定文件夹及其子文件夹下引用了去重内容的文件
+     *
+     * @param folderId 文件夹 ID
+     * @return 文件元数据列表
+     */
+    List<FileMetadataEntity> listContentFileBySubtree(@Param("folderId") Long folderId);
+
+    /**
+     * 按 ID 分页查询指定文件夹及其子文件夹下的文件
+     *
+     * @param folderId 文件夹 ID
+     * @param afterId 上一页最后一个文件的 ID, 第一页传 0
+     * @param limit 每页数量
+     * @return 按 ID 升序排列的文件元数据列表
+     */
+    List<FileMetadataEntity> listFileBySubtree(@Param("folderId") Long folderId, @Param("afterId") Long afterId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 按 ID 分页查询全部文件, 用于构建搜索索引
+     *
+     * @param afterId 上一页最后一个文件的 ID, 第一页传 0
+     * @param limit 每页数量
+     * @return 按 ID 升序排列的文件元数据列表
+     */
+    List<FileMetadataEntity> listFileAfterId(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 查询用户文件夹下的文件(不含子文件夹), 用于按其他节点的修改重新加载搜索索引
+     *
+     * @param folderPath 文件夹路径
      * @param storageType 存储类型
      * @param visibility 能见度
      * @param userId 用户 ID
      * @return 文件元数据列表
      */
-    List<FileInfoVO> listFileByFolderPath(@Param("folderPath") String folderPath, @Param("storageType") StorageTypeEnum storageType,
-                                          @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+    List<FileMetadataEntity> listFileByFolderPath(@Param("folderPath") String folderPath,
+                                                  @Param("storageType") StorageTypeEnum storageType,
+                                                  @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 根据 ID 批量查询用户的文件, 用于搜索结果回表
+     *
+     * @param ids 文件 ID
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件搜索结果, 不保证顺序
+     */
+    List<FileSearchVO> listFileSearchByIds(@Param("ids") Collection<Long> ids, @Param("storageType") StorageTypeEnum storageType,
+                                           @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    // -----------------------文件内容索引相关操作---------------------------
+
+    /**
+     * 查询文件内容索引
+     *
+     * @param contentHash 文件内容 SHA-256
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 内容所属用户 ID
+     * @return 文件内容索引
+     */
+    FileContentEntity getContent(@Param("contentHash") String contentHash, @Param("storageType") StorageTypeEnum storageType,
+                                 @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 批量查询文件内容索引
+     *
+     * @param contentHashes 文件内容 SHA-256
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 内容所属用户 ID
+     * @return 文件内容索引
+     */
+    List<FileContentEntity> listContentByHashes(@Param("contentHashes") Collection<String> contentHashes,
+                                                @Param("storageType") StorageTypeEnum storageType,
+                                                @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 批量添加文件内容索引, 已存在时引用计数增加 refCount
+     *
+     * @param contents 文件内容索引
+     * @return 受影响行数
+     */
+    Integer upsertContents(@Param("contents") List<FileContentEntity> contents);
+
+    /**
+     * 文件内容引用计数加一
+     *
+     * @param contentHash 文件内容 SHA-256
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 内容所属用户 ID
+     * @return 受影响行数(0 表示内容不存在)
+     */
+    Integer incrementContentRef(@Param("contentHash") String contentHash, @Param("storageType") StorageTypeEnum storageType,
+                                @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 文件内容引用计数减一
+     *
+     * @param contentHash 文件内容 SHA-256
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 内容所属用户 ID
+     * @return 受影响行数
+     */
+    Integer decrementContentRef(@Param("contentHash") String contentHash, @Param("storageType") StorageTypeEnum storageType,
+                                @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 删除引用计数归零的文件内容索引
+     *
+     * @param contentHash 文件内容 SHA-256
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 内容所属用户 ID
+     * @return 删除行数(1 表示存储对象可以删除)
+     */
+    Integer deleteUnreferencedContent(@Param("contentHash") String contentHash, @Param("storageType") StorageTypeEnum storageType,
+                                      @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
 
     // -----------------------文件夹元数据相关操作---------------------------
 
@@ -133,51 +297,116 @@ public interface MetadataMapper {
                              @Param("visibility") VisibilityEnum visibility);
 
     /**
-     * 删除指定文件夹的所有子文件夹
+     * 根据路径查询文件夹
      *
-     * @param folderPath 文件夹绝对路径
+     * @param folderPath 父文件夹路径, 顶层文件夹为空字符串
+     * @param folderName 文件夹名
      * @param storageType 存储类型
      * @param visibility 能见度
-     * @return 删除的文件夹元数据数量
+     * @param userId 用户 ID
+     * @return 文件夹元数据
      */
-    Integer deleteSubfoldersByFolderPath(@Param("folderPath") String folderPath, @Param("storageType") StorageTypeEnum storageType,
-                                         @Param("visibility") VisibilityEnum visibility);
+    FolderMetadataEntity getFolderByPath(@Param("folderPath") String folderPath, @Param("folderName") String folderName,
+                                         @Param("storageType") StorageTypeEnum storageType,
+                                         @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
 
     /**
-     * 根据文件夹名查询文件夹
+     * 添加文件夹的祖先关系, 包括父文件夹的所有祖先及自身
      *
-     * @param folderName 文件夹名
-     * @param folderPath 文件夹绝对路径
+     * @param id 文件夹 ID
+     * @param parentId 父文件夹 ID
+     * @return 添加的行数
+     */
+    Integer insertFolderClosure(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /**
+     * 查询子文件夹名
+     *
+     * @param parentId 父文件夹 ID
      * @param storageType 存储类型
      * @param visibility 能见度
-     * @return 是否存在符合的文件夹(> 0存在)
+     * @param userId 用户 ID
+     * @return 文件夹名称列表
      */
-    Integer isExistFolderByFolderPath(@Param("folderName") String folderName,
-                                      @Param("folderPath") String folderPath,
-                                      @Param("storageType") StorageTypeEnum storageType,
-                                      @Param("visibility") VisibilityEnum visibility);
+    List<String> listChildFolderNames(@Param("parentId") Long parentId, @Param("storageType") StorageTypeEnum storageType,
+                                      @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
 
     /**
-     * 根据文件路径查询文件夹
+     * 按 (文件夹名, ID) 分页查询子文件夹
      *
-     * @param folderPath 文件路径
+     * @param parentId 父文件夹 ID
      * @param storageType 存储类型
      * @param visibility 能见度
-     * @return 文件夹列表
+     * @param userId 用户 ID
+     * @param afterName 上一页最后一个文件夹的名称, 第一页为 null
+     * @param afterId 上一页最后一个文件夹的 ID
+     * @param limit 每页数量
+     * @return 文件夹条目列表
      */
-    List<String> listFolderPathByFolderName(@Param("folderPath") String folderPath, @Param("storageType") StorageTypeEnum storageType,
-                                            @Param("visibility") VisibilityEnum visibility);
+    List<FolderEntryVO> listChildFolderEntries(@Param("parentId") Long parentId, @Param("storageType") StorageTypeEnum storageType,
+                                               @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId,
+                                               @Param("afterName") String afterName, @Param("afterId") Long afterId,
+                                               @Param("limit") int limit);
 
     /**
-     * 查询指定路径下的文件夹
+     * 查询子文件夹数量
      *
-     * @param folderPath 文件夹路径
+     * @param parentId 父文件夹 ID
      * @param storageType 存储类型
      * @param visibility 能见度
      * @param userId 用户 ID
-     * @return 文件夹名称列表
+     * @return 子文件夹数量
+     */
+    long countChildFolders(@Param("parentId") Long parentId, @Param("storageType") StorageTypeEnum storageType,
+                           @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+
+    /**
+     * 删除文件夹及其所有子文件夹
+     *
+     * @param folderId 文件夹 ID
+     * @return 删除的文件夹元数据数量
+     */
+    Integer deleteFolderBySubtree(@Param("folderId") Long folderId);
+
+    /**
+     * 删除文件夹及其所有子文件夹的祖先关系, 需在 deleteFolderBySubtree 之后执行
+     *
+     * @param folderId 文件夹 ID
+     * @return 删除的行数
      */
-    List<String> listFolderNameByFolderPath(@Param("folderPath") String folderPath, @Param("storageType") StorageTypeEnum storageType,
-                                            @Param("visibility") VisibilityEnum visibility, @Param("userId") Long userId);
+    Integer deleteFolderClosureBySubtree(@Param("folderId") Long folderId);
+
+    // -------------------------------元数据缓存失效日志----------------------------------
 
+    /**
+     * 添加缓存失效日志
+     *
+     * @param invalidation 失效日志
+     * @return 添加的行数
+     */
+    Integer insertInvalidation(@Param("invalidation") MetadataInvalidationEntity invalidation);
+
+    /**
+     * 按 ID 顺序查询指定 ID 之后的缓存失效日志
+     *
+     * @param afterId 已处理的最大日志 ID
+     * @param limit 最多返回的行数
+     * @return 失效日志列表
+     */
+    List<MetadataInvalidationEntity> listInvalidationsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 查询最大的缓存失效日志 ID
+     *
+     * @return 最大日志 ID, 没有日志时为 0
+     */
+    long getMaxInvalidationId();
+
+    /**
+     * 删除过期的缓存失效日志
+     *
+     * @param before 早于该时间写入的日志被删除
+     * @return 删除的行数
+     */
+    Integer deleteInvalidationsBefore(@Param("before") LocalDateTime before);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.sparkseries.module.oss.file.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件搜索条件, 各条件同时满足, 为空的条件不限制
+ */
+@Data
+@Schema(description = "文件搜索条件")
+public class FileSearchDTO {
+
+    @Size(max = 255, message = "关键字长度不能超过255")
+    @Schema(description = "文件名关键字, 不区分大小写")
+    private String keyword;
+
+    @Schema(description = "是否只匹配文件名前缀, 否则匹配文件名任意位置")
+    private boolean prefix;
+
+    @Schema(description = "文件 MIME 类型, 以 /* 结尾时匹配该大类, 如 image/*")
+    private String fileType;
+
+    @Min(value = 0, message = "文件大小不能小于0")
+    @Schema(description = "最小文件大小(字节)")
+    private Long minSize;
+
+    @Min(value = 0, message = "文件大小不能小于0")
+    @Schema(description = "最大文件大小(字节)")
+    private Long maxSize;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    @Schema(description = "最后更新时间下限")
+    private LocalDateTime updatedFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    @Schema(description = "最后更新时间上限")
+    private LocalDateTime updatedTo;
+}
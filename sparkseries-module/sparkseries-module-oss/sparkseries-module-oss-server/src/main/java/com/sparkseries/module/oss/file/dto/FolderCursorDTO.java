@@ -0,0 +1,68 @@
+package com.sparkseries.module.oss.file.dto;
+
+import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.file.vo.FolderEntryVO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 文件夹分页游标
+ * 记录上一页最后一个条目的 (类型, 名称, ID) 及首页查询到的条目总数, 编码为 URL 安全的 Base64 字符串
+ *
+ * @param type 条目类型
+ * @param name 条目名称
+ * @param id 条目 ID
+ * @param total 条目总数
+ */
+public record FolderCursorDTO(String type, String name, long id, long total) {
+
+    /**
+     * 以条目生成游标
+     *
+     * @param entry 上一页最后一个条目
+     * @param total 条目总数
+     * @return 游标
+     */
+    public static FolderCursorDTO of(FolderEntryVO entry, long total) {
+        return new FolderCursorDTO(entry.getType(), entry.getName(), Long.parseLong(entry.getId()), total);
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param token 游标字符串
+     * @return 游标
+     * @throws OssException 游标格式不正确
+     */
+    public static FolderCursorDTO decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+            if (parts.length == 4 && (FolderEntryVO.FOLDER.equals(parts[0]) || FolderEntryVO.FILE.equals(parts[0]))) {
+                return new FolderCursorDTO(parts[0], parts[3], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            // 交由下方统一处理
+        }
+        throw new OssException("分页游标无效");
+    }
+
+    /**
+     * 编码游标
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        String payload = String.join("\n", type, Long.toString(id), Long.toString(total), name);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 是否位于文件夹条目中
+     *
+     * @return 上一页最后一个条目为文件夹时为 true
+     */
+    public boolean inFolders() {
+        return FolderEntryVO.FOLDER.equals(type);
+    }
+}
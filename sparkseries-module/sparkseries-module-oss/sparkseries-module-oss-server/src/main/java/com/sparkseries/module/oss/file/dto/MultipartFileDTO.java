@@ -3,6 +3,7 @@ package com.sparkseries.module.oss.file.dto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Data;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
 
@@ -19,10 +20,20 @@ public class MultipartFileDTO {
     private Long userId;
     @Schema(description = "文件名")
     private String fileName;
-    @Schema(description = "文件输入流")
+    @Schema(description = "文件输入流, 设置了上传的文件时为空, 上传时再打开")
     private InputStream inputStream;
+    @Schema(description = "上传的文件, 本地存储时用于直接转移临时文件")
+    private MultipartFile source;
     @Schema(description = "文件大小")
     private Long size;
     @Schema(description = "文件类型")
     private String type;
+    @Schema(description = "文件内容 SHA-256")
+    private String contentHash;
+    @Schema(description = "文件内容 CRC32C")
+    private String crc32c;
+    @Schema(description = "存储对象的压缩编码, 由存储服务回填")
+    private String contentEncoding;
+    @Schema(description = "文件内容是否已存储, 已存储时上传的对象不再被引用")
+    private boolean contentExists;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.sparkseries.module.oss.file.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 存储对象的元信息
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "存储对象的元信息")
+public class ObjectStatDTO {
+    @Schema(description = "对象大小(字节)")
+    private Long size;
+    @Schema(description = "对象 ETag, 不支持时为空")
+    private String etag;
+}
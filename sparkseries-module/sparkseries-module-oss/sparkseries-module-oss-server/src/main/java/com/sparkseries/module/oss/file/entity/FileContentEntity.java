@@ -0,0 +1,42 @@
+package com.sparkseries.module.oss.file.entity;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容索引, 相同内容的文件共用一个存储对象
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "文件内容索引")
+public class FileContentEntity {
+    @Schema(description = "文件内容 SHA-256")
+    private String contentHash;
+    @Schema(description = "文件存储类型")
+    private StorageTypeEnum storageType;
+    @Schema(description = "文件可见性")
+    private VisibilityEnum visibility;
+    @Schema(description = "内容所属用户 id, 私有文件按用户隔离, 其余为 0")
+    private Long userId;
+    @Schema(description = "存储对象的文件夹路径")
+    private String folderPath;
+    @Schema(description = "存储对象的文件名")
+    private String fileName;
+    @Schema(description = "文件大小(字节)")
+    private Long fileSize;
+    @Schema(description = "文件内容 CRC32C")
+    private String crc32c;
+    @Schema(description = "存储对象的压缩编码, 为空时未压缩")
+    private String contentEncoding;
+    @Schema(description = "引用计数")
+    private Integer refCount;
+    @Schema(description = "创建时间")
+    private LocalDateTime createDate;
+}
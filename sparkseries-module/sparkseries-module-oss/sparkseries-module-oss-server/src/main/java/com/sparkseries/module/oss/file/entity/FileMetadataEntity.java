@@ -27,6 +27,8 @@ public class FileMetadataEntity {
     private String fileType;
     @Schema(description = "文件大小")
     private String fileSize;
+    @Schema(description = "文件大小(字节), 早于该字段写入的文件为空")
+    private Long fileSizeBytes;
     @Schema(description = "文件存储文件夹")
     private String folderPath;
     @Schema(description = "文件最后更新时间")
@@ -35,6 +37,14 @@ public class FileMetadataEntity {
     private StorageTypeEnum storageType;
     @Schema(description = "文件可见性")
     private VisibilityEnum visibility;
+    @Schema(description = "文件内容 SHA-256, 为空时文件按文件名存储")
+    private String contentHash;
+    @Schema(description = "文件内容 CRC32C")
+    private String crc32c;
+    @Schema(description = "存储对象的压缩编码, 为空时未压缩, 文件大小始终为原始大小")
+    private String contentEncoding;
+    @Schema(description = "所在文件夹 id")
+    private Long folderId;
 
 
 }
\ No newline at end of file
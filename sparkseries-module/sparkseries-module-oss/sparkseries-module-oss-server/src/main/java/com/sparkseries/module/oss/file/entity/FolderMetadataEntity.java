@@ -28,5 +28,7 @@ public class FolderMetadataEntity {
     private StorageTypeEnum storageType;
     @Schema(description = "文件夹可见性")
     private VisibilityEnum visibility;
+    @Schema(description = "父文件夹 id, 顶层文件夹为 0")
+    private Long parentId;
 
 }
@@ -0,0 +1,51 @@
+package com.sparkseries.module.oss.file.entity;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "文件元数据缓存失效日志")
+public class MetadataInvalidationEntity {
+    @Schema(description = "日志 id")
+    private Long id;
+    @Schema(description = "失效范围")
+    private Scope scope;
+    @Schema(description = "失效的文件 id, 按文件夹失效时为空")
+    private Long fileId;
+    @Schema(description = "失效文件夹的所属用户 id, 按文件失效时为空")
+    private Long userId;
+    @Schema(description = "失效的文件夹路径")
+    private String folderPath;
+    @Schema(description = "存储类型")
+    private StorageTypeEnum storageType;
+    @Schema(description = "能见度")
+    private VisibilityEnum visibility;
+    @Schema(description = "写入时间")
+    private LocalDateTime createTime;
+
+    /**
+     * 失效范围
+     */
+    public enum Scope {
+        /**
+         * 单个文件的元数据
+         */
+        FILE,
+        /**
+         * 文件夹及其子文件夹下的文件元数据及列表
+         */
+        FOLDER,
+        /**
+         * 单个文件夹的列表
+         */
+        LISTING
+    }
+}
@@ -2,8 +2,10 @@ package com.sparkseries.module.oss.file.service;
 
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.common.util.entity.Result;
+import com.sparkseries.module.oss.file.dto.FileSearchDTO;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,9 +20,23 @@ public interface FileService {
      * @param files 待上传的文件列表
      * @param folderPath 文件存储的文件夹路径
      * @param visibility 能见度
-     * @return 上传结果
+     * @param parallelism 并发上传的文件数
+     * @return 每个文件的上传结果
      */
-    Result<?> uploadFiles(List<MultipartFileDTO> files, String folderPath, VisibilityEnum visibility);
+    Result<?> uploadFiles(List<MultipartFileDTO> files, String folderPath, VisibilityEnum visibility, int parallelism);
+
+    /**
+     * 秒传, 存储服务中已有相同内容时只保存元数据
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param contentHash 文件内容 SHA-256
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 秒传结果
+     */
+    Result<?> instantUpload(String fileName, String folderPath, VisibilityEnum visibility, String contentHash, Long size, String type);
 
     /**
      * 创建文件夹
@@ -72,6 +88,31 @@ public interface FileService {
      */
     Result<?> listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility);
 
+    /**
+     * 分页列出指定路径下的文件和文件夹, 子文件夹在前, 同类条目按 (名称, ID) 排序
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @param size 每页条目数
+     * @param cursor 上一页返回的游标, 第一页为空
+     * @return 文件和文件夹条目分页
+     */
+    Result<?> listFolderEntries(String folderName, String folderPath, VisibilityEnum visibility, int size, String cursor);
+
+    /**
+     * 按文件名关键字、文件类型、大小及最后更新时间搜索当前用户的文件
+     *
+     * @param visibility 能见度
+     * @param search 搜索条件
+     * @param current 页码
+     * @param size 每页条目数
+     * @param sortField 排序字段: fileName、fileSize、lastUpdateDate, 为空时按最后更新时间排序
+     * @param asc 是否升序
+     * @return 文件搜索结果分页
+     */
+    Result<?> searchFiles(VisibilityEnum visibility, FileSearchDTO search, int current, int size, String sortField, boolean asc);
+
     /**
      * 获取文件的预览 url
      *
@@ -108,4 +149,14 @@ public interface FileService {
      */
     ResponseEntity<?> downloadLocalFile(Long id, VisibilityEnum visibility);
 
+    /**
+     * 打包下载文件夹
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @return ZIP 流式响应
+     */
+    ResponseEntity<StreamingResponseBody> downloadFolder(String folderName, String folderPath, VisibilityEnum visibility);
+
 }
@@ -0,0 +1,55 @@
+package com.sparkseries.module.oss.file.service;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.file.entity.FolderMetadataEntity;
+
+/**
+ * 文件夹树管理
+ * 文件夹按父文件夹 ID 组织成树, 祖先关系保存在 folder_closure 表中, 子树查询及删除不需要按路径前缀匹配
+ */
+public interface FolderTreeService {
+
+    /**
+     * 根据完整路径查询文件夹
+     *
+     * @param path 文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件夹元数据, 不存在时为 null
+     */
+    FolderMetadataEntity getFolder(String path, StorageTypeEnum storageType, VisibilityEnum visibility, Long userId);
+
+    /**
+     * 获取文件夹 ID, 文件夹及其祖先不存在时依次创建
+     *
+     * @param path 文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件夹 ID
+     */
+    Long resolveFolderId(String path, StorageTypeEnum storageType, VisibilityEnum visibility, Long userId);
+
+    /**
+     * 在指定父文件夹下创建文件夹, 父文件夹不存在时依次创建
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 父文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 新建的文件夹元数据, 文件夹已存在时为 null
+     */
+    FolderMetadataEntity createFolder(String folderName, String folderPath, StorageTypeEnum storageType,
+                                      VisibilityEnum visibility, Long userId);
+
+    /**
+     * 删除文件夹子树中的文件及文件夹元数据
+     *
+     * @param folderId 子树根文件夹 ID
+     * @return 删除的文件元数据数量
+     */
+    int deleteSubtree(Long folderId);
+}
@@ -6,32 +6,82 @@ import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.common.security.util.CurrentUser;
+import com.sparkseries.common.util.entity.CursorPageResult;
+import com.sparkseries.common.util.entity.PageResult;
 import com.sparkseries.common.util.entity.Result;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.FileMetadataCache;
+import com.sparkseries.module.oss.common.cache.FolderListingCache;
+import com.sparkseries.module.oss.common.cache.ObjectDiskCache;
+import com.sparkseries.module.oss.common.config.TransferConfig;
+import com.sparkseries.module.oss.common.config.TransferExecutor;
 import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.common.search.FileSearchIndex;
+import com.sparkseries.module.oss.common.search.SearchHits;
+import com.sparkseries.module.oss.common.search.SortField;
 import com.sparkseries.module.oss.common.util.FileUtil;
+import com.sparkseries.module.oss.common.util.InspectingInputStream;
+import com.sparkseries.module.oss.common.util.MimeTypeUtil;
 import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.file.dto.FileSearchDTO;
+import com.sparkseries.module.oss.file.dto.FolderCursorDTO;
 import com.sparkseries.module.oss.file.dto.MultipartFileDTO;
+import com.sparkseries.module.oss.file.entity.FileContentEntity;
 import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
 import com.sparkseries.module.oss.file.entity.FolderMetadataEntity;
 import com.sparkseries.module.oss.file.service.FileService;
+import com.sparkseries.module.oss.file.service.FolderTreeService;
+import com.sparkseries.module.oss.file.vo.FileInfoVO;
+import com.sparkseries.module.oss.file.vo.FileSearchVO;
+import com.sparkseries.module.oss.file.vo.FolderEntryVO;
 import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
+import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.file.vo.InstantUploadVO;
+import com.sparkseries.module.oss.file.vo.UploadResultVO;
 import com.sparkseries.module.oss.provider.local.oss.LocalOssServiceImpl;
+import com.sparkseries.module.oss.provider.local.sign.LocalUrlSigner;
 import com.sparkseries.module.oss.switching.DynamicStorageSwitchService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.stream.Collectors;
+import java.util.zip.ZipOutputStream;
+
+import static com.sparkeries.constant.Constants.CONTENT_STORAGE_PATH;
+import static com.sparkeries.constant.Constants.METADATA_BATCH_SIZE;
+import static com.sparkseries.module.oss.common.util.TransactionUtil.afterCommit;
 
 /**
  * 对象存储管理
@@ -45,9 +95,37 @@ public class FileServiceImpl implements FileService {
 
     private final DynamicStorageSwitchService provider;
 
-    public FileServiceImpl(MetadataMapper metadataMapper, DynamicStorageSwitchService provider) {
+    private final TransferExecutor transferExecutor;
+
+    private final TransferConfig transferConfig;
+
+    private final LocalUrlSigner urlSigner;
+
+    private final ObjectDiskCache objectDiskCache;
+
+    private final FolderTreeService folderTreeService;
+
+    private final FileMetadataCache fileMetadataCache;
+
+    private final FolderListingCache folderListingCache;
+
+    private final FileSearchIndex fileSearchIndex;
+
+    public FileServiceImpl(MetadataMapper metadataMapper, DynamicStorageSwitchService provider,
+                           TransferExecutor transferExecutor, TransferConfig transferConfig, LocalUrlSigner urlSigner,
+                           ObjectDiskCache objectDiskCache, FolderTreeService folderTreeService,
+                           FileMetadataCache fileMetadataCache, FolderListingCache folderListingCache,
+                           FileSearchIndex fileSearchIndex) {
         this.metadataMapper = metadataMapper;
+        this.folderTreeService = folderTreeService;
+        this.fileMetadataCache = fileMetadataCache;
+        this.folderListingCache = folderListingCache;
+        this.fileSearchIndex = fileSearchIndex;
         this.provider = provider;
+        this.transferExecutor = transferExecutor;
+        this.transferConfig = transferConfig;
+        this.urlSigner = urlSigner;
+        this.objectDiskCache = objectDiskCache;
         log.info("FileServiceImpl 初始化完成，使用动态存储服务管理器");
     }
 
@@ -63,28 +141,110 @@ public class FileServiceImpl implements FileService {
 
     /**
      * 文件列表上传
+     * 文件并发上传到存储服务, 全部成功后在当前线程写入元数据; 任一文件失败时删除本批次已上传的文件
      *
      * @param files 待上传的文件列表
      * @param folderPath 文件存储的文件夹路径
      * @param visibility 能见度
-     * @return 默认响应类
+     * @param parallelism 并发上传的文件数
+     * @return 每个文件的上传结果
      */
     @Override
-    public Result<?> uploadFiles(List<MultipartFileDTO> files, String folderPath, VisibilityEnum visibility) {
+    public Result<?> uploadFiles(List<MultipartFileDTO> files, String folderPath, VisibilityEnum visibility, int parallelism) {
 
-        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+        String targetFolderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
 
-        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+        OssService ossService = getCurrentStorageService();
+
+        StorageTypeEnum storageType = ossService.getStorageType();
+
+        int concurrency = transferExecutor.resolveBatchParallelism(parallelism);
 
-        log.info("批量文件上传开始，文件数量: {}，目标路径: {}", files.size(), folderPath);
+        log.info("批量文件上传开始，文件数量: {}，目标路径: {}，并发数: {}", files.size(), targetFolderPath, concurrency);
 
         // 检验上传的文件名是否存在
-        checkFileExist(files, visibility, folderPath, storageType);
+        checkFileExist(files, visibility, targetFolderPath, storageType);
 
+        Semaphore permits = new Semaphore(concurrency);
+        List<CompletableFuture<UploadResultVO>> futures = new ArrayList<>(files.size());
+        boolean interrupted = false;
         for (MultipartFileDTO file : files) {
-            uploadFile(file, folderPath, visibility);
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                log.warn("批量文件上传被中断，已提交 {} 个文件", futures.size());
+                interrupted = true;
+                break;
+            }
+            futures.add(transferExecutor.submitFile(() -> uploadFile(ossService, file, targetFolderPath, visibility))
+                    .whenComplete((result, e) -> permits.release()));
+        }
+
+        List<UploadResultVO> results = futures.stream().map(CompletableFuture::join).toList();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean allSucceeded = results.size() == files.size() && results.stream().allMatch(UploadResultVO::getSuccess);
+        if (!allSucceeded) {
+            rollbackUploadedFiles(ossService, files, results, targetFolderPath, visibility);
+            log.warn("批量文件上传失败，已删除本批次已上传的文件，目标路径: {}", targetFolderPath);
+            return Result.error("文件上传失败，已回滚本批次已上传的文件", results);
+        }
+
+        try {
+            saveFilesMetadata(files, targetFolderPath, visibility, storageType);
+        } catch (RuntimeException e) {
+            rollbackUploadedFiles(ossService, files, results, targetFolderPath, visibility);
+            throw e;
+        }
+        return Result.ok("文件上传成功", results);
+    }
+
+    /**
+     * 秒传
+     * 存储服务中已有相同内容时只保存元数据并增加内容引用计数, 否则返回未命中, 客户端需正常上传
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param contentHash 文件内容 SHA-256
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 秒传结果
+     */
+    @Override
+    public Result<?> instantUpload(String fileName, String folderPath, VisibilityEnum visibility, String contentHash, Long size, String type) {
+        Long userId = CurrentUser.getId();
+        fileName = FileUtil.normalizeAndValidateFileName(fileName);
+        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+
+        int row = metadataMapper.isExistFileByFileName(fileName, folderPath, storageType, visibility);
+        if (row > 0) {
+            throw new OssException("文件名已存在: " + fileName);
+        }
+
+        Long ownerId = getContentOwnerId(visibility, userId);
+        FileContentEntity content = metadataMapper.getContent(contentHash, storageType, visibility, ownerId);
+        if (ObjectUtils.isEmpty(content) || !content.getFileSize().equals(size)
+                || metadataMapper.incrementContentRef(contentHash, storageType, visibility, ownerId) <= 0) {
+            log.info("秒传未命中，文件: {}", fileName);
+            return Result.ok("文件内容不存在，请上传文件", new InstantUploadVO(false, null));
+        }
+
+        long id = IdWorker.getId();
+        Long folderId = folderTreeService.resolveFolderId(folderPath, storageType, visibility, userId);
+        FileMetadataEntity metadata = new FileMetadataEntity(id, userId, fileName, type, FileUtil.conversion(size), size, folderPath,
+                null, storageType, visibility, contentHash, content.getCrc32c(), content.getContentEncoding(), folderId);
+        if (metadataMapper.insertFile(metadata) <= 0) {
+            log.warn("数据库添加文件元数据失败，文件: {}", fileName);
+            throw new OssException("数据库添加文件失败");
         }
-        return Result.ok("文件上传成功");
+        folderListingCache.invalidate(userId, storageType, visibility, folderPath);
+        fileSearchIndex.add(metadata);
+        log.info("秒传成功，文件: {}，ID: {}", String.join("/", folderPath, fileName), id);
+        return Result.ok("文件上传成功", new InstantUploadVO(true, id));
     }
 
     /**
@@ -104,8 +264,8 @@ public class FileServiceImpl implements FileService {
         log.info("调用文件存储服务创建文件夹: {}", folderPath);
 
         StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
-        int count = metadataMapper.isExistFolderByFolderPath(folderName, folderPath, storageType, visibility);
-        if (count > 0) {
+        String absolutePath = Path.of(folderPath, folderName).toString();
+        if (folderTreeService.getFolder(absolutePath, storageType, visibility, userId) != null) {
             return Result.error("该文件夹已存在");
         }
 
@@ -114,16 +274,12 @@ public class FileServiceImpl implements FileService {
         if (!folder) {
             return Result.error("创建文件夹失败");
         }
-        long id = IdWorker.getId();
-
-        FolderMetadataEntity folderMetadataEntity = new FolderMetadataEntity(id, userId, folderName, folderPath, LocalDateTime.now(), storageType, visibility);
 
+        FolderMetadataEntity folderMetadataEntity = folderTreeService.createFolder(folderName, folderPath, storageType, visibility, userId);
 
-        int row = metadataMapper.insertFolder(folderMetadataEntity);
-
-        if (row <= 0) {
-            log.warn("数据库中添加文件夹相关信息失败");
-            throw new OssException("数据库中添加 文件夹相关信息失败");
+        if (folderMetadataEntity == null) {
+            log.warn("数据库中添加文件夹相关信息失败, 文件夹已存在: {}", absolutePath);
+            return Result.error("该文件夹已存在");
         }
         log.info("文件夹创建成功: {}", folderPath + folderName);
 
@@ -158,11 +314,16 @@ public class FileServiceImpl implements FileService {
 
         String folderPath = file.getFolderPath();
 
-        boolean deleteFile = getCurrentStorageService().deleteFile(fileName, folderPath, visibility, userId.toString());
+        if (file.getContentHash() != null) {
+            releaseContent(file, storageType);
+        } else {
+            boolean deleteFile = getCurrentStorageService().deleteFile(fileName, folderPath, visibility, userId.toString());
 
-        if (!deleteFile) {
-            log.warn("用户:{} 删除云存储文件:{} 删除失败", userId, folderPath + fileName);
-            throw new OssException("存储文件删除失败");
+            if (!deleteFile) {
+                log.warn("用户:{} 删除云存储文件:{} 删除失败", userId, folderPath + fileName);
+                throw new OssException("存储文件删除失败");
+            }
+            objectDiskCache.invalidate(storageType, visibility, file.getUserId().toString(), folderPath, fileName);
         }
 
         int row = metadataMapper.deleteFileById(id, storageType, visibility);
@@ -171,6 +332,9 @@ public class FileServiceImpl implements FileService {
             log.warn("用户:{} 删除数据库元数据:{} 删除失败", userId, folderPath + fileName);
             throw new OssException("数据库删除失败");
         }
+        fileMetadataCache.invalidate(file);
+        folderListingCache.invalidate(file.getUserId(), storageType, visibility, folderPath);
+        fileSearchIndex.remove(file);
 
         log.info("文件删除成功 文件id:{}", id);
         return Result.ok("文件删除成功");
@@ -196,16 +360,32 @@ public class FileServiceImpl implements FileService {
 
         folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
 
+        String absolutePath = Path.of(folderPath, folderName).toString();
+
+        FolderMetadataEntity folder = folderTreeService.getFolder(absolutePath, storageType, visibility, userId);
+
+        if (ObjectUtils.isEmpty(folder)) {
+            return Result.error("文件夹不存在");
+        }
+
+        List<FileMetadataEntity> contentFiles = metadataMapper.listContentFileBySubtree(folder.getId());
+
+        // 隐式创建的文件夹可能没有任何存储对象, 存储服务视为删除成功, 元数据照常删除
         boolean deleteFolder = getCurrentStorageService().deleteFolder(folderName, folderPath, visibility, userId.toString());
 
         if (!deleteFolder) {
             return Result.error("文件夹删除失败");
         }
+        objectDiskCache.invalidateFolder(storageType, visibility, absolutePath + "/");
 
-        int row = metadataMapper.deleteFileByFolderPath(folderPath, storageType, visibility);
+        folderTreeService.deleteSubtree(folder.getId());
+        fileMetadataCache.invalidateFolder(storageType, visibility, userId, absolutePath);
+        folderListingCache.invalidate(userId, storageType, visibility, folderPath);
+        fileSearchIndex.removeFolder(userId, storageType, visibility, absolutePath);
 
-        if (row < 0) {
-            return Result.error("删除失败");
+        // 去重内容不在文件夹下存储, 需单独释放引用
+        for (FileMetadataEntity file : contentFiles) {
+            releaseContent(file, storageType);
         }
 
         log.info("文件夹{}删除成功", folderPath + folderName);
@@ -235,23 +415,32 @@ public class FileServiceImpl implements FileService {
 
         int row;
 
-        row = metadataMapper.isExistFileByFileName(filename, folderPath, storageType, visibility);
+        row = metadataMapper.isExistFileByFileName(filename, targetPath, storageType, visibility);
 
         if (row > 0) {
             throw new OssException("文件名已被使用");
         }
 
-        boolean moveFile = getCurrentStorageService().moveFile(filename, sourcePath, targetPath, visibility, CurrentUser.getId().toString());
+        // 去重内容按内容存储, 移动时只修改元数据
+        if (metadata.getContentHash() == null) {
+            boolean moveFile = getCurrentStorageService().moveFile(filename, sourcePath, targetPath, visibility, CurrentUser.getId().toString());
 
-        if (!moveFile) {
-            throw new OssException("文件移动失败");
+            if (!moveFile) {
+                throw new OssException("文件移动失败");
+            }
+            objectDiskCache.invalidate(storageType, visibility, metadata.getUserId().toString(), sourcePath, filename);
         }
 
-        row = metadataMapper.updateFileFolderPath(id, folderPath, storageType, visibility);
+        Long folderId = folderTreeService.resolveFolderId(targetPath, storageType, visibility, metadata.getUserId());
+        row = metadataMapper.updateFileFolderPath(id, targetPath, folderId, storageType, visibility);
         if (row <= 0) {
             log.warn("数据库文件移动失败");
             throw new OssException("数据库文件移动失败");
         }
+        fileMetadataCache.invalidate(metadata);
+        folderListingCache.invalidate(metadata.getUserId(), storageType, visibility, sourcePath);
+        folderListingCache.invalidate(metadata.getUserId(), storageType, visibility, targetPath);
+        fileSearchIndex.move(metadata, targetPath);
         return Result.ok("文件移动成功");
     }
 
@@ -272,11 +461,131 @@ public class FileServiceImpl implements FileService {
 
         folderName = FileUtil.normalizeAndValidateFolderName(folderName);
 
-        FilesAndFoldersVO filesAndFoldersVO = getCurrentStorageService().listFileAndFolder(folderName, folderPath, visibility, userId);
+        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+
+        String absolutePath = Path.of(folderPath, folderName).toString();
+
+        FilesAndFoldersVO filesAndFoldersVO = folderListingCache.get(userId, storageType, visibility, absolutePath, () -> {
+            FolderMetadataEntity folder = folderTreeService.getFolder(absolutePath, storageType, visibility, userId);
+            if (ObjectUtils.isEmpty(folder)) {
+                return new FilesAndFoldersVO(new ArrayList<>(), new LinkedHashSet<>());
+            }
+            List<FileInfoVO> files = metadataMapper.listFileByFolderId(folder.getId());
+            Set<FolderInfoVO> folders = metadataMapper.listChildFolderNames(folder.getId(), storageType, visibility, userId).stream()
+                    .map(name -> new FolderInfoVO(name, absolutePath))
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            return new FilesAndFoldersVO(files, folders);
+        });
         log.info("成功获取{}下的文件及文件夹", folderPath + folderName);
         return Result.ok("获取成功", filesAndFoldersVO);
     }
 
+    /**
+     * 分页列出指定路径下的文件和文件夹
+     * 以上一页最后一个条目为起点按索引顺序读取, 每页只查询 size + 1 行, 与文件夹大小无关; 总数只在第一页统计
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @param size 每页条目数
+     * @param cursor 上一页返回的游标, 第一页为空
+     * @return 文件和文件夹条目分页
+     */
+    @Override
+    public Result<?> listFolderEntries(String folderName, String folderPath, VisibilityEnum visibility, int size, String cursor) {
+        Long userId = CurrentUser.getId();
+
+        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+
+        folderName = FileUtil.normalizeAndValidateFolderName(folderName);
+
+        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+
+        FolderCursorDTO after = StringUtils.isEmpty(cursor) ? null : FolderCursorDTO.decode(cursor);
+
+        String absolutePath = Path.of(folderPath, folderName).toString();
+
+        FolderMetadataEntity folder = folderTreeService.getFolder(absolutePath, storageType, visibility, userId);
+
+        if (ObjectUtils.isEmpty(folder)) {
+            return Result.ok("获取成功", new CursorPageResult<>(0, new ArrayList<>(), null));
+        }
+        Long folderId = folder.getId();
+
+        long total = after != null ? after.total()
+                : metadataMapper.countChildFolders(folderId, storageType, visibility, userId) + metadataMapper.countFileByFolderId(folderId);
+
+        // 多查询一行判断是否还有下一页
+        List<FolderEntryVO> entries = new ArrayList<>(size + 1);
+        if (after == null || after.inFolders()) {
+            entries.addAll(metadataMapper.listChildFolderEntries(folderId, storageType, visibility, userId,
+                    after == null ? null : after.name(), after == null ? 0L : after.id(), size + 1));
+        }
+        if (entries.size() <= size) {
+            boolean inFiles = after != null && !after.inFolders();
+            entries.addAll(metadataMapper.listFileEntries(folderId, inFiles ? after.name() : null, inFiles ? after.id() : 0L,
+                    size + 1 - entries.size()));
+        }
+
+        String nextCursor = null;
+        if (entries.size() > size) {
+            entries = entries.subList(0, size);
+            nextCursor = FolderCursorDTO.of(entries.get(size - 1), total).encode();
+        }
+        log.info("成功获取{}下的文件及文件夹, 条目数: {}", absolutePath, entries.size());
+        return Result.ok("获取成功", new CursorPageResult<>(total, entries, nextCursor));
+    }
+
+    /**
+     * 搜索当前用户的文件
+     * 由搜索索引筛选、排序并分页, 只回表查询当前页的文件; 回表时已不存在的文件从索引中剔除
+     *
+     * @param visibility 能见度
+     * @param search 搜索条件
+     * @param current 页码
+     * @param size 每页条目数
+     * @param sortField 排序字段
+     * @param asc 是否升序
+     * @return 文件搜索结果分页
+     */
+    @Override
+    public Result<?> searchFiles(VisibilityEnum visibility, FileSearchDTO search, int current, int size, String sortField, boolean asc) {
+        Long userId = CurrentUser.getId();
+
+        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+
+        if (search.getMinSize() != null && search.getMaxSize() != null && search.getMinSize() > search.getMaxSize()) {
+            throw new OssException("最小文件大小不能大于最大文件大小");
+        }
+        if (search.getUpdatedFrom() != null && search.getUpdatedTo() != null && search.getUpdatedFrom().isAfter(search.getUpdatedTo())) {
+            throw new OssException("开始时间不能晚于结束时间");
+        }
+
+        SearchHits hits = fileSearchIndex.search(userId, storageType, visibility, search, SortField.of(sortField), asc,
+                (long) (current - 1) * size, size);
+        if (hits.ids().isEmpty()) {
+            return Result.ok("搜索成功", new PageResult<>(hits.total(), new ArrayList<>()));
+        }
+
+        Map<String, FileSearchVO> found = metadataMapper.listFileSearchByIds(hits.ids(), storageType, visibility, userId).stream()
+                .collect(Collectors.toMap(FileSearchVO::getId, file -> file));
+        List<FileSearchVO> files = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : hits.ids()) {
+            FileSearchVO file = found.get(String.valueOf(id));
+            if (file != null) {
+                files.add(file);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            log.info("搜索结果中的文件已被删除, 从索引中剔除: {}", missing);
+            fileSearchIndex.evict(userId, storageType, visibility, missing);
+        }
+        return Result.ok("搜索成功", new PageResult<>(hits.total() - missing.size(), files));
+    }
+
     /**
      * 获取文件预览 url
      *
@@ -288,9 +597,9 @@ public class FileServiceImpl implements FileService {
     public Result<?> previewUrl(Long id, VisibilityEnum visibility) {
         StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
 
-        FileMetadataEntity metadata = getFileMetadataById(id, visibility, storageType);
+        FileMetadataEntity metadata = getCachedFileMetadata(id, visibility, storageType);
 
-        if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
+        if (getCurrentStorageService() instanceof LocalOssServiceImpl localOssService) {
 
             try {
                 // 从请求上下文中获取 HttpServletRequest
@@ -302,7 +611,14 @@ public class FileServiceImpl implements FileService {
 
                 // 动态构建URL
                 String host = InetAddress.getLocalHost().getHostAddress();
-                String avatarUrl = UriComponentsBuilder.newInstance().scheme(request.getScheme()).host(host).port(request.getServerPort()).path("/user/previewLocal/{id}").queryParam("visibility", visibility).buildAndExpand(id).toUriString();
+                UriComponentsBuilder builder = UriComponentsBuilder.newInstance().scheme(request.getScheme()).host(host).port(request.getServerPort());
+                if (urlSigner.isEnabled()) {
+                    // 签名 URL 访问时只校验签名, 不识别登录用户, 签名前必须确认当前用户可以读取该文件
+                    checkReadPermission(metadata, visibility);
+                    FileMetadataEntity object = resolveStorageObject(metadata);
+                    return Result.ok(localOssService.signUrl(builder, object, visibility, metadata.getFileName(), false).build().encode().toUriString());
+                }
+                String avatarUrl = builder.path("/user/previewLocal/{id}").queryParam("visibility", visibility).buildAndExpand(id).toUriString();
                 return Result.ok(avatarUrl);
             } catch (UnknownHostException e) {
                 log.warn("获取服务器主机地址失败", e);
@@ -310,7 +626,8 @@ public class FileServiceImpl implements FileService {
             }
         }
 
-        String url = getCurrentStorageService().previewFile(metadata.getFileName(), metadata.getFolderPath(), visibility, metadata.getUserId().toString());
+        FileMetadataEntity object = resolveStorageObject(metadata);
+        String url = getCurrentStorageService().previewFile(object.getFileName(), object.getFolderPath(), visibility, object.getUserId().toString());
 
         log.info("获取url成功");
         return Result.ok(url);
@@ -327,7 +644,7 @@ public class FileServiceImpl implements FileService {
     public Result<?> downloadFile(Long id, VisibilityEnum visibility) {
         StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
 
-        FileMetadataEntity file = getFileMetadataById(id, visibility, storageType);
+        FileMetadataEntity file = getCachedFileMetadata(id, visibility, storageType);
 
         String fileName = file.getFileName();
 
@@ -335,7 +652,15 @@ public class FileServiceImpl implements FileService {
 
         String userId = CurrentUser.getId().toString();
 
-        if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
+        FileMetadataEntity object = file;
+        if (file.getContentHash() != null) {
+            object = resolveStorageObject(file);
+            fileName = object.getFileName();
+            folderPath = object.getFolderPath();
+            userId = object.getUserId().toString();
+        }
+
+        if (getCurrentStorageService() instanceof LocalOssServiceImpl localOssService) {
 
             try {
                 // 从请求上下文中获取 HttpServletRequest
@@ -347,7 +672,13 @@ public class FileServiceImpl implements FileService {
 
                 // 动态构建URL
                 String host = InetAddress.getLocalHost().getHostAddress();
-                String avatarUrl = UriComponentsBuilder.newInstance().scheme(request.getScheme()).host(host).port(request.getServerPort()).path("/user/downloadLocal/{id}").queryParam("visibility", visibility).buildAndExpand(id).toUriString();
+                UriComponentsBuilder builder = UriComponentsBuilder.newInstance().scheme(request.getScheme()).host(host).port(request.getServerPort());
+                if (urlSigner.isEnabled()) {
+                    // 签名 URL 访问时只校验签名, 不识别登录用户, 签名前必须确认当前用户可以读取该文件
+                    checkReadPermission(file, visibility);
+                    return Result.ok("获取成功", localOssService.signUrl(builder, object, visibility, file.getFileName(), true).build().encode().toUriString());
+                }
+                String avatarUrl = builder.path("/user/downloadLocal/{id}").queryParam("visibility", visibility).buildAndExpand(id).toUriString();
                 return Result.ok(avatarUrl);
             } catch (UnknownHostException e) {
                 log.warn("获取服务器主机地址失败", e);
@@ -375,10 +706,14 @@ public class FileServiceImpl implements FileService {
     public ResponseEntity<?> previewLocalFile(Long id, VisibilityEnum visibility) {
         StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
         Long userId = CurrentUser.getId();
-        FileMetadataEntity fileMetadataEntity = getFileMetadataById(id, visibility, storageType);
+        FileMetadataEntity fileMetadataEntity = getCachedFileMetadata(id, visibility, storageType);
 
         if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
 
+            if (fileMetadataEntity.getContentHash() != null) {
+                FileMetadataEntity object = resolveStorageObject(fileMetadataEntity);
+                return ((LocalOssServiceImpl) getCurrentStorageService()).previewLocalFile(object, visibility, object.getUserId().toString());
+            }
             return ((LocalOssServiceImpl) getCurrentStorageService()).previewLocalFile(fileMetadataEntity, visibility, userId.toString());
         }
 
@@ -395,7 +730,7 @@ public class FileServiceImpl implements FileService {
     @Override
     public ResponseEntity<?> downloadLocalFile(Long id, VisibilityEnum visibility) {
         StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
-        FileMetadataEntity fileMetadataEntity = getFileMetadataById(id, visibility, storageType);
+        FileMetadataEntity fileMetadataEntity = getCachedFileMetadata(id, visibility, storageType);
 
         Long userId = CurrentUser.getId();
 
@@ -405,63 +740,549 @@ public class FileServiceImpl implements FileService {
         }
         if (getCurrentStorageService() instanceof LocalOssServiceImpl) {
 
+            if (fileMetadataEntity.getContentHash() != null) {
+                FileMetadataEntity object = resolveStorageObject(fileMetadataEntity);
+                return ((LocalOssServiceImpl) getCurrentStorageService()).downLocalFile(object, visibility, object.getUserId().toString());
+            }
             return ((LocalOssServiceImpl) getCurrentStorageService()).downLocalFile(fileMetadataEntity, visibility, userId.toString());
         }
 
         throw new OssException("当前存储类型不支持下载");
     }
 
+    /**
+     * 打包下载文件夹
+     * 按 ID 分页读取文件元数据, 边读取存储对象边写出 ZIP, 不生成临时文件;
+     * 写出当前文件时并行预读后续的若干文件, 预读内容有上限, 内存占用与文件夹大小无关
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 文件夹路径
+     * @param visibility 能见度
+     * @return ZIP 流式响应
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> downloadFolder(String folderName, String folderPath, VisibilityEnum visibility) {
+        Long userId = CurrentUser.getId();
+
+        folderName = FileUtil.normalizeAndValidateFolderName(folderName);
+
+        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+
+        OssService ossService = getCurrentStorageService();
+
+        StorageTypeEnum storageType = ossService.getStorageType();
+
+        String absolutePath = Path.of(folderPath, folderName).toString();
+
+        FolderMetadataEntity folder = folderTreeService.getFolder(absolutePath, storageType, visibility, userId);
+        if (ObjectUtils.isEmpty(folder)) {
+            throw new OssException("文件夹不存在");
+        }
+
+        Long folderId = folder.getId();
+        List<FileMetadataEntity> firstPage = metadataMapper.listFileBySubtree(folderId, 0L, transferConfig.getArchivePageSize());
+        if (firstPage.isEmpty()) {
+            throw new OssException("文件夹为空");
+        }
+
+        String entryRoot = folderName;
+        StreamingResponseBody body = outputStream -> writeFolderArchive(ossService, entryRoot, absolutePath, folderId, firstPage,
+                outputStream);
+        log.info("[打包下载操作] 开始打包下载文件夹: {}", absolutePath);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(folderName + ".zip", StandardCharsets.UTF_8).build().toString())
+                .body(body);
+    }
+
     // 私有方法
 
     /**
      * 文件存储
      *
+     * @param ossService 存储服务
      * @param file 文件信息
      * @param folderPath 文件存储的文件夹路径
      * @param visibility 能见度
+     * @return 上传结果
      */
-    private void uploadFile(MultipartFileDTO file, String folderPath, VisibilityEnum visibility) {
+    private UploadResultVO uploadFile(OssService ossService, MultipartFileDTO file, String folderPath, VisibilityEnum visibility) {
 
-        log.info("文件{}开始上传", file);
+        log.info("文件{}开始上传", file.getFileName());
 
-        StorageTypeEnum storageType = getCurrentStorageService().getStorageType();
+        if (file.getId() == null) {
+            // 生成文件 Id
+            file.setId(IdWorker.getId());
+        }
 
         String filename = file.getFileName();
 
         // 获取文件大小
         long size = file.getSize();
         String conversion = FileUtil.conversion(size);
-        // 生成文件 Id
-        long id = IdWorker.getId();
 
-        UploadFileDTO fileDTO = UploadFileDTO.builder()
-                .userId(file.getUserId().toString())
-                .inputStream(file.getInputStream())
-                .fileName(filename)
-                .size(size)
-                .folderPath(folderPath)
-                .visibility(visibility)
+        Path sourcePath = null;
+        InspectingInputStream inspector = null;
+        UploadFileDTO fileDTO;
+        try {
+            // 本地存储时将上传的临时文件转移到存储目录所在的文件系统, 随后直接重命名到目标位置
+            if (file.getSource() != null && ossService instanceof LocalOssServiceImpl localOssService) {
+                sourcePath = localOssService.createIngestPath(file.getId());
+                file.getSource().transferTo(sourcePath.toFile());
+                inspector = InspectingInputStream.inspect(sourcePath);
+            } else {
+                // 上传的同时检测文件类型并计算校验和
+                inspector = new InspectingInputStream(file.getSource() != null ? file.getSource().getInputStream() : file.getInputStream());
+            }
+
+            fileDTO = UploadFileDTO.builder()
+                    .userId(file.getUserId().toString())
+                    .inputStream(inspector)
+                    .sourcePath(sourcePath)
+                    .fileName(filename)
+                    .size(size)
+                    .folderPath(getStorageFolderPath(file))
+                    .visibility(visibility)
+                    .build();
+
+            // 上传文件
+            boolean upload = ossService.uploadFile(fileDTO);
+            if (!upload) {
+                log.warn("文件上传失败: {}", filename);
+                return new UploadResultVO(file.getId(), filename, conversion, false, "文件上传失败");
+            }
+        } catch (Exception e) {
+            log.warn("文件上传失败: {}, 错误信息: {}", filename, e.getMessage());
+            return new UploadResultVO(file.getId(), filename, conversion, false, e.getMessage());
+        } finally {
+            // 输入流由此处打开, 存储服务上传后不一定关闭
+            closeInspector(inspector, filename);
+            deleteIngestFile(sourcePath);
+        }
+        if (inspector.getBytesRead() != size) {
+            log.warn("文件上传不完整: {}, 期望: {} bytes, 实际读取: {} bytes", filename, size, inspector.getBytesRead());
+            // 存储对象已写入, 失败的上传结果不在批量回滚范围内, 需要在此删除
+            deleteUploadedObject(ossService, file, visibility);
+            return new UploadResultVO(file.getId(), filename, conversion, false, "文件上传不完整");
+        }
+        file.setType(MimeTypeUtil.detect(inspector.getPrefix(), filename));
+        file.setContentHash(inspector.getSha256());
+        file.setCrc32c(inspector.getCrc32c());
+        file.setContentEncoding(fileDTO.getContentEncoding());
+        log.info("文件存储服务上传文件成功: {}", String.join("/", folderPath, filename));
+        return new UploadResultVO(file.getId(), filename, conversion, true, null);
+    }
+
+    /**
+     * 删除已上传到存储服务的对象
+     *
+     * @param ossService 存储服务
+     * @param file 文件信息
+     * @param visibility 能见度
+     * @return 是否删除成功
+     */
+    private boolean deleteUploadedObject(OssService ossService, MultipartFileDTO file, VisibilityEnum visibility) {
+        String objectPath = String.join("/", getStorageFolderPath(file), file.getFileName());
+        try {
+            if (ossService.deleteFile(file.getFileName(), getStorageFolderPath(file), visibility, file.getUserId().toString())) {
+                return true;
+            }
+            log.warn("删除已上传的存储对象失败: {}", objectPath);
+        } catch (Exception e) {
+            log.warn("删除已上传的存储对象失败: {}, 错误信息: {}", objectPath, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 批量保存文件元数据, 每 METADATA_BATCH_SIZE 个文件合并为一次写入
+     *
+     * @param files 文件列表
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param storageType 存储类型
+     */
+    private void saveFilesMetadata(List<MultipartFileDTO> files, String folderPath, VisibilityEnum visibility, StorageTypeEnum storageType) {
+        saveFileContents(files.stream().filter(file -> file.getContentHash() != null).toList(), visibility, storageType);
+
+        Map<Long, Long> folderIds = new HashMap<>();
+        List<FileMetadataEntity> metadata = files.stream()
+                .map(file -> new FileMetadataEntity(file.getId(), file.getUserId(), file.getFileName(), file.getType(),
+                        FileUtil.conversion(file.getSize()), file.getSize(), folderPath, null, storageType, visibility,
+                        file.getContentHash(), file.getCrc32c(), file.getContentEncoding(),
+                        folderIds.computeIfAbsent(file.getUserId(),
+                                userId -> folderTreeService.resolveFolderId(folderPath, storageType, visibility, userId))))
+                .toList();
+        for (List<FileMetadataEntity> batch : partition(metadata)) {
+            Integer row = metadataMapper.insertFiles(batch);
+            if (row == null || row < batch.size()) {
+                log.warn("数据库添加文件元数据失败，期望: {} 条, 实际: {} 条", batch.size(), row);
+                throw new OssException("数据库添加文件失败");
+            }
+        }
+        folderIds.keySet().forEach(userId -> folderListingCache.invalidate(userId, storageType, visibility, folderPath));
+        fileSearchIndex.addAll(metadata);
+        log.info("文件上传 元数据保存 成功，文件数: {}, 存储文件夹: {}", files.size(), folderPath);
+    }
+
+    /**
+     * 删除本批次已上传到存储服务的文件
+     *
+     * @param ossService 存储服务
+     * @param files 文件列表
+     * @param results 上传结果
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     */
+    private void rollbackUploadedFiles(OssService ossService, List<MultipartFileDTO> files, List<UploadResultVO> results,
+                                       String folderPath, VisibilityEnum visibility) {
+        int rolledBack = 0;
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).getSuccess()) {
+                continue;
+            }
+            MultipartFileDTO file = files.get(i);
+            if (file.isContentExists()) {
+                continue;
+            }
+            if (deleteUploadedObject(ossService, file, visibility)) {
+                rolledBack++;
+                log.info("已回滚上传的文件: {}", String.join("/", folderPath, file.getFileName()));
+            } else {
+                failed.add(file.getFileName());
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.warn("回滚上传的文件未全部完成, 已删除: {} 个, 删除失败: {}, 文件夹: {}", rolledBack, failed, folderPath);
+        }
+    }
+
+    /**
+     * 批量登记文件内容
+     * 本批次相同内容合并为一行并累加引用计数, 内容不存在时以其中第一个上传的对象作为内容;
+     * 写入后内容索引指向的不是本次上传的对象时, 说明内容已存储, 删除本次上传的对象
+     *
+     * @param files 带有内容 SHA-256 的文件列表
+     * @param visibility 能见度
+     * @param storageType 存储类型
+     */
+    private void saveFileContents(List<MultipartFileDTO> files, VisibilityEnum visibility, StorageTypeEnum storageType) {
+        Map<Long, Map<String, List<MultipartFileDTO>>> filesByOwner = files.stream()
+                .collect(Collectors.groupingBy(file -> getContentOwnerId(visibility, file.getUserId()), LinkedHashMap::new,
+                        Collectors.groupingBy(MultipartFileDTO::getContentHash, LinkedHashMap::new, Collectors.toList())));
+
+        for (Map.Entry<Long, Map<String, List<MultipartFileDTO>>> owner : filesByOwner.entrySet()) {
+            Long ownerId = owner.getKey();
+            Map<String, List<MultipartFileDTO>> filesByHash = owner.getValue();
+            List<FileContentEntity> contents = filesByHash.entrySet().stream()
+                    .map(group -> {
+                        MultipartFileDTO first = group.getValue().get(0);
+                        return new FileContentEntity(group.getKey(), storageType, visibility, ownerId, getStorageFolderPath(first),
+                                first.getFileName(), first.getSize(), first.getCrc32c(), first.getContentEncoding(),
+                                group.getValue().size(), null);
+                    })
+                    .toList();
+            for (List<FileContentEntity> batch : partition(contents)) {
+                metadataMapper.upsertContents(batch);
+            }
+
+            Map<String, FileContentEntity> storedContents = new HashMap<>();
+            for (List<String> batch : partition(new ArrayList<>(filesByHash.keySet()))) {
+                metadataMapper.listContentByHashes(batch, storageType, visibility, ownerId)
+                        .forEach(content -> storedContents.put(content.getContentHash(), content));
+            }
+
+            for (MultipartFileDTO file : filesByHash.values().stream().flatMap(List::stream).toList()) {
+                FileContentEntity content = storedContents.get(file.getContentHash());
+                if (content == null) {
+                    log.warn("文件内容登记失败: {}", file.getFileName());
+                    throw new OssException("数据库添加文件失败");
+                }
+                if (getStorageFolderPath(file).equals(content.getFolderPath()) && file.getFileName().equals(content.getFileName())) {
+                    continue;
+                }
+                // 内容已存储, 本次上传的对象不再被引用
+                file.setContentExists(true);
+                try {
+                    getCurrentStorageService().deleteFile(file.getFileName(), getStorageFolderPath(file), visibility, file.getUserId().toString());
+                    log.info("文件{}内容已存储，删除重复上传的对象", file.getFileName());
+                } catch (Exception e) {
+                    log.warn("删除重复上传的对象失败: {}, 错误信息: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 释放文件内容引用, 引用计数归零时在事务提交后删除存储对象
+     * 事务回滚时引用计数随之恢复, 存储对象必须仍然存在, 因此不能在事务内删除
+     *
+     * @param file 文件元数据
+     * @param storageType 存储类型
+     */
+    private void releaseContent(FileMetadataEntity file, StorageTypeEnum storageType) {
+        String contentHash = file.getContentHash();
+        VisibilityEnum visibility = file.getVisibility();
+        Long ownerId = getContentOwnerId(visibility, file.getUserId());
+        FileContentEntity content = metadataMapper.getContent(contentHash, storageType, visibility, ownerId);
+        if (ObjectUtils.isEmpty(content)) {
+            log.warn("文件内容索引不存在: {}", contentHash);
+            return;
+        }
+        metadataMapper.decrementContentRef(contentHash, storageType, visibility, ownerId);
+        if (metadataMapper.deleteUnreferencedContent(contentHash, storageType, visibility, ownerId) > 0) {
+            OssService ossService = getCurrentStorageService();
+            afterCommit(() -> deleteContentObject(ossService, content, storageType, ownerId));
+        }
+    }
+
+    /**
+     * 删除引用计数归零的存储对象, 此时元数据已提交, 删除失败只留下无引用的对象, 不影响其他文件
+     *
+     * @param ossService 存储服务
+     * @param content 文件内容索引
+     * @param storageType 存储类型
+     * @param ownerId 内容所属用户 ID
+     */
+    private void deleteContentObject(OssService ossService, FileContentEntity content, StorageTypeEnum storageType, Long ownerId) {
+        VisibilityEnum visibility = content.getVisibility();
+        objectDiskCache.invalidate(storageType, visibility, ownerId.toString(), content.getFolderPath(), content.getFileName());
+        try {
+            if (ossService.deleteFile(content.getFileName(), content.getFolderPath(), visibility, ownerId.toString())) {
+                log.info("文件内容引用归零，已删除存储对象: {}", content.getContentHash());
+            } else {
+                log.warn("文件内容引用归零，存储对象删除失败, 需人工清理: {}", content.getContentHash());
+            }
+        } catch (Exception e) {
+            log.warn("文件内容引用归零，存储对象删除失败, 需人工清理: {}, 错误信息: {}", content.getContentHash(), e.getMessage());
+        }
+    }
+
+    /**
+     * 将文件夹下的文件写出为 ZIP
+     * 已压缩的文件类型不再压缩; ZipOutputStream 要求 STORED 条目预先提供 CRC-32, 因此以 0 级压缩写出
+     *
+     * @param ossService 存储服务
+     * @param entryRoot ZIP 中的根目录名
+     * @param absolutePath 文件夹绝对路径
+     * @param folderId 文件夹 ID
+     * @param firstPage 第一页文件元数据
+     * @param outputStream 响应输出流
+     * @throws IOException 写出失败
+     */
+    private void writeFolderArchive(OssService ossService, String entryRoot, String absolutePath, Long folderId,
+                                    List<FileMetadataEntity> firstPage, OutputStream outputStream) throws IOException {
+        int pageSize = transferConfig.getArchivePageSize();
+        Deque<FileMetadataEntity> pending = new ArrayDeque<>(firstPage);
+        Deque<CompletableFuture<PrefetchedObject>> window = new ArrayDeque<>();
+        long lastId = firstPage.get(firstPage.size() - 1).getId();
+        boolean hasMore = firstPage.size() == pageSize;
+        int count = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        try {
+            while (true) {
+                // 预读窗口: 正在写出的文件之外, 最多同时读取 archivePrefetch 个后续文件
+                while (window.size() <= transferConfig.getArchivePrefetch()) {
+                    if (pending.isEmpty() && hasMore) {
+                        List<FileMetadataEntity> page = metadataMapper.listFileBySubtree(folderId, lastId, pageSize);
+                        hasMore = page.size() == pageSize;
+                        if (!page.isEmpty()) {
+                            lastId = page.get(page.size() - 1).getId();
+                            pending.addAll(page);
+                        }
+                    }
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    FileMetadataEntity next = pending.poll();
+                    window.add(transferExecutor.submitFile(() -> prefetchObject(ossService, next)));
+                }
+                if (window.isEmpty()) {
+                    break;
+                }
+
+                try (PrefetchedObject object = window.poll().join()) {
+                    if (object.inputStream() == null) {
+                        continue;
+                    }
+                    FileMetadataEntity metadata = object.metadata();
+                    String relativePath = metadata.getFolderPath().substring(absolutePath.length());
+                    ZipEntry entry = new ZipEntry(entryRoot + relativePath + "/" + metadata.getFileName());
+                    if (metadata.getLastUpdateDate() != null) {
+                        entry.setTimeLocal(metadata.getLastUpdateDate());
+                    }
+                    zip.setLevel(MimeTypeUtil.isCompressible(metadata.getFileType()) ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+                    zip.putNextEntry(entry);
+                    zip.write(object.head());
+                    object.inputStream().transferTo(zip);
+                    zip.closeEntry();
+                    count++;
+                }
+            }
+            zip.finish();
+            log.info("[打包下载操作] 文件夹打包完成: {}, 文件数: {}", absolutePath, count);
+        } catch (IOException | RuntimeException e) {
+            log.warn("[打包下载操作] 文件夹打包中断: {}, 错误信息: {}", absolutePath, e.getMessage());
+            throw e;
+        } finally {
+            // 释放已预读但未写出的文件
+            for (CompletableFuture<PrefetchedObject> future : window) {
+                future.thenAccept(PrefetchedObject::close);
+            }
+        }
+    }
+
+    /**
+     * 打开存储对象并预读开头部分
+     * 打开失败的文件会被跳过, 不中断整个打包
+     *
+     * @param ossService 存储服务
+     * @param metadata 文件元数据
+     * @return 预读结果
+     */
+    private PrefetchedObject prefetchObject(OssService ossService, FileMetadataEntity metadata) {
+        InputStream inputStream = null;
+        try {
+            FileMetadataEntity object = resolveStorageObject(metadata);
+            inputStream = openStorageObject(ossService, object);
+            // readNBytes 按实际读取量分配缓冲区, 小文件不会占满预读上限
+            byte[] head = inputStream.readNBytes(transferConfig.getArchivePrefetchBytes());
+            return new PrefetchedObject(metadata, head, inputStream);
+        } catch (IOException | RuntimeException e) {
+            log.warn("[打包下载操作] 读取文件失败, 已跳过: {}, 错误信息: {}", metadata.getFileName(), e.getMessage());
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException ex) {
+                    log.debug("关闭文件流失败", ex);
+                }
+            }
+            return new PrefetchedObject(metadata, null, null);
+        }
+    }
+
+    /**
+     * 打开存储对象, 云存储的对象经过本地磁盘缓存读取
+     *
+     * @param ossService 存储服务
+     * @param object 存储对象
+     * @return 对象内容的输入流
+     */
+    private InputStream openStorageObject(OssService ossService, FileMetadataEntity object) {
+        UploadFileDTO file = UploadFileDTO.builder()
+                .fileName(object.getFileName())
+                .folderPath(object.getFolderPath())
+                .visibility(object.getVisibility())
+                .userId(object.getUserId().toString())
+                .contentEncoding(object.getContentEncoding())
                 .build();
-        // 上传文件
-        boolean upload = getCurrentStorageService().uploadFile(fileDTO);
-        if (!upload) {
-            log.warn("文件上传失败");
-            throw new OssException("文件上传失败");
+        if (ossService instanceof LocalOssServiceImpl) {
+            return ossService.openObject(file);
         }
-        log.info("文件存储服务上传文件成功: {}", folderPath);
-        // 保存元数据到数据库
-        FileMetadataEntity metadata = new FileMetadataEntity(id, file.getUserId(), filename, file.getType(), conversion, folderPath, null, storageType, visibility);
+        return objectDiskCache.open(ossService.getStorageType(), file.getVisibility(), file.getUserId(), file.getFolderPath(),
+                file.getFileName(), () -> ossService.openObject(file));
+    }
 
-        Integer row = metadataMapper.insertFile(metadata);
+    /**
+     * 预读的存储对象
+     *
+     * @param metadata 文件元数据
+     * @param head 已读取的开头部分
+     * @param inputStream 剩余内容的输入流, 读取失败时为 null
+     */
+    private record PrefetchedObject(FileMetadataEntity metadata, byte[] head, InputStream inputStream)
+            implements AutoCloseable {
 
-        if (row <= 0) {
-            log.warn("数据库添加文件元数据失败，文件: {}", filename);
-            throw new OssException("数据库添加文件失败");
+        @Override
+        public void close() {
+            if (inputStream == null) {
+                return;
+            }
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.debug("关闭文件流失败", e);
+            }
+        }
+    }
+
+    /**
+     * 获取文件元数据对应的存储对象, 去重内容返回内容的存储位置
+     *
+     * @param metadata 文件元数据
+     * @return 存储对象的文件名、文件夹路径及所属用户
+     */
+    private FileMetadataEntity resolveStorageObject(FileMetadataEntity metadata) {
+        if (metadata.getContentHash() == null) {
+            return metadata;
         }
-        log.info("文件元数据保存到数据库成功，ID: {}", id);
+        Long ownerId = getContentOwnerId(metadata.getVisibility(), metadata.getUserId());
+        FileContentEntity content = metadataMapper.getContent(metadata.getContentHash(), metadata.getStorageType(), metadata.getVisibility(), ownerId);
+        if (ObjectUtils.isEmpty(content)) {
+            log.warn("文件内容索引不存在: {}", metadata.getContentHash());
+            throw new OssException("文件内容不存在");
+        }
+        return new FileMetadataEntity(metadata.getId(), ownerId, content.getFileName(), metadata.getFileType(), metadata.getFileSize(),
+                metadata.getFileSizeBytes(), content.getFolderPath(), metadata.getLastUpdateDate(), metadata.getStorageType(),
+                metadata.getVisibility(), metadata.getContentHash(), metadata.getCrc32c(), content.getContentEncoding(),
+                metadata.getFolderId());
+    }
 
-        log.info("文件上传 元数据保存 成功，文件名: {}, 存储文件夹: {}, ID: {}", filename, folderPath, id);
+    /**
+     * 关闭上传时打开的输入流
+     *
+     * @param inspector 输入流
+     * @param filename 文件名
+     */
+    private void closeInspector(InspectingInputStream inspector, String filename) {
+        if (inspector == null) {
+            return;
+        }
+        try {
+            inspector.close();
+        } catch (IOException e) {
+            log.warn("关闭上传文件输入流失败: {}, 错误信息: {}", filename, e.getMessage());
+        }
+    }
 
+    /**
+     * 删除未被转移的本地临时文件
+     *
+     * @param sourcePath 临时文件路径
+     */
+    private void deleteIngestFile(Path sourcePath) {
+        if (sourcePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(sourcePath);
+        } catch (IOException e) {
+            log.warn("删除本地临时文件失败: {}, 错误信息: {}", sourcePath, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取文件在存储服务中的文件夹路径, 文件按文件 ID 存放在内容目录下, 与用户可见的路径无关
+     *
+     * @param file 文件信息
+     * @return 存储文件夹路径
+     */
+    private String getStorageFolderPath(MultipartFileDTO file) {
+        return String.join("/", CONTENT_STORAGE_PATH, file.getId().toString());
+    }
+
+    /**
+     * 获取文件内容的所属用户, 私有文件只在同一用户内去重
+     *
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 内容所属用户 ID
+     */
+    private Long getContentOwnerId(VisibilityEnum visibility, Long userId) {
+        return visibility == VisibilityEnum.PRIVATE ? userId : 0L;
     }
 
     /**
@@ -482,6 +1303,42 @@ public class FileServiceImpl implements FileService {
         return file;
     }
 
+    /**
+     * 经元数据缓存获取文件元数据, 供预览、下载等只读路径使用, 私有文件只允许所属用户访问
+     *
+     * @param id 文件 ID
+     * @param visibility 能见度
+     * @param storageType 存储类型
+     * @return 文件元数据实体
+     */
+    private FileMetadataEntity getCachedFileMetadata(Long id, VisibilityEnum visibility, StorageTypeEnum storageType) {
+
+        FileMetadataEntity file = fileMetadataCache.get(id, storageType, visibility,
+                () -> metadataMapper.getFileMetadataById(id, storageType, visibility));
+
+        if (ObjectUtils.isEmpty(file)) {
+            log.warn("文件不存在");
+            throw new OssException("文件不存在");
+        }
+        checkReadPermission(file, visibility);
+        return file;
+    }
+
+    /**
+     * 校验当前用户能否读取文件
+     * 去重内容及签名 URL 按所属用户的存储对象访问, 不再经过当前用户的路径, 须在解析存储对象前校验
+     *
+     * @param file 文件元数据
+     * @param visibility 能见度
+     */
+    private void checkReadPermission(FileMetadataEntity file, VisibilityEnum visibility) {
+        Long userId = CurrentUser.getId();
+        if (visibility == VisibilityEnum.PRIVATE && !file.getUserId().equals(userId)) {
+            log.warn("用户:{} 访问其他用户的私有文件:{}", userId, file.getId());
+            throw new OssException("您没有权限访问该文件");
+        }
+    }
+
     /**
      * 检验指定文件夹下是否存在相同文件名的文件
      *
@@ -491,18 +1348,35 @@ public class FileServiceImpl implements FileService {
      * @param storageType 存储类型
      */
     private void checkFileExist(List<MultipartFileDTO> lists, VisibilityEnum visibility, String folderPath, StorageTypeEnum storageType) {
-        StringBuilder filenameList = new StringBuilder();
+        Set<String> fileNames = new LinkedHashSet<>();
+        Set<String> existFileNames = new LinkedHashSet<>();
         for (MultipartFileDTO file : lists) {
             file.setFileName(FileUtil.normalizeAndValidateFileName(file.getFileName()));
-            int row = metadataMapper.isExistFileByFileName(file.getFileName(), folderPath, storageType, visibility);
-            if (row > 0) {
-                filenameList.append(file.getFileName()).append(",");
+            if (!fileNames.add(file.getFileName())) {
+                // 同一批次内的重名文件
+                existFileNames.add(file.getFileName());
             }
         }
-        if (!filenameList.isEmpty()) {
-            filenameList.deleteCharAt(filenameList.lastIndexOf(","));
-            throw new OssException("文件名已存在: " + filenameList);
+        for (List<String> batch : partition(new ArrayList<>(fileNames))) {
+            existFileNames.addAll(metadataMapper.listExistFileNames(batch, folderPath, storageType, visibility));
+        }
+        if (!existFileNames.isEmpty()) {
+            throw new OssException("文件名已存在: " + String.join(",", existFileNames));
+        }
+    }
+
+    /**
+     * 按 METADATA_BATCH_SIZE 拆分列表, 限制单条 SQL 的大小
+     *
+     * @param list 列表
+     * @return 拆分后的列表视图
+     */
+    private static <T> List<List<T>> partition(List<T> list) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += METADATA_BATCH_SIZE) {
+            batches.add(list.subList(from, Math.min(from + METADATA_BATCH_SIZE, list.size())));
         }
+        return batches;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.sparkseries.module.oss.file.service.impl;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.cache.FolderListingCache;
+import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.file.entity.FolderMetadataEntity;
+import com.sparkseries.module.oss.file.service.FolderTreeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件夹树管理
+ */
+@Slf4j
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class FolderTreeServiceImpl implements FolderTreeService {
+
+    /**
+     * 顶层文件夹的父文件夹 ID
+     */
+    private static final long ROOT_ID = 0L;
+
+    private final MetadataMapper metadataMapper;
+
+    private final FolderListingCache folderListingCache;
+
+    public FolderTreeServiceImpl(MetadataMapper metadataMapper, FolderListingCache folderListingCache) {
+        this.metadataMapper = metadataMapper;
+        this.folderListingCache = folderListingCache;
+    }
+
+    /**
+     * 根据完整路径查询文件夹
+     *
+     * @param path 文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件夹元数据, 不存在时为 null
+     */
+    @Override
+    public FolderMetadataEntity getFolder(String path, StorageTypeEnum storageType, VisibilityEnum visibility, Long userId) {
+        return metadataMapper.getFolderByPath(parentOf(path), nameOf(path), storageType, visibility, userId);
+    }
+
+    /**
+     * 获取文件夹 ID, 文件夹及其祖先不存在时依次创建
+     *
+     * @param path 文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件夹 ID
+     */
+    @Override
+    public Long resolveFolderId(String path, StorageTypeEnum storageType, VisibilityEnum visibility, Long userId) {
+        FolderMetadataEntity folder = getFolder(path, storageType, visibility, userId);
+        if (folder != null) {
+            return folder.getId();
+        }
+        String parentPath = parentOf(path);
+        long parentId = parentPath.isEmpty() ? ROOT_ID : resolveFolderId(parentPath, storageType, visibility, userId);
+        return insertFolder(parentId, parentPath, nameOf(path), storageType, visibility, userId).getId();
+    }
+
+    /**
+     * 在指定父文件夹下创建文件夹, 父文件夹不存在时依次创建
+     *
+     * @param folderName 文件夹名
+     * @param folderPath 父文件夹完整路径
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 新建的文件夹元数据, 文件夹已存在时为 null
+     */
+    @Override
+    public FolderMetadataEntity createFolder(String folderName, String folderPath, StorageTypeEnum storageType,
+                                             VisibilityEnum visibility, Long userId) {
+        long parentId = folderPath.isEmpty() ? ROOT_ID : resolveFolderId(folderPath, storageType, visibility, userId);
+        return tryInsertFolder(parentId, folderPath, folderName, storageType, visibility, userId);
+    }
+
+    /**
+     * 删除文件夹子树中的文件及文件夹元数据
+     * 文件及文件夹通过祖先关系定位, 祖先关系最后删除
+     *
+     * @param folderId 子树根文件夹 ID
+     * @return 删除的文件元数据数量
+     */
+    @Override
+    public int deleteSubtree(Long folderId) {
+        int row = metadataMapper.deleteFileBySubtree(folderId);
+        metadataMapper.deleteFolderBySubtree(folderId);
+        metadataMapper.deleteFolderClosureBySubtree(folderId);
+        log.info("[文件夹树] 删除子树: {}, 文件数: {}", folderId, row);
+        return row;
+    }
+
+    /**
+     * 添加文件夹, 并发创建同一文件夹时返回已存在的文件夹
+     *
+     * @param parentId 父文件夹 ID
+     * @param parentPath 父文件夹完整路径
+     * @param folderName 文件夹名
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 文件夹元数据
+     */
+    private FolderMetadataEntity insertFolder(long parentId, String parentPath, String folderName, StorageTypeEnum storageType,
+                                              VisibilityEnum visibility, Long userId) {
+        FolderMetadataEntity folder = tryInsertFolder(parentId, parentPath, folderName, storageType, visibility, userId);
+        if (folder == null) {
+            folder = metadataMapper.getFolderByPath(parentPath, folderName, storageType, visibility, userId);
+        }
+        if (folder == null) {
+            log.warn("[文件夹树] 添加文件夹失败: {}/{}", parentPath, folderName);
+            throw new OssException("数据库中添加文件夹相关信息失败");
+        }
+        return folder;
+    }
+
+    /**
+     * 添加文件夹及其祖先关系
+     *
+     * @param parentId 父文件夹 ID
+     * @param parentPath 父文件夹完整路径
+     * @param folderName 文件夹名
+     * @param storageType 存储类型
+     * @param visibility 能见度
+     * @param userId 用户 ID
+     * @return 新建的文件夹元数据, 文件夹已存在时为 null
+     */
+    private FolderMetadataEntity tryInsertFolder(long parentId, String parentPath, String folderName, StorageTypeEnum storageType,
+                                                 VisibilityEnum visibility, Long userId) {
+        FolderMetadataEntity folder = new FolderMetadataEntity(IdWorker.getId(), userId, folderName, parentPath,
+                LocalDateTime.now(), storageType, visibility, parentId);
+        if (metadataMapper.insertFolder(folder) <= 0) {
+            return null;
+        }
+        metadataMapper.insertFolderClosure(folder.getId(), parentId);
+        folderListingCache.invalidate(userId, storageType, visibility, parentPath);
+        return folder;
+    }
+
+    private static String parentOf(String path) {
+        int index = path.lastIndexOf('/');
+        return index < 0 ? "" : path.substring(0, index);
+    }
+
+    private static String nameOf(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+}
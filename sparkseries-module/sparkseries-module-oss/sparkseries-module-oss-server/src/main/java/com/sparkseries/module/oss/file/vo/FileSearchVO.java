@@ -0,0 +1,27 @@
+package com.sparkseries.module.oss.file.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文件搜索结果
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "文件搜索结果")
+public class FileSearchVO {
+
+    @Schema(description = "文件 id")
+    private String id;
+    @Schema(description = "文件名")
+    private String fileName;
+    @Schema(description = "文件类型")
+    private String fileType;
+    @Schema(description = "文件大小")
+    private String fileSize;
+    @Schema(description = "文件所在文件夹路径")
+    private String folderPath;
+    @Schema(description = "最后更新时间")
+    private String lastUpdateDate;
+}
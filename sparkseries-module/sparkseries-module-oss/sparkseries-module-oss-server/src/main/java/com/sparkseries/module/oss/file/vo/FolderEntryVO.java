@@ -0,0 +1,35 @@
+package com.sparkseries.module.oss.file.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文件夹条目信息, 子文件夹在前, 文件在后
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "文件夹条目信息")
+public class FolderEntryVO {
+
+    /**
+     * 子文件夹条目类型
+     */
+    public static final String FOLDER = "FOLDER";
+
+    /**
+     * 文件条目类型
+     */
+    public static final String FILE = "FILE";
+
+    @Schema(description = "条目类型: FOLDER 子文件夹, FILE 文件")
+    private String type;
+    @Schema(description = "文件或文件夹 id")
+    private String id;
+    @Schema(description = "文件名或文件夹名")
+    private String name;
+    @Schema(description = "文件大小, 文件夹为空")
+    private String fileSize;
+    @Schema(description = "最后更新时间")
+    private String lastUpdateDate;
+}
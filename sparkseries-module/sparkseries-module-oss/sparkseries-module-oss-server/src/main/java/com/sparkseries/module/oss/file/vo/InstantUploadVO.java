@@ -0,0 +1,23 @@
+package com.sparkseries.module.oss.file.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 秒传结果
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "秒传结果")
+public class InstantUploadVO {
+    @Schema(description = "文件内容是否已存在, 不存在时需正常上传")
+    private Boolean hit;
+    @Schema(description = "文件 id, 未命中时为空")
+    private String id;
+
+    public InstantUploadVO(Boolean hit, Long id) {
+        this.hit = hit;
+        this.id = id == null ? null : id.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.sparkseries.module.oss.file.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 预签名上传地址
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "预签名上传地址")
+public class PresignedUploadVO {
+    @Schema(description = "分片序号, 整体上传时为 1")
+    private Integer partNumber;
+    @Schema(description = "请求方法")
+    private String method;
+    @Schema(description = "上传地址")
+    private String url;
+    @Schema(description = "请求需携带的请求头")
+    private Map<String, String> headers;
+    @Schema(description = "表单上传需携带的表单字段")
+    private Map<String, String> formFields;
+}
@@ -0,0 +1,32 @@
+package com.sparkseries.module.oss.file.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个文件上传结果
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "单个文件上传结果")
+public class UploadResultVO {
+    @Schema(description = "文件 id")
+    private String id;
+    @Schema(description = "文件名")
+    private String fileName;
+    @Schema(description = "文件大小")
+    private String fileSize;
+    @Schema(description = "是否上传成功")
+    private Boolean success;
+    @Schema(description = "失败原因")
+    private String message;
+
+    public UploadResultVO(Long id, String fileName, String fileSize, Boolean success, String message) {
+        this.id = id.toString();
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.success = success;
+        this.message = message;
+    }
+}
@@ -0,0 +1,160 @@
+package com.sparkseries.module.oss.multipart.controller;
+
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.common.util.entity.Result;
+import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.common.util.MimeTypeUtil;
+import com.sparkseries.module.oss.multipart.service.MultipartUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 分片上传管理
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/user/multipart")
+@RequiredArgsConstructor
+@Tag(name = "分片上传管理")
+public class MultipartUploadController {
+
+    private final MultipartUploadService multipartUploadService;
+
+    /**
+     * 初始化分片上传
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型, 为空时根据文件名推断
+     * @return 分片上传任务 id
+     */
+    @PostMapping("init")
+    @Operation(summary = "初始化分片上传")
+    public Result<?> initiateUpload(@RequestParam("fileName") @NotBlank(message = "文件名不能为空") String fileName,
+                                    @RequestParam("folderPath") @NotBlank(message = "文件夹路径不能为空") String folderPath,
+                                    @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                    @RequestParam("size") @NotNull(message = "文件大小不能为空") @Min(value = 1, message = "文件大小必须大于0") Long size,
+                                    @RequestParam(value = "type", required = false) String type) {
+        if (StringUtils.isBlank(type)) {
+            type = MimeTypeUtil.detect(fileName);
+        }
+        return multipartUploadService.initiateUpload(fileName, folderPath, visibility, size, type);
+    }
+
+    /**
+     * 上传单个分片, 请求体为分片的原始字节
+     *
+     * @param id 分片上传任务 id
+     * @param partNumber 分片序号
+     * @param request 请求
+     * @return 分片信息
+     */
+    @PutMapping("{id}/parts/{partNumber}")
+    @Operation(summary = "上传分片")
+    public Result<?> uploadPart(@PathVariable("id") @NotNull(message = "请输入上传任务id") Long id,
+                                @PathVariable("partNumber") @Min(value = 1, message = "分片序号从1开始") @Max(value = 10000, message = "分片序号不能超过10000") Integer partNumber,
+                                HttpServletRequest request) {
+        long size = request.getContentLengthLong();
+        if (size <= 0) {
+            throw new OssException("请求缺少 Content-Length 或分片为空");
+        }
+        try (InputStream inputStream = request.getInputStream()) {
+            return multipartUploadService.uploadPart(id, partNumber, inputStream, size);
+        } catch (IOException e) {
+            log.warn("分片上传失败", e);
+            throw new OssException("分片上传失败", e);
+        }
+    }
+
+    /**
+     * 列出已上传的分片
+     *
+     * @param id 分片上传任务 id
+     * @return 分片列表
+     */
+    @GetMapping("{id}/parts")
+    @Operation(summary = "列出已上传的分片")
+    public Result<?> listParts(@PathVariable("id") @NotNull(message = "请输入上传任务id") Long id) {
+        return multipartUploadService.listParts(id);
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 文件 id
+     */
+    @PostMapping("{id}/complete")
+    @Operation(summary = "完成分片上传")
+    public Result<?> completeUpload(@PathVariable("id") @NotNull(message = "请输入上传任务id") Long id) {
+        return multipartUploadService.completeUpload(id);
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 取消结果
+     */
+    @DeleteMapping("{id}")
+    @Operation(summary = "取消分片上传")
+    public Result<?> abortUpload(@PathVariable("id") @NotNull(message = "请输入上传任务id") Long id) {
+        return multipartUploadService.abortUpload(id);
+    }
+
+    /**
+     * 创建直传任务, 客户端使用返回的地址直接上传到存储服务, 上传完成后调用回调接口
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型, 为空时根据文件名推断
+     * @return 直传任务及各分片的上传地址
+     */
+    @PostMapping("presign")
+    @Operation(summary = "创建直传任务")
+    public Result<?> presignUpload(@RequestParam("fileName") @NotBlank(message = "文件名不能为空") String fileName,
+                                   @RequestParam("folderPath") @NotBlank(message = "文件夹路径不能为空") String folderPath,
+                                   @RequestParam(defaultValue = "PRIVATE") VisibilityEnum visibility,
+                                   @RequestParam("size") @NotNull(message = "文件大小不能为空") @Min(value = 1, message = "文件大小必须大于0") Long size,
+                                   @RequestParam(value = "type", required = false) String type) {
+        if (StringUtils.isBlank(type)) {
+            type = MimeTypeUtil.detect(fileName);
+        }
+        return multipartUploadService.presignUpload(fileName, folderPath, visibility, size, type);
+    }
+
+    /**
+     * 直传完成回调
+     *
+     * @param id 上传任务 id
+     * @param etag 整体上传时存储服务返回的 ETag
+     * @param partETags 分片序号与分片 ETag 的映射, 分片直传时必填
+     * @return 文件 id
+     */
+    @PostMapping("{id}/callback")
+    @Operation(summary = "直传完成回调")
+    public Result<?> completeDirectUpload(@PathVariable("id") @NotNull(message = "请输入上传任务id") Long id,
+                                          @RequestParam(value = "etag", required = false) String etag,
+                                          @RequestBody(required = false) Map<Integer, String> partETags) {
+        return multipartUploadService.completeDirectUpload(id, partETags, etag);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sparkseries.module.oss.multipart.dao;
+
+import com.sparkseries.module.oss.multipart.entity.MultipartPartEntity;
+import com.sparkseries.module.oss.multipart.entity.MultipartUploadEntity;
+import com.sparkseries.module.oss.multipart.vo.MultipartPartVO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 分片上传管理
+ */
+@Mapper
+public interface MultipartUploadMapper {
+
+    // -------------------------------分片上传任务相关操作----------------------------------
+
+    /**
+     * 添加分片上传任务
+     *
+     * @param upload 分片上传任务
+     * @return 受影响行数
+     */
+    Integer insertUpload(@Param("upload") MultipartUploadEntity upload);
+
+    /**
+     * 根据 ID 获取分片上传任务
+     *
+     * @param id 分片上传任务 ID
+     * @return 分片上传任务
+     */
+    MultipartUploadEntity getUploadById(@Param("id") Long id);
+
+    /**
+     * 根据 ID 删除分片上传任务
+     *
+     * @param id 分片上传任务 ID
+     * @return 受影响行数
+     */
+    Integer deleteUploadById(@Param("id") Long id);
+
+    // -------------------------------分片相关操作----------------------------------
+
+    /**
+     * 保存分片信息, 同一分片重复上传时覆盖
+     *
+     * @param part 分片信息
+     * @return 受影响行数
+     */
+    Integer upsertPart(@Param("part") MultipartPartEntity part);
+
+    /**
+     * 按分片序号列出已上传的分片
+     *
+     * @param uploadId 分片上传任务 ID
+     * @return 分片列表
+     */
+    List<MultipartPartVO> listPartsByUploadId(@Param("uploadId") Long uploadId);
+
+    /**
+     * 删除分片上传任务下的全部分片
+     *
+     * @param uploadId 分片上传任务 ID
+     * @return 受影响行数
+     */
+    Integer deletePartsByUploadId(@Param("uploadId") Long uploadId);
+}
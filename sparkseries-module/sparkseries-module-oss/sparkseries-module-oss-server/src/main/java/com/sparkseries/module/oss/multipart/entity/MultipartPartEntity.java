@@ -0,0 +1,28 @@
+package com.sparkseries.module.oss.multipart.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已上传的分片
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "已上传的分片")
+public class MultipartPartEntity {
+    @Schema(description = "分片上传任务 id")
+    private Long uploadId;
+    @Schema(description = "分片序号")
+    private Integer partNumber;
+    @Schema(description = "分片大小(字节)")
+    private Long partSize;
+    @Schema(description = "分片 ETag")
+    private String etag;
+    @Schema(description = "最后更新时间")
+    private LocalDateTime lastUpdateDate;
+}
@@ -0,0 +1,40 @@
+package com.sparkseries.module.oss.multipart.entity;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传任务
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "分片上传任务")
+public class MultipartUploadEntity {
+    @Schema(description = "分片上传任务 id")
+    private Long id;
+    @Schema(description = "用户 id")
+    private Long userId;
+    @Schema(description = "存储服务的分片上传 id")
+    private String uploadId;
+    @Schema(description = "文件名")
+    private String fileName;
+    @Schema(description = "文件类型")
+    private String fileType;
+    @Schema(description = "文件大小(字节)")
+    private Long fileSize;
+    @Schema(description = "文件存储的文件夹路径")
+    private String folderPath;
+    @Schema(description = "存储类型")
+    private StorageTypeEnum storageType;
+    @Schema(description = "能见度")
+    private VisibilityEnum visibility;
+    @Schema(description = "创建时间")
+    private LocalDateTime createDate;
+}
@@ -0,0 +1,82 @@
+package com.sparkseries.module.oss.multipart.service;
+
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.common.util.entity.Result;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 分片上传管理
+ */
+public interface MultipartUploadService {
+
+    /**
+     * 初始化分片上传
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 分片上传任务 id
+     */
+    Result<?> initiateUpload(String fileName, String folderPath, VisibilityEnum visibility, Long size, String type);
+
+    /**
+     * 上传单个分片, 同一分片可重复上传
+     *
+     * @param id 分片上传任务 id
+     * @param partNumber 分片序号
+     * @param inputStream 分片数据
+     * @param size 分片大小(字节)
+     * @return 分片信息
+     */
+    Result<?> uploadPart(Long id, int partNumber, InputStream inputStream, long size);
+
+    /**
+     * 列出已上传的分片, 用于断点续传
+     *
+     * @param id 分片上传任务 id
+     * @return 分片列表
+     */
+    Result<?> listParts(Long id);
+
+    /**
+     * 完成分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 文件 id
+     */
+    Result<?> completeUpload(Long id);
+
+    /**
+     * 取消分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 取消结果
+     */
+    Result<?> abortUpload(Long id);
+
+    /**
+     * 创建直传任务, 返回客户端直接上传到存储服务的预签名地址
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 直传任务及各分片的上传地址
+     */
+    Result<?> presignUpload(String fileName, String folderPath, VisibilityEnum visibility, Long size, String type);
+
+    /**
+     * 直传完成回调, 校验存储服务中的对象后保存文件元数据
+     *
+     * @param id 上传任务 id
+     * @param partETags 分片序号与分片 ETag 的映射, 整体上传时为空
+     * @param etag 整体上传时存储服务返回的 ETag, 为空时不校验
+     * @return 文件 id
+     */
+    Result<?> completeDirectUpload(Long id, Map<Integer, String> partETags, String etag);
+}
@@ -0,0 +1,437 @@
+package com.sparkseries.module.oss.multipart.service.impl;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.ObjectUtils;
+import com.sparkeries.dto.UploadFileDTO;
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.common.security.util.CurrentUser;
+import com.sparkseries.common.util.entity.Result;
+import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.FolderListingCache;
+import com.sparkseries.module.oss.common.exception.OssException;
+import com.sparkseries.module.oss.common.search.FileSearchIndex;
+import com.sparkseries.module.oss.common.util.FileUtil;
+import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
+import com.sparkseries.module.oss.file.service.FolderTreeService;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
+import com.sparkseries.module.oss.multipart.dao.MultipartUploadMapper;
+import com.sparkseries.module.oss.multipart.entity.MultipartPartEntity;
+import com.sparkseries.module.oss.multipart.entity.MultipartUploadEntity;
+import com.sparkseries.module.oss.multipart.service.MultipartUploadService;
+import com.sparkseries.module.oss.multipart.vo.DirectUploadVO;
+import com.sparkseries.module.oss.multipart.vo.MultipartPartVO;
+import com.sparkseries.module.oss.switching.DynamicStorageSwitchService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.util.*;
+
+import static com.sparkeries.constant.Constants.DIRECT_UPLOAD_EXPIRE_SECONDS;
+import static com.sparkeries.constant.Constants.DIRECT_UPLOAD_PART_SIZE;
+import static com.sparkeries.constant.Constants.MULTIPART_MAX_PARTS;
+
+/**
+ * 分片上传管理
+ */
+@Slf4j
+@Service
+@Transactional(rollbackFor = Exception.class)
+public class MultipartUploadServiceImpl implements MultipartUploadService {
+
+    private final MultipartUploadMapper multipartUploadMapper;
+
+    private final MetadataMapper metadataMapper;
+
+    private final DynamicStorageSwitchService provider;
+
+    private final FolderTreeService folderTreeService;
+
+    private final FolderListingCache folderListingCache;
+
+    private final FileSearchIndex fileSearchIndex;
+
+    public MultipartUploadServiceImpl(MultipartUploadMapper multipartUploadMapper, MetadataMapper metadataMapper,
+                                      DynamicStorageSwitchService provider, FolderTreeService folderTreeService,
+                                      FolderListingCache folderListingCache, FileSearchIndex fileSearchIndex) {
+        this.multipartUploadMapper = multipartUploadMapper;
+        this.metadataMapper = metadataMapper;
+        this.provider = provider;
+        this.folderTreeService = folderTreeService;
+        this.folderListingCache = folderListingCache;
+        this.fileSearchIndex = fileSearchIndex;
+    }
+
+    /**
+     * 获取当前存储服务实例
+     *
+     * @return 当前激活的存储服务
+     */
+    private OssService getCurrentStorageService() {
+        return provider.getCurrentStrategy();
+    }
+
+    /**
+     * 初始化分片上传
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 分片上传任务 id
+     */
+    @Override
+    public Result<?> initiateUpload(String fileName, String folderPath, VisibilityEnum visibility, Long size, String type) {
+        Long userId = CurrentUser.getId();
+        fileName = FileUtil.normalizeAndValidateFileName(fileName);
+        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+
+        OssService ossService = getCurrentStorageService();
+        StorageTypeEnum storageType = ossService.getStorageType();
+
+        int row = metadataMapper.isExistFileByFileName(fileName, folderPath, storageType, visibility);
+        if (row > 0) {
+            throw new OssException("文件名已存在: " + fileName);
+        }
+
+        UploadFileDTO fileDTO = UploadFileDTO.builder()
+                .userId(userId.toString())
+                .fileName(fileName)
+                .size(size)
+                .folderPath(folderPath)
+                .visibility(visibility)
+                .build();
+        String uploadId = ossService.initiateMultipartUpload(fileDTO);
+
+        long id = IdWorker.getId();
+        MultipartUploadEntity upload = new MultipartUploadEntity(id, userId, uploadId, fileName, type, size, folderPath, storageType, visibility, null);
+        if (multipartUploadMapper.insertUpload(upload) <= 0) {
+            log.warn("数据库添加分片上传任务失败，文件: {}", fileName);
+            throw new OssException("数据库添加分片上传任务失败");
+        }
+        log.info("分片上传任务初始化成功，任务 ID: {}，文件: {}", id, String.join("/", folderPath, fileName));
+        return Result.ok("分片上传初始化成功", String.valueOf(id));
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param id 分片上传任务 id
+     * @param partNumber 分片序号
+     * @param inputStream 分片数据
+     * @param size 分片大小(字节)
+     * @return 分片信息
+     */
+    @Override
+    public Result<?> uploadPart(Long id, int partNumber, InputStream inputStream, long size) {
+        MultipartUploadEntity upload = getUpload(id);
+        requireMultipart(upload);
+
+        UploadFileDTO partDTO = toUploadFileDTO(upload);
+        partDTO.setInputStream(inputStream);
+        partDTO.setSize(size);
+        String etag = getCurrentStorageService().uploadPart(partDTO, upload.getUploadId(), partNumber);
+
+        multipartUploadMapper.upsertPart(new MultipartPartEntity(id, partNumber, size, etag, null));
+        log.debug("分片上传成功，任务 ID: {}，分片序号: {}，大小: {} bytes", id, partNumber, size);
+        return Result.ok("分片上传成功", new MultipartPartVO(partNumber, size, etag));
+    }
+
+    /**
+     * 列出已上传的分片
+     *
+     * @param id 分片上传任务 id
+     * @return 分片列表
+     */
+    @Override
+    public Result<?> listParts(Long id) {
+        getUpload(id);
+        return Result.ok("获取成功", multipartUploadMapper.listPartsByUploadId(id));
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 文件 id
+     */
+    @Override
+    public Result<?> completeUpload(Long id) {
+        MultipartUploadEntity upload = getUpload(id);
+        requireMultipart(upload);
+
+        List<MultipartPartVO> parts = multipartUploadMapper.listPartsByUploadId(id);
+        if (parts.isEmpty()) {
+            throw new OssException("尚未上传任何分片");
+        }
+
+        Map<Integer, String> partETags = new LinkedHashMap<>(parts.size());
+        long totalSize = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            MultipartPartVO part = parts.get(i);
+            if (part.getPartNumber() != i + 1) {
+                throw new OssException("分片不连续，缺少分片: " + (i + 1));
+            }
+            partETags.put(part.getPartNumber(), part.getEtag());
+            totalSize += part.getPartSize();
+        }
+        if (upload.getFileSize() != null && upload.getFileSize() != totalSize) {
+            throw new OssException(String.format("文件大小不匹配，期望: %d bytes, 实际: %d bytes", upload.getFileSize(), totalSize));
+        }
+
+        int row = metadataMapper.isExistFileByFileName(upload.getFileName(), upload.getFolderPath(), upload.getStorageType(), upload.getVisibility());
+        if (row > 0) {
+            throw new OssException("文件名已存在: " + upload.getFileName());
+        }
+
+        boolean complete = getCurrentStorageService().completeMultipartUpload(toUploadFileDTO(upload), upload.getUploadId(), partETags);
+        if (!complete) {
+            throw new OssException("分片合并失败");
+        }
+
+        Long folderId = folderTreeService.resolveFolderId(upload.getFolderPath(), upload.getStorageType(), upload.getVisibility(),
+                upload.getUserId());
+        FileMetadataEntity metadata = new FileMetadataEntity(id, upload.getUserId(), upload.getFileName(), upload.getFileType(),
+                FileUtil.conversion(totalSize), totalSize, upload.getFolderPath(), null, upload.getStorageType(), upload.getVisibility(), null, null, null,
+                folderId);
+        if (metadataMapper.insertFile(metadata) <= 0) {
+            log.warn("数据库添加文件元数据失败，文件: {}", upload.getFileName());
+            throw new OssException("数据库添加文件失败");
+        }
+        folderListingCache.invalidate(upload.getUserId(), upload.getStorageType(), upload.getVisibility(), upload.getFolderPath());
+        fileSearchIndex.add(metadata);
+        removeUpload(id);
+        log.info("分片上传完成，文件 ID: {}，文件: {}，分片数: {}", id, upload.getFileName(), parts.size());
+        return Result.ok("文件上传成功", String.valueOf(id));
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param id 分片上传任务 id
+     * @return 取消结果
+     */
+    @Override
+    public Result<?> abortUpload(Long id) {
+        MultipartUploadEntity upload = getUpload(id);
+        if (upload.getUploadId() != null) {
+            getCurrentStorageService().abortMultipartUpload(toUploadFileDTO(upload), upload.getUploadId());
+        } else if (metadataMapper.isExistFileByFileName(upload.getFileName(), upload.getFolderPath(), upload.getStorageType(), upload.getVisibility()) == 0) {
+            deleteDirectUploadedObject(upload);
+        }
+        removeUpload(id);
+        log.info("分片上传已取消，任务 ID: {}", id);
+        return Result.ok("分片上传已取消");
+    }
+
+    /**
+     * 创建直传任务
+     * <p>
+     * 文件不超过一个分片时返回整体上传地址, 否则在存储服务初始化分片上传并返回每个分片的上传地址
+     *
+     * @param fileName 文件名
+     * @param folderPath 文件存储的文件夹路径
+     * @param visibility 能见度
+     * @param size 文件大小(字节)
+     * @param type 文件类型
+     * @return 直传任务及各分片的上传地址
+     */
+    @Override
+    public Result<?> presignUpload(String fileName, String folderPath, VisibilityEnum visibility, Long size, String type) {
+        Long userId = CurrentUser.getId();
+        fileName = FileUtil.normalizeAndValidateFileName(fileName);
+        folderPath = FileUtil.normalizeAndValidateFolderPath(folderPath);
+
+        OssService ossService = getCurrentStorageService();
+        StorageTypeEnum storageType = ossService.getStorageType();
+        if (storageType == StorageTypeEnum.LOCAL) {
+            throw new OssException("本地存储不支持直传, 请使用服务端上传");
+        }
+
+        int row = metadataMapper.isExistFileByFileName(fileName, folderPath, storageType, visibility);
+        if (row > 0) {
+            throw new OssException("文件名已存在: " + fileName);
+        }
+
+        UploadFileDTO fileDTO = UploadFileDTO.builder()
+                .userId(userId.toString())
+                .fileName(fileName)
+                .size(size)
+                .folderPath(folderPath)
+                .visibility(visibility)
+                .build();
+
+        long partSize = Math.max(DIRECT_UPLOAD_PART_SIZE, (size + MULTIPART_MAX_PARTS - 1) / MULTIPART_MAX_PARTS);
+        String uploadId = null;
+        List<PresignedUploadVO> parts;
+        if (size <= partSize) {
+            partSize = size;
+            parts = List.of(ossService.presignUpload(fileDTO, null, 1, DIRECT_UPLOAD_EXPIRE_SECONDS));
+        } else {
+            uploadId = ossService.initiateMultipartUpload(fileDTO);
+            int partCount = (int) ((size + partSize - 1) / partSize);
+            parts = new ArrayList<>(partCount);
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                parts.add(ossService.presignUpload(fileDTO, uploadId, partNumber, DIRECT_UPLOAD_EXPIRE_SECONDS));
+            }
+        }
+
+        long id = IdWorker.getId();
+        MultipartUploadEntity upload = new MultipartUploadEntity(id, userId, uploadId, fileName, type, size, folderPath, storageType, visibility, null);
+        if (multipartUploadMapper.insertUpload(upload) <= 0) {
+            log.warn("数据库添加直传任务失败，文件: {}", fileName);
+            if (uploadId != null) {
+                ossService.abortMultipartUpload(fileDTO, uploadId);
+            }
+            throw new OssException("数据库添加直传任务失败");
+        }
+        log.info("直传任务创建成功，任务 ID: {}，文件: {}，分片数: {}", id, String.join("/", folderPath, fileName), parts.size());
+        return Result.ok("直传任务创建成功", new DirectUploadVO(id, partSize, parts));
+    }
+
+    /**
+     * 直传完成回调
+     * <p>
+     * 分片直传时先合并分片, 然后读取存储服务中对象的大小(及整体上传的 ETag)与任务比对,
+     * 不一致时删除对象, 一致时保存文件元数据
+     *
+     * @param id 上传任务 id
+     * @param partETags 分片序号与分片 ETag 的映射, 整体上传时为空
+     * @param etag 整体上传时存储服务返回的 ETag, 为空时不校验
+     * @return 文件 id
+     */
+    @Override
+    public Result<?> completeDirectUpload(Long id, Map<Integer, String> partETags, String etag) {
+        MultipartUploadEntity upload = getUpload(id);
+        OssService ossService = getCurrentStorageService();
+        UploadFileDTO fileDTO = toUploadFileDTO(upload);
+
+        int row = metadataMapper.isExistFileByFileName(upload.getFileName(), upload.getFolderPath(), upload.getStorageType(), upload.getVisibility());
+        if (row > 0) {
+            throw new OssException("文件名已存在: " + upload.getFileName());
+        }
+
+        if (upload.getUploadId() != null) {
+            if (ObjectUtils.isEmpty(partETags)) {
+                throw new OssException("请提交已上传分片的 ETag");
+            }
+            Map<Integer, String> sortedETags = new TreeMap<>(partETags);
+            int expected = 1;
+            for (Integer partNumber : sortedETags.keySet()) {
+                if (partNumber != expected++) {
+                    throw new OssException("分片不连续，缺少分片: " + (expected - 1));
+                }
+            }
+            if (!ossService.completeMultipartUpload(fileDTO, upload.getUploadId(), sortedETags)) {
+                throw new OssException("分片合并失败");
+            }
+        }
+
+        ObjectStatDTO stat = ossService.statObject(fileDTO);
+        if (!stat.getSize().equals(upload.getFileSize())) {
+            deleteDirectUploadedObject(upload);
+            throw new OssException(String.format("文件大小不匹配，期望: %d bytes, 实际: %d bytes", upload.getFileSize(), stat.getSize()));
+        }
+        if (upload.getUploadId() == null && StringUtils.isNotBlank(etag) && stat.getEtag() != null
+                && !StringUtils.strip(etag, "\"").equalsIgnoreCase(StringUtils.strip(stat.getEtag(), "\""))) {
+            deleteDirectUploadedObject(upload);
+            throw new OssException("文件校验失败, ETag 不匹配");
+        }
+
+        Long folderId = folderTreeService.resolveFolderId(upload.getFolderPath(), upload.getStorageType(), upload.getVisibility(),
+                upload.getUserId());
+        FileMetadataEntity metadata = new FileMetadataEntity(id, upload.getUserId(), upload.getFileName(), upload.getFileType(),
+                FileUtil.conversion(stat.getSize()), stat.getSize(), upload.getFolderPath(), null, upload.getStorageType(), upload.getVisibility(), null, null, null,
+                folderId);
+        if (metadataMapper.insertFile(metadata) <= 0) {
+            log.warn("数据库添加文件元数据失败，文件: {}", upload.getFileName());
+            throw new OssException("数据库添加文件失败");
+        }
+        folderListingCache.invalidate(upload.getUserId(), upload.getStorageType(), upload.getVisibility(), upload.getFolderPath());
+        fileSearchIndex.add(metadata);
+        removeUpload(id);
+        log.info("直传完成，文件 ID: {}，文件: {}，大小: {} bytes", id, upload.getFileName(), stat.getSize());
+        return Result.ok("文件上传成功", String.valueOf(id));
+    }
+
+    // 私有方法
+
+    /**
+     * 获取当前用户的分片上传任务
+     *
+     * @param id 分片上传任务 id
+     * @return 分片上传任务
+     */
+    private MultipartUploadEntity getUpload(Long id) {
+        MultipartUploadEntity upload = multipartUploadMapper.getUploadById(id);
+        if (ObjectUtils.isEmpty(upload)) {
+            log.warn("分片上传任务不存在: {}", id);
+            throw new OssException("分片上传任务不存在");
+        }
+        if (!upload.getUserId().equals(CurrentUser.getId())) {
+            log.warn("用户:{} 无权操作分片上传任务:{}", CurrentUser.getId(), id);
+            throw new OssException("您没有权限操作该上传任务");
+        }
+        if (upload.getStorageType() != getCurrentStorageService().getStorageType()) {
+            log.warn("分片上传任务:{} 的存储类型 {} 与当前存储类型不一致", id, upload.getStorageType());
+            throw new OssException("存储服务已切换，请重新上传");
+        }
+        return upload;
+    }
+
+    /**
+     * 校验任务为经由服务端中转的分片上传任务
+     *
+     * @param upload 上传任务
+     */
+    private void requireMultipart(MultipartUploadEntity upload) {
+        if (upload.getUploadId() == null) {
+            throw new OssException("该任务为整体直传任务, 请直接上传到存储服务");
+        }
+    }
+
+    /**
+     * 删除直传到存储服务但未登记元数据的对象, 对象不存在时忽略
+     *
+     * @param upload 上传任务
+     */
+    private void deleteDirectUploadedObject(MultipartUploadEntity upload) {
+        try {
+            getCurrentStorageService().deleteFile(upload.getFileName(), upload.getFolderPath(), upload.getVisibility(), upload.getUserId().toString());
+        } catch (Exception e) {
+            log.warn("删除直传对象失败，任务 ID: {}，错误信息: {}", upload.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 删除分片上传任务及分片记录
+     *
+     * @param id 分片上传任务 id
+     */
+    private void removeUpload(Long id) {
+        multipartUploadMapper.deletePartsByUploadId(id);
+        multipartUploadMapper.deleteUploadById(id);
+    }
+
+    /**
+     * 根据分片上传任务构建文件信息
+     *
+     * @param upload 分片上传任务
+     * @return 文件信息
+     */
+    private UploadFileDTO toUploadFileDTO(MultipartUploadEntity upload) {
+        return UploadFileDTO.builder()
+                .userId(upload.getUserId().toString())
+                .fileName(upload.getFileName())
+                .size(upload.getFileSize())
+                .folderPath(upload.getFolderPath())
+                .visibility(upload.getVisibility())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.sparkseries.module.oss.multipart.vo;
+
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 直传任务
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "直传任务")
+public class DirectUploadVO {
+    @Schema(description = "上传任务 id")
+    private String id;
+    @Schema(description = "分片大小(字节), 整体上传时为文件大小")
+    private Long partSize;
+    @Schema(description = "各分片的预签名上传地址")
+    private List<PresignedUploadVO> parts;
+
+    public DirectUploadVO(Long id, Long partSize, List<PresignedUploadVO> parts) {
+        this.id = id.toString();
+        this.partSize = partSize;
+        this.parts = parts;
+    }
+}
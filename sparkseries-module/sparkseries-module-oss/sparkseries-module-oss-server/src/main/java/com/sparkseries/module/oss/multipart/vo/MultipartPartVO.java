@@ -0,0 +1,26 @@
+package com.sparkseries.module.oss.multipart.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分片信息
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "分片信息")
+public class MultipartPartVO {
+    @Schema(description = "分片序号")
+    private Integer partNumber;
+    @Schema(description = "分片大小(字节)")
+    private Long partSize;
+    @Schema(description = "分片 ETag")
+    private String etag;
+
+    public MultipartPartVO(Integer partNumber, Long partSize, String etag) {
+        this.partNumber = partNumber;
+        this.partSize = partSize;
+        this.etag = etag;
+    }
+}
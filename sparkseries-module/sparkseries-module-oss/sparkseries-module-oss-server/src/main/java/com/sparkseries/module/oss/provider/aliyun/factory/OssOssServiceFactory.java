@@ -6,9 +6,11 @@ import com.sparkseries.module.oss.cloud.dao.CloudConfigMapper;
 import com.sparkseries.module.oss.cloud.entity.OssConfigEntity;
 import com.sparkseries.module.oss.common.api.provider.factory.OssServiceFactory;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.ObjectDiskCache;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.config.PoolConfig;
+import com.sparkseries.module.oss.common.config.TransferExecutor;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
 import com.sparkseries.module.oss.provider.aliyun.connection.OssValidConnectServiceImpl;
 import com.sparkseries.module.oss.provider.aliyun.oss.OssOssServiceImpl;
 import com.sparkseries.module.oss.provider.aliyun.pool.OssClientPool;
@@ -32,7 +34,9 @@ public class OssOssServiceFactory implements OssServiceFactory {
 
     private final CloudConfigMapper cloudConfigMapper;
     private final PoolConfig poolConfig;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectDiskCache objectDiskCache;
+    private final TransferExecutor transferExecutor;
 
     /**
      * 获取存储类型
@@ -76,6 +80,9 @@ public class OssOssServiceFactory implements OssServiceFactory {
         }
 
         OssClientPool ossClientPool = new OssClientPool(oss.getEndpoint(), oss.getAccessKeyId(), oss.getAccessKeySecret(), oss.getRegion(), poolConfig);
-        return new OssOssServiceImpl(ossClientPool, map, metadataMapper);
+        // 新配置可能更换了密钥, 旧地址不再复用
+        presignedUrlCache.invalidateAll(getStorageType());
+        objectDiskCache.invalidateAll(getStorageType());
+        return new OssOssServiceImpl(ossClientPool, map, transferExecutor, presignedUrlCache);
     }
 }
\ No newline at end of file
@@ -8,11 +8,12 @@ import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
+import com.sparkseries.module.oss.common.config.TransferExecutor;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
-import com.sparkseries.module.oss.file.vo.FileInfoVO;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
-import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.common.util.PartBufferPool;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
 import com.sparkseries.module.oss.provider.aliyun.pool.OssClientPool;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,12 +25,11 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.sparkeries.constant.Constants.AVATAR_STORAGE_PATH;
 import static com.sparkeries.constant.Constants.OSS_SIZE_THRESHOLD;
-import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
 import static com.sparkeries.enums.StorageTypeEnum.OSS;
 import static com.sparkeries.enums.VisibilityEnum.*;
 
@@ -39,12 +39,25 @@ import static com.sparkeries.enums.VisibilityEnum.*;
 @Slf4j
 public class OssOssServiceImpl implements OssService {
 
+    /**
+     * 下载地址有效期(秒)
+     */
+    private static final int DOWNLOAD_URL_EXPIRE_SECONDS = 3600;
+
+    /**
+     * 预览地址有效期(秒)
+     */
+    private static final int PREVIEW_URL_EXPIRE_SECONDS = 300;
+
     private final Map<VisibilityEnum, String> bucketName;
 
     private final OssClientPool clientPool;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final TransferExecutor transferExecutor;
 
-    public OssOssServiceImpl(OssClientPool clientPool, Map<VisibilityEnum, String> bucketName, MetadataMapper metadataMapper) {
+    public OssOssServiceImpl(OssClientPool clientPool, Map<VisibilityEnum, String> bucketName,
+                             TransferExecutor transferExecutor,
+                             PresignedUrlCache presignedUrlCache) {
 
         log.info("[初始化OSS服务] 开始初始化阿里云OSS存储服务");
         int bucketCount = 3;
@@ -54,7 +67,8 @@ public class OssOssServiceImpl implements OssService {
         }
         this.bucketName = bucketName;
         this.clientPool = clientPool;
-        this.metadataMapper = metadataMapper;
+        this.presignedUrlCache = presignedUrlCache;
+        this.transferExecutor = transferExecutor;
         log.info("[初始化OSS服务] 阿里云OSS存储服务初始化完成，存储桶: {}", bucketName);
     }
 
@@ -81,6 +95,7 @@ public class OssOssServiceImpl implements OssService {
      */
     @Override
     public boolean uploadFile(UploadFileDTO file) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
         String userId = file.getUserId();
         VisibilityEnum visibility = file.getVisibility();
         String fileName = file.getFileName();
@@ -155,6 +170,7 @@ public class OssOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", folderPath, fileName), visibility, userId);
         String absolutePath = String.join("/", folderPath, fileName);
         log.info("[删除文件操作] 开始删除文件: {}", absolutePath);
         OSS client = null;
@@ -189,6 +205,7 @@ public class OssOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFolder(String folderName, String folderPath, VisibilityEnum visibility, String userId) {
+        presignedUrlCache.invalidatePrefix(OSS, getBucketName(visibility), getTargetPath(String.join("/", folderPath, folderName), visibility, userId) + "/");
         String absolutePath = String.join("/", folderPath, folderName);
         log.info("[删除文件夹操作] 开始删除文件夹: {}", absolutePath);
         OSS client = null;
@@ -248,15 +265,20 @@ public class OssOssServiceImpl implements OssService {
         OSS client = null;
         String currentBucket = getBucketName(visibility);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
+        String cachedUrl = presignedUrlCache.get(OSS, currentBucket, targetPath, PresignedUrlCache.ATTACHMENT);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         try {
             log.debug("[下载文件操作] 从连接池获取OSS客户端连接");
             client = clientPool.getClient();
             log.debug("[下载文件操作] 成功获取OSS客户端连接，开始生成下载链接");
             GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(currentBucket, targetPath);
-            request.setExpiration(new Date(System.currentTimeMillis() + 3600 * 1000L));
+            request.setExpiration(new Date(System.currentTimeMillis() + DOWNLOAD_URL_EXPIRE_SECONDS * 1000L));
 
             String url = client.generatePresignedUrl(request).toString();
             log.info("[下载文件操作] 成功生成下载链接: {}", targetPath);
+            presignedUrlCache.put(OSS, currentBucket, targetPath, PresignedUrlCache.ATTACHMENT, url, DOWNLOAD_URL_EXPIRE_SECONDS);
             return url;
         } catch (Exception e) {
             log.warn("[下载文件操作] 生成下载链接失败: {}, 错误: {}", absolutePath, e.getMessage(), e);
@@ -269,31 +291,6 @@ public class OssOssServiceImpl implements OssService {
         }
     }
 
-    /**
-     * 列出指定路径下的文件和文件夹
-     *
-     * @param folderName 文件夹名称
-     * @param folderPath 文件夹路径
-     * @param visibility 能见度
-     * @param userId 用户 ID
-     * @return 文件和文件夹信息列表
-     */
-    @Override
-    public FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId) {
-
-        String absolutePath = String.join("/", folderPath, folderName);
-
-        log.info("[列出文件操作] 开始列出路径下的文件和文件夹: {}", absolutePath);
-
-        List<FileInfoVO> fileInfos = metadataMapper.listFileByFolderPath(absolutePath, OSS, visibility, userId);
-
-        Set<FolderInfoVO> folders = metadataMapper.listFolderNameByFolderPath(absolutePath, StorageTypeEnum.OSS, visibility, userId).stream().map(s -> new FolderInfoVO(s, folderPath)).collect(Collectors.toSet());
-
-        folders.addAll(metadataMapper.listFolderPathByFolderName(folderPath, LOCAL, visibility).stream().map(s -> new FolderInfoVO(s.replace(folderPath, "").split("/")[0], folderPath)).collect(Collectors.toSet()));
-
-        return new FilesAndFoldersVO(fileInfos, folders);
-    }
-
     /**
      * 生成文件的预览链接
      *
@@ -311,8 +308,12 @@ public class OssOssServiceImpl implements OssService {
         log.info("尝试获取阿里云 OSS 文件 [{}] 的预览URL. 存储空间: [{}].", fileName, bucketName);
         String absolutePath = String.join("/", folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
+        String cachedUrl = presignedUrlCache.get(OSS, bucketName, targetPath, PresignedUrlCache.INLINE);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         try {
-            int expiryInSeconds = 300;
+            int expiryInSeconds = PREVIEW_URL_EXPIRE_SECONDS;
             log.debug("[预览文件操作] 从连接池获取OSS客户端连接");
             client = clientPool.getClient();
             log.debug("[预览文件操作] 成功获取OSS客户端连接，开始生成预签名URL");
@@ -328,6 +329,7 @@ public class OssOssServiceImpl implements OssService {
 
             log.info("成功为文件 '{}' 生成预签名 URL，有效期 {} 秒。", targetPath, expiryInSeconds);
             log.info("[预览文件操作] 成功生成预览链接: {}", url.toString());
+            presignedUrlCache.put(OSS, bucketName, targetPath, PresignedUrlCache.INLINE, url.toString(), expiryInSeconds);
             return url.toString();
 
         } catch (Exception e) {
@@ -353,6 +355,8 @@ public class OssOssServiceImpl implements OssService {
      */
     @Override
     public boolean moveFile(String fileName, String sourceFolderPath, String targetFolderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", sourceFolderPath, fileName), visibility, userId);
+        invalidatePresignedUrl(String.join("/", targetFolderPath, fileName), visibility, userId);
         String bucketName = getBucketName(visibility);
         log.info("[移动文件操作] 开始移动文件，从 {} 到 {}", sourceFolderPath, targetFolderPath);
         log.info("尝试移动 OSS 文件，从 [{}] 到 [{}]. 存储空间: [{}].", sourceFolderPath, targetFolderPath, bucketName);
@@ -386,6 +390,218 @@ public class OssOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 初始化分片上传
+     *
+     * @param file 文件信息
+     * @return OSS 分片上传 id
+     */
+    @Override
+    public String initiateMultipartUpload(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        String currentBucket = getBucketName(file.getVisibility());
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(currentBucket, targetPath)).getUploadId();
+            log.info("[分片上传操作] 分片上传初始化成功: key={}, uploadId={}", targetPath, uploadId);
+            return uploadId;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] 分片上传初始化失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片上传初始化失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param file 分片信息
+     * @param uploadId OSS 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片 ETag
+     */
+    @Override
+    public String uploadPart(UploadFileDTO file, String uploadId, int partNumber) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String currentBucket = getBucketName(file.getVisibility());
+        OSS client = null;
+        try (InputStream inputStream = file.getInputStream()) {
+            client = clientPool.getClient();
+            UploadPartRequest uploadPartRequest = new UploadPartRequest(currentBucket, targetPath, uploadId,
+                    partNumber, inputStream, file.getSize());
+            String eTag = client.uploadPart(uploadPartRequest).getETag();
+            log.debug("[分片上传操作] 分片 {} 上传成功: key={}, size={}", partNumber, targetPath, file.getSize());
+            return eTag;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] 分片 {} 上传失败: key={}, 错误: {}", partNumber, targetPath, e.getMessage(), e);
+            throw new OssException("分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId OSS 分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    @Override
+    public boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        String currentBucket = getBucketName(file.getVisibility());
+        List<PartETag> parts = new TreeMap<>(partETags).entrySet().stream()
+                .map(entry -> new PartETag(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(currentBucket, targetPath, uploadId, parts));
+            log.info("[分片上传操作] 分片上传完成: key={}, 分片数={}", targetPath, parts.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] 分片合并失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片合并失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId OSS 分片上传 id
+     * @return 操作结果
+     */
+    @Override
+    public boolean abortMultipartUpload(UploadFileDTO file, String uploadId) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String currentBucket = getBucketName(file.getVisibility());
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(currentBucket, targetPath, uploadId));
+            log.info("[分片上传操作] 已取消分片上传: key={}, uploadId={}", targetPath, uploadId);
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] 取消分片上传失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("取消分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 生成预签名上传地址
+     * <p>
+     * OSS 的签名包含 Content-Type, 客户端上传时必须携带返回的请求头
+     *
+     * @param file 文件信息
+     * @param uploadId OSS 分片上传 id, 为空时生成整体上传地址
+     * @param partNumber 分片序号
+     * @param expireSeconds 地址有效期(秒)
+     * @return 预签名上传地址
+     */
+    @Override
+    public PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String currentBucket = getBucketName(file.getVisibility());
+        String contentType = "application/octet-stream";
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(currentBucket, targetPath, HttpMethod.PUT);
+            request.setExpiration(new Date(System.currentTimeMillis() + expireSeconds * 1000L));
+            request.setContentType(contentType);
+            if (uploadId != null) {
+                request.addQueryParameter("partNumber", String.valueOf(partNumber));
+                request.addQueryParameter("uploadId", uploadId);
+            }
+            String url = client.generatePresignedUrl(request).toString();
+            log.debug("[直传操作] 生成预签名上传地址: key={}, partNumber={}", targetPath, partNumber);
+            return new PresignedUploadVO(partNumber, HttpMethod.PUT.name(), url, Map.of("Content-Type", contentType), Map.of());
+        } catch (Exception e) {
+            log.warn("[直传操作] 生成预签名上传地址失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("生成上传地址失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 获取对象元信息
+     *
+     * @param file 文件信息
+     * @return 对象大小及 ETag
+     */
+    @Override
+    public ObjectStatDTO statObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String currentBucket = getBucketName(file.getVisibility());
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            ObjectMetadata metadata = client.getObjectMetadata(currentBucket, targetPath);
+            return new ObjectStatDTO(metadata.getContentLength(), metadata.getETag());
+        } catch (Exception e) {
+            log.warn("[直传操作] 获取对象元信息失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("获取文件信息失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 打开存储对象的输入流
+     *
+     * @param file 文件信息
+     * @return 对象内容的输入流
+     */
+    @Override
+    public InputStream openObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String currentBucket = getBucketName(file.getVisibility());
+        OSS client = null;
+        try {
+            client = clientPool.getClient();
+            return client.getObject(currentBucket, targetPath).getObjectContent();
+        } catch (Exception e) {
+            log.warn("[读取文件操作] 打开对象失败: key={}, 错误: {}", targetPath, e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
     // --------------------------------私有方法--------------------------------
 
     @Override
@@ -451,6 +667,8 @@ public class OssOssServiceImpl implements OssService {
 
     /**
      * 上传大文件
+     * 读取线程把数据填入空闲的分片缓冲区后立即提交上传, 上传完成后缓冲区归还复用,
+     * 缓冲区全部占用时读取阻塞, 峰值内存为 缓冲区数 × 分片大小
      *
      * @param client OSS 客户端
      * @param file 文件信息
@@ -458,84 +676,126 @@ public class OssOssServiceImpl implements OssService {
      * @return 操作结果
      */
     private boolean uploadLargeFile(OSS client, UploadFileDTO file, String currentBucket) {
-        try (InputStream inputStream = file.getInputStream()) {
-            String targetPath = file.getTargetPath();
-            Long fileSize = file.getSize();
+        String targetPath = file.getTargetPath();
+        Long fileSize = file.getSize();
+        long partSize = calculatePartSize(fileSize);
+        int partCount = (int) Math.ceil((double) fileSize / partSize);
+        log.info("开始分片上传: 文件大小={}, 分片大小={}, 分片数量={}", fileSize, partSize, partCount);
 
-            long partSize = calculatePartSize(fileSize);
-            int partCount = (int) Math.ceil((double) fileSize / partSize);
-            log.info("开始分片上传: 文件大小={}, 分片大小={}, 分片数量={}", fileSize, partSize, partCount);
+        PartBufferPool bufferPool = transferExecutor.newPartBufferPool(partSize);
+        List<CompletableFuture<PartETag>> futures = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        String uploadId = null;
 
+        try (InputStream inputStream = file.getInputStream()) {
             InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(currentBucket, targetPath);
             InitiateMultipartUploadResult initiateResult = client.initiateMultipartUpload(initiateRequest);
-            String uploadId = initiateResult.getUploadId();
-
-            int corePoolSize = Math.min(partCount, Runtime.getRuntime().availableProcessors());
-            int maxPoolSize = corePoolSize * 2;
-            BlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(partCount);
-            ThreadPoolExecutor executorService = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 60L, TimeUnit.SECONDS, workQueue, new ThreadPoolExecutor.CallerRunsPolicy());
-
-            List<CompletableFuture<PartETag>> futures = new ArrayList<>();
-            AtomicInteger uploadedParts = new AtomicInteger(0);
-
-            try (inputStream) {
-                byte[] buffer = new byte[(int) partSize];
-                for (int i = 0; i < partCount; i++) {
-                    int partNumber = i + 1;
-                    long offset = i * partSize;
-                    int bytesRead = inputStream.read(buffer, 0, (int) Math.min(partSize, fileSize - offset));
-                    if (bytesRead <= 0) {
-                        break;
-                    }
-
-                    ByteArrayInputStream partStream = new ByteArrayInputStream(buffer, 0, bytesRead);
-                    CompletableFuture<PartETag> future = CompletableFuture.supplyAsync(() -> {
-                        UploadPartRequest uploadPartRequest = new UploadPartRequest(currentBucket, targetPath, uploadId, partNumber, partStream, bytesRead);
-                        UploadPartResult uploadPartResult = client.uploadPart(uploadPartRequest);
-                        log.info("分片 {} 上传成功，ETag: {}", partNumber, uploadPartResult.getETag());
-                        uploadedParts.incrementAndGet();
-                        try {
-                            partStream.close();
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                        return uploadPartResult.getPartETag();
-                    }, executorService);
-                    futures.add(future);
+            uploadId = initiateResult.getUploadId();
+
+            int partNumber = 1;
+            while (failure.get() == null) {
+                byte[] buffer = bufferPool.acquire();
+                int bytesRead = inputStream.readNBytes(buffer, 0, buffer.length);
+                if (bytesRead <= 0) {
+                    bufferPool.release(buffer);
+                    break;
                 }
-
-                // 使用 new ArrayList<> 确保列表可变
-                List<PartETag> partETags = new ArrayList<>(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> futures.stream().map(CompletableFuture::join).toList()).join());
-
-                if (partETags.size() != partCount) {
-                    throw new IllegalStateException("分片上传不完整，期望 " + partCount + " 个分片，实际 " + partETags.size());
+                futures.add(uploadPartAsync(client, currentBucket, targetPath, uploadId, partNumber++,
+                        buffer, bytesRead, bufferPool, failure));
+                if (bytesRead < buffer.length) {
+                    break;
                 }
+            }
 
-                partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
-                log.info("所有分片上传完成，总计 {} 个分片", uploadedParts.get());
-
-                CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(currentBucket, targetPath, uploadId, partETags);
-                client.completeMultipartUpload(completeRequest);
-                log.info("文件上传完成: {}", targetPath);
-            } catch (Exception e) {
-                log.warn("分片上传失败: {}", e.getMessage());
-                client.abortMultipartUpload(new AbortMultipartUploadRequest(currentBucket, targetPath, uploadId));
-                throw e;
-            } finally {
-                executorService.shutdown();
-                if (!executorService.isTerminated()) {
-                    executorService.shutdownNow();
-                    log.warn("线程池未在 60 秒内关闭，强制终止");
-                }
+            List<PartETag> partETags = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            if (partETags.size() != partCount) {
+                throw new IllegalStateException("分片上传不完整，期望 " + partCount + " 个分片，实际 " + partETags.size());
             }
+
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            log.info("所有分片上传完成，总计 {} 个分片", partETags.size());
+
+            CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(currentBucket, targetPath, uploadId, partETags);
+            client.completeMultipartUpload(completeRequest);
             log.info("大文件上传成功: key={}, size={}", targetPath, file.getSize());
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 等待已提交的分片结束后再取消, 取消后完成的分片会残留在存储桶中
+            transferExecutor.awaitParts(futures);
+            abortMultipartUpload(client, currentBucket, targetPath, uploadId);
+            log.warn("[上传文件操作] 大文件上传被中断: key={}, size={}", targetPath, file.getSize());
+            throw new OssException("大文件上传被中断");
         } catch (Exception e) {
-            log.warn("[上传文件操作] 大文件上传失败: key={}, size={}, 错误: {}", file.getTargetPath(), file.getSize(), e.getMessage(), e);
+            transferExecutor.awaitParts(futures);
+            abortMultipartUpload(client, currentBucket, targetPath, uploadId);
+            log.warn("[上传文件操作] 大文件上传失败: key={}, size={}, 错误: {}", targetPath, file.getSize(), e.getMessage(), e);
             throw new OssException("大文件上传失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 异步上传单个分片, 上传结束后归还分片缓冲区
+     *
+     * @param client OSS 客户端
+     * @param currentBucket 当前存储桶名
+     * @param targetPath 目标路径
+     * @param uploadId 分片上传 ID
+     * @param partNumber 分片序号
+     * @param buffer 分片数据
+     * @param length 分片数据长度
+     * @param bufferPool 分片缓冲区池
+     * @param failure 分片上传失败原因
+     * @return 分片 ETag
+     * @throws InterruptedException 等待全局分片许可时被中断
+     */
+    private CompletableFuture<PartETag> uploadPartAsync(OSS client, String currentBucket, String targetPath,
+                                                        String uploadId, int partNumber, byte[] buffer, int length,
+                                                        PartBufferPool bufferPool, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        CompletableFuture<PartETag> future;
+        try {
+            future = transferExecutor.submitPart(() -> {
+                UploadPartRequest uploadPartRequest = new UploadPartRequest(currentBucket, targetPath, uploadId,
+                        partNumber, new ByteArrayInputStream(buffer, 0, length), length);
+                UploadPartResult uploadPartResult = client.uploadPart(uploadPartRequest);
+                log.debug("分片 {} 上传成功，ETag: {}", partNumber, uploadPartResult.getETag());
+                return uploadPartResult.getPartETag();
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+        return future.whenComplete((partETag, e) -> {
+            bufferPool.release(buffer);
+            if (e != null) {
+                failure.compareAndSet(null, e);
+            }
+        });
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param client OSS 客户端
+     * @param currentBucket 当前存储桶名
+     * @param targetPath 目标路径
+     * @param uploadId 分片上传 ID
+     */
+    private void abortMultipartUpload(OSS client, String currentBucket, String targetPath, String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(currentBucket, targetPath, uploadId));
+        } catch (Exception e) {
+            log.warn("取消分片上传失败: key={}, uploadId={}", targetPath, uploadId, e);
+        }
+    }
+
     /**
      * 计算分片大小
      *
@@ -596,4 +856,17 @@ public class OssOssServiceImpl implements OssService {
             throw new OssException("错误操作");
         }
     }
+
+    /**
+     * 失效对象的预签名地址缓存
+     *
+     * @param absolutePath 文件的绝对路径
+     * @param visibility 文件可见性
+     * @param userId 用户 ID
+     */
+    private void invalidatePresignedUrl(String absolutePath, VisibilityEnum visibility, String userId) {
+        if (visibility != null) {
+            presignedUrlCache.invalidate(OSS, getBucketName(visibility), getTargetPath(absolutePath, visibility, userId));
+        }
+    }
 }
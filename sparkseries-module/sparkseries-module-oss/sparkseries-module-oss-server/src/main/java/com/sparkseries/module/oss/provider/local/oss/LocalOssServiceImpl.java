@@ -4,32 +4,52 @@ import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.config.LocalCompressionConfig;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
+import com.sparkseries.module.oss.common.util.MimeTypeUtil;
+import com.sparkseries.module.oss.common.util.RangeResponseUtil;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
 import com.sparkseries.module.oss.file.entity.FileMetadataEntity;
-import com.sparkseries.module.oss.file.vo.FileInfoVO;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
-import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
+import com.sparkseries.module.oss.provider.local.sign.LocalUrlSigner;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.EncoderException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.net.URLCodec;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static com.sparkeries.constant.Constants.LOCAL_SIZE_THRESHOLD;
+import static com.sparkeries.constant.Constants.MULTIPART_STAGING_PATH;
 import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
 
 /**
@@ -39,6 +59,31 @@ import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
 @Service("local")
 public class LocalOssServiceImpl implements OssService {
 
+    /**
+     * 流式写入的缓冲区大小 1MB
+     */
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 每个上传线程复用的复制缓冲区, 避免每次上传都分配 1MB 数组
+     */
+    private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[COPY_BUFFER_SIZE]);
+
+    /**
+     * 压缩存储使用的编码
+     */
+    private static final String GZIP_ENCODING = "gzip";
+
+    /**
+     * 流式解压的缓冲区大小 64KB
+     */
+    private static final int DECOMPRESS_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 带版本号的头像地址的缓存时间
+     */
+    private static final Duration AVATAR_CACHE_MAX_AGE = Duration.ofDays(365);
+
     /**
      * 头像路径
      */
@@ -52,19 +97,22 @@ public class LocalOssServiceImpl implements OssService {
      */
     public final String privatePath;
 
-    public final MetadataMapper metadataMapper;
+    private final LocalCompressionConfig compressionConfig;
 
+    private final LocalUrlSigner urlSigner;
 
     public LocalOssServiceImpl(@Value("${Local.avatarPath}") String avatarPath,
                                @Value("${Local.publicPath}") String publicPath,
                                @Value("${Local.privatePath}") String privatePath,
-                               MetadataMapper metadataMapper) {
+                               LocalCompressionConfig compressionConfig,
+                               LocalUrlSigner urlSigner) {
 
         log.info("[初始化本地存储服务] 开始初始化本地文件存储服务");
         this.avatarPath = avatarPath;
         this.publicPath = publicPath;
         this.privatePath = privatePath;
-        this.metadataMapper = metadataMapper;
+        this.compressionConfig = compressionConfig;
+        this.urlSigner = urlSigner;
         log.info("本地存储服务初始化成功");
     }
 
@@ -199,9 +247,10 @@ public class LocalOssServiceImpl implements OssService {
 
             log.debug("检查文件夹是否存在");
             boolean exists = Files.exists(targetPath);
+            // 隐式创建的文件夹及只含去重文件的文件夹没有对应的目录, 无需删除
             if (!exists) {
-                log.warn("文件夹不存在，无法删除: {}", targetPath);
-                throw new OssException("该文件夹不存在");
+                log.info("文件夹目录不存在, 无需删除: {}", targetPath);
+                return true;
             }
 
             // 统计删除的文件和文件夹数量
@@ -251,33 +300,6 @@ public class LocalOssServiceImpl implements OssService {
         return "";
     }
 
-    /**
-     * 列出指定路径下的文件和文件夹
-     *
-     * @param folderPath 文件夹路径
-     * @param visibility 能见度
-     * @return 包含文件和文件夹信息的VO对象
-     * @throws OssException 如果目录不存在
-     * @throws RuntimeException 如果读取目录时发生IO错误
-     */
-    @Override
-    public FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId) {
-        String absolutePath = Path.of(folderPath, folderName).toString();
-        log.info("[列出文件操作] 开始列出目录文件: {}", folderPath);
-
-        List<FileInfoVO> fileInfos = metadataMapper.listFileByFolderPath(absolutePath, LOCAL, visibility, userId);
-
-        Set<FolderInfoVO> folders = metadataMapper.listFolderNameByFolderPath(absolutePath, LOCAL, visibility, userId)
-                .stream()
-                .map(s -> new FolderInfoVO(s, folderPath))
-                .collect(Collectors.toSet());
-        folders.addAll(metadataMapper.listFolderPathByFolderName(folderPath, LOCAL, visibility)
-                .stream()
-                .map(s -> new FolderInfoVO(s.replace(folderPath, "").split("/")[0], folderPath))
-                .collect(Collectors.toSet()));
-        return new FilesAndFoldersVO(fileInfos, folders);
-    }
-
     @Override
     @Deprecated
     public String previewFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
@@ -348,6 +370,176 @@ public class LocalOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 初始化分片上传
+     * 分片以独立文件暂存在分片目录中, 完成时按序号拼接为目标文件
+     *
+     * @param file 文件信息
+     * @return 分片上传 id
+     */
+    @Override
+    public String initiateMultipartUpload(UploadFileDTO file) {
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path stagingDir = getStagingDir(uploadId);
+        validateFileSize(file.getSize() == null ? 0 : file.getSize());
+        createDirectoriesIfNotExists(stagingDir);
+        log.info("[分片上传操作] 本地分片上传初始化成功, 分片目录: {}", stagingDir);
+        return uploadId;
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param file 分片信息
+     * @param uploadId 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片 MD5
+     */
+    @Override
+    public String uploadPart(UploadFileDTO file, String uploadId, int partNumber) {
+        Path stagingDir = getStagingDir(uploadId);
+        if (!Files.isDirectory(stagingDir)) {
+            log.warn("[分片上传操作] 分片目录不存在: {}", stagingDir);
+            throw new OssException("分片上传任务不存在");
+        }
+        Path partPath = stagingDir.resolve(partNumber + ".part");
+        Path tempPath = null;
+        try (DigestInputStream inputStream = new DigestInputStream(file.getInputStream(), MessageDigest.getInstance("MD5"))) {
+            tempPath = createTempFile(partPath);
+            long bytesWritten = Files.copy(inputStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            validateUploadedFile(bytesWritten, file.getSize());
+            Files.move(tempPath, partPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            String eTag = Hex.encodeHexString(inputStream.getMessageDigest().digest());
+            log.debug("[分片上传操作] 本地分片 {} 写入成功: {}, 大小: {} bytes", partNumber, partPath, file.getSize());
+            return eTag;
+        } catch (Exception e) {
+            cleanupTempFile(tempPath);
+            log.warn("[分片上传操作] 本地分片 {} 写入失败: {}, 错误信息: {}", partNumber, partPath, e.getMessage(), e);
+            throw new OssException("分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 完成分片上传
+     * 按分片序号通过 FileChannel.transferTo 拼接分片, 再原子移动到目标位置
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    @Override
+    public boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags) {
+        String absolutePath = Path.of(file.getFolderPath(), file.getFileName()).toString();
+        Path targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        Path stagingDir = getStagingDir(uploadId);
+        createDirectoriesIfNotExists(targetPath.getParent());
+        Path tempPath = null;
+        try {
+            tempPath = createTempFile(targetPath);
+            try (FileChannel target = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Integer partNumber : new TreeMap<>(partETags).keySet()) {
+                    Path partPath = stagingDir.resolve(partNumber + ".part");
+                    try (FileChannel source = FileChannel.open(partPath, StandardOpenOption.READ)) {
+                        long size = source.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += source.transferTo(position, size - position, target);
+                        }
+                    }
+                }
+            }
+            Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteStagingDir(stagingDir);
+            log.info("[分片上传操作] 本地分片合并成功: {}, 分片数: {}", targetPath, partETags.size());
+            return true;
+        } catch (Exception e) {
+            cleanupTempFile(tempPath);
+            log.warn("[分片上传操作] 本地分片合并失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片合并失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id
+     * @return 操作结果
+     */
+    @Override
+    public boolean abortMultipartUpload(UploadFileDTO file, String uploadId) {
+        Path stagingDir = getStagingDir(uploadId);
+        try {
+            deleteStagingDir(stagingDir);
+            log.info("[分片上传操作] 本地已取消分片上传, 分片目录: {}", stagingDir);
+            return true;
+        } catch (IOException e) {
+            log.warn("[分片上传操作] 本地取消分片上传失败: {}, 错误信息: {}", stagingDir, e.getMessage(), e);
+            throw new OssException("取消分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 本地存储的文件必须经由服务端写入, 不支持直传
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id
+     * @param partNumber 分片序号
+     * @param expireSeconds 地址有效期(秒)
+     * @return 不会返回
+     */
+    @Override
+    public PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds) {
+        log.warn("[直传操作] 本地存储不支持直传");
+        throw new OssException("本地存储不支持直传, 请使用服务端上传");
+    }
+
+    /**
+     * 获取文件元信息, 本地文件不计算 ETag
+     *
+     * @param file 文件信息
+     * @return 文件大小
+     */
+    @Override
+    public ObjectStatDTO statObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        Path targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        try {
+            return new ObjectStatDTO(Files.size(targetPath), null);
+        } catch (IOException e) {
+            log.warn("[直传操作] 获取本地文件信息失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("获取文件信息失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 打开本地文件的输入流, 压缩存储的文件边读边解压
+     *
+     * @param file 文件信息
+     * @return 文件原始内容的输入流
+     */
+    @Override
+    public InputStream openObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        Path targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        try {
+            InputStream inputStream = Files.newInputStream(targetPath);
+            if (!GZIP_ENCODING.equals(file.getContentEncoding())) {
+                return inputStream;
+            }
+            try {
+                return new GZIPInputStream(inputStream, DECOMPRESS_BUFFER_SIZE);
+            } catch (IOException e) {
+                inputStream.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            log.warn("[读取文件操作] 打开本地文件失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取当前存储类型
      *
@@ -373,16 +565,17 @@ public class LocalOssServiceImpl implements OssService {
 
         String filename = fileMetadataEntity.getFileName();
 
-        String absolutePath = path + filename;
+        String absolutePath = String.join("/", path, filename);
 
         Path targetPath = getTargetPath(absolutePath, visibility, userId);
 
         try {
             URLCodec codec = new URLCodec();
-            Resource resource = new UrlResource(targetPath.toUri());
-            ResponseEntity<Resource> body = ResponseEntity.ok().contentType(
-                            MediaType.parseMediaType(Files.probeContentType(targetPath))).
-                    header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + codec.encode(filename) + "\"").body(resource);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(MimeTypeUtil.probeContentType(targetPath)));
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + codec.encode(filename) + "\"");
+            headers.setCacheControl(privateCacheControl(visibility));
+            ResponseEntity<?> body = buildFileBody(headers, fileMetadataEntity.getContentEncoding(), targetPath);
             log.info("[下载文件操作] 文件下载成功: {}", filename);
             log.info("文件下载url获取成功");
             return body;
@@ -406,19 +599,20 @@ public class LocalOssServiceImpl implements OssService {
 
         String filename = fileMetadataEntity.getFileName();
 
-        Path targetPath = getTargetPath(folderPath + filename, visibility, userId);
+        Path targetPath = getTargetPath(String.join("/", folderPath, filename), visibility, userId);
 
         try {
             URLCodec codec = new URLCodec();
 
-            String contentType = Files.probeContentType(targetPath);
+            String contentType = MimeTypeUtil.probeContentType(targetPath);
 
             String finalContentType = contentType.startsWith("text/") ? contentType + ";charset=UTF-8" : contentType;
 
-            Resource resource = new UrlResource(targetPath.toUri());
-
-            ResponseEntity<Resource> body = ResponseEntity.ok().contentType(MediaType.parseMediaType(finalContentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename*=UTF-8''" + codec.encode(filename)).body(resource);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(finalContentType));
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename*=UTF-8''" + codec.encode(filename));
+            headers.setCacheControl(privateCacheControl(visibility));
+            ResponseEntity<?> body = buildFileBody(headers, fileMetadataEntity.getContentEncoding(), targetPath);
             log.info("文件预览url获取成功");
             return body;
         } catch (IOException | EncoderException e) {
@@ -426,32 +620,222 @@ public class LocalOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 为本地文件生成签名 URL, 访问时只校验签名, 不再查询文件元数据
+     *
+     * @param builder 已包含协议、主机及端口的 URL 构建器
+     * @param object 存储对象
+     * @param visibility 能见度
+     * @param fileName 响应的文件名
+     * @param download 是否以附件形式下载
+     * @return 追加了对象路径及签名参数的 URL 构建器
+     */
+    public UriComponentsBuilder signUrl(UriComponentsBuilder builder, FileMetadataEntity object, VisibilityEnum visibility,
+                                        String fileName, boolean download) {
+        Path root = switch (visibility) {
+            case PUBLIC -> Path.of(publicPath);
+            case PRIVATE -> Path.of(privatePath);
+            default -> throw new OssException("该能见度的文件不支持签名访问");
+        };
+        Path targetPath = getTargetPath(String.join("/", object.getFolderPath(), object.getFileName()), visibility, object.getUserId().toString());
+        List<String> segments = new ArrayList<>();
+        segments.add(visibility.name().toLowerCase(Locale.ROOT));
+        root.normalize().relativize(targetPath).forEach(name -> segments.add(name.toString()));
+
+        String key = String.join("/", segments);
+        long expires = urlSigner.nextExpires();
+        String disposition = download ? "attachment" : "inline";
+        String encoding = object.getContentEncoding();
+        builder.path(LocalUrlSigner.PATH_PREFIX).pathSegment(segments.toArray(String[]::new))
+                .queryParam("e", expires)
+                .queryParam("d", disposition)
+                .queryParam("n", fileName);
+        if (encoding != null) {
+            builder.queryParam("c", encoding);
+        }
+        return builder.queryParam("s", urlSigner.sign(key, expires, disposition, fileName, encoding));
+    }
+
+    /**
+     * 响应已通过签名校验的本地文件
+     * 签名 URL 本身即访问凭证, 在过期前内容不会变化, 允许 CDN 等共享缓存保存
+     *
+     * @param key 对象路径, 首段为能见度
+     * @param disposition 响应方式
+     * @param fileName 响应的文件名
+     * @param encoding 文件存储的内容编码
+     * @param expires 过期时间(秒级时间戳)
+     * @return 文件响应实体, 文件不存在时为 404
+     */
+    public ResponseEntity<?> serveSignedObject(String key, String disposition, String fileName, String encoding, long expires) {
+        int index = key.indexOf('/');
+        String area = index < 0 ? key : key.substring(0, index);
+        Path root;
+        if (VisibilityEnum.PUBLIC.name().equalsIgnoreCase(area)) {
+            root = Path.of(publicPath).normalize();
+        } else if (VisibilityEnum.PRIVATE.name().equalsIgnoreCase(area)) {
+            root = Path.of(privatePath).normalize();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+        Path targetPath = root.resolve(key.substring(index + 1)).normalize();
+        if (index < 0 || !targetPath.startsWith(root) || !Files.isRegularFile(targetPath)) {
+            log.debug("签名URL对应的文件不存在: {}", key);
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            String contentType = MimeTypeUtil.probeContentType(targetPath);
+            boolean inline = "inline".equals(disposition);
+            String finalContentType = inline && contentType.startsWith("text/") ? contentType + ";charset=UTF-8" : contentType;
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(finalContentType));
+            headers.setContentDisposition((inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                    .filename(fileName, StandardCharsets.UTF_8).build());
+            long remaining = Math.max(expires - System.currentTimeMillis() / 1000, 0);
+            headers.setCacheControl(CacheControl.maxAge(Duration.ofSeconds(remaining)).cachePublic());
+            return buildFileBody(headers, encoding, targetPath);
+        } catch (IOException e) {
+            log.warn("签名URL文件读取失败: {}", e.getMessage(), e);
+            throw new OssException("文件读取失败", e);
+        }
+    }
+
     /**
      * 预览本地头像文件
+     * 请求携带的版本号与头像当前版本一致时, 该地址的内容不会再变化, 允许客户端及 CDN 长期缓存
      *
      * @param absolutePath 头像文件的绝对路径
+     * @param version 头像地址中的版本号, 可为空
      * @return 包含头像资源的ResponseEntity
      * @throws RuntimeException 如果文件处理发生错误
      */
-    public ResponseEntity<?> previewLocalAvatar(String absolutePath) {
+    public ResponseEntity<?> previewLocalAvatar(String absolutePath, String version) {
         try {
             Path filePath = Paths.get(avatarPath, absolutePath);
-            String contentType = Files.probeContentType(filePath);
-            Resource resource = new UrlResource(filePath.toUri());
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            String etag = RangeResponseUtil.etag(attributes);
 
-            return ResponseEntity.ok().contentType(MediaType.parseMediaType(contentType)).body(resource);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(MimeTypeUtil.probeContentType(filePath)));
+            headers.setETag(etag);
+            headers.setCacheControl(etag.equals("\"" + version + "\"")
+                    ? CacheControl.maxAge(AVATAR_CACHE_MAX_AGE).cachePublic().immutable()
+                    : CacheControl.noCache());
+
+            return RangeResponseUtil.build(currentRequest(), headers, filePath, attributes);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 获取本地头像的版本号, 头像文件被替换后版本号随之变化
+     *
+     * @param absolutePath 头像文件的绝对路径
+     * @return 版本号, 头像不存在时为 null
+     */
+    public String getAvatarVersion(String absolutePath) {
+        try {
+            String etag = RangeResponseUtil.etag(Files.readAttributes(Paths.get(avatarPath, absolutePath), BasicFileAttributes.class));
+            return etag.substring(1, etag.length() - 1);
+        } catch (IOException e) {
+            log.debug("获取头像版本号失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 构建文件响应体, 携带 ETag 及 Last-Modified, 客户端缓存有效时返回 304
+     * 未压缩的文件支持 Range 分段请求;
+     * 压缩存储的文件在客户端接受 gzip 时原样返回并声明 Content-Encoding, 否则边读边解压返回
+     *
+     * @param headers 响应头(需已包含 Content-Type 及 Cache-Control)
+     * @param contentEncoding 文件存储的内容编码, 未压缩时为空
+     * @param targetPath 文件路径
+     * @return 文件响应实体
+     * @throws IOException 文件读取失败
+     */
+    private ResponseEntity<?> buildFileBody(HttpHeaders headers, String contentEncoding, Path targetPath) throws IOException {
+        if (!GZIP_ENCODING.equals(contentEncoding)) {
+            return RangeResponseUtil.build(currentRequest(), headers, targetPath);
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(targetPath, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean acceptsGzip = acceptsGzip();
+        String etag = RangeResponseUtil.etag(attributes);
+        // 压缩与解压后的内容是不同的表示, 需要不同的 ETag
+        headers.setETag(acceptsGzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag);
+        headers.setLastModified(lastModified);
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (RangeResponseUtil.isNotModified(currentRequest(), headers.getETag(), lastModified)) {
+            return RangeResponseUtil.notModified(headers);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().headers(headers);
+        if (acceptsGzip) {
+            log.debug("客户端接受 gzip 编码，直接返回压缩数据: {}", targetPath);
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING).body(new UrlResource(targetPath.toUri()));
+        }
+        log.debug("客户端不接受 gzip 编码，流式解压返回: {}", targetPath);
+        InputStream inputStream = new GZIPInputStream(Files.newInputStream(targetPath), DECOMPRESS_BUFFER_SIZE);
+        return builder.body(new InputStreamResource(inputStream));
+    }
+
+    /**
+     * 按文件 ID 访问时的缓存策略, 私有文件不允许共享缓存保存, 均需向服务端验证后再使用缓存
+     *
+     * @param visibility 能见度
+     * @return 缓存策略
+     */
+    private CacheControl privateCacheControl(VisibilityEnum visibility) {
+        return visibility == VisibilityEnum.PUBLIC ? CacheControl.noCache() : CacheControl.noCache().cachePrivate();
+    }
+
+    /**
+     * 获取当前请求
+     *
+     * @return 当前请求, 不在请求线程中时为 null
+     */
+    private HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest();
+        }
+        return null;
+    }
+
+    /**
+     * 判断当前请求是否接受 gzip 编码
+     *
+     * @return 是否接受 gzip 编码
+     */
+    private boolean acceptsGzip() {
+        HttpServletRequest request = currentRequest();
+        String acceptEncoding = request == null ? null : request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!GZIP_ENCODING.equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            boolean rejected = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+            return !rejected;
+        }
+        return false;
+    }
+
     /**
      * 上传文件
      *
      * @param file 文件信息
      * @return 上传是否成功
+     * @throws IOException 读取文件失败
      */
-    private boolean upload(UploadFileDTO file, Path targetPath) {
+    private boolean upload(UploadFileDTO file, Path targetPath) throws IOException {
         log.info("[上传文件操作] 开始上传文件: {}", file.getFileName());
 
         // 验证文件大小（本地存储通常有磁盘空间限制）
@@ -461,6 +845,27 @@ public class LocalOssServiceImpl implements OssService {
         // 确保目标目录存在
         createDirectoriesIfNotExists(targetPath.getParent());
 
+        if (isCompressionEnabled(file)) {
+            if (file.getSourcePath() != null) {
+                try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file.getSourcePath()), MimeTypeUtil.SNIFF_SIZE)) {
+                    if (isCompressible(inputStream, file.getFileName())) {
+                        return uploadCompressedFile(inputStream, file, targetPath);
+                    }
+                }
+            } else {
+                InputStream inputStream = new BufferedInputStream(file.getInputStream(), MimeTypeUtil.SNIFF_SIZE);
+                file.setInputStream(inputStream);
+                if (isCompressible(inputStream, file.getFileName())) {
+                    return uploadCompressedFile(inputStream, file, targetPath);
+                }
+            }
+        }
+
+        if (file.getSourcePath() != null) {
+            log.debug("文件数据已在本地临时文件中，使用文件转移策略");
+            return transferSourceFile(file.getSourcePath(), file.getFileName(), file.getSize(), targetPath);
+        }
+
         if (file.getSize() > LOCAL_SIZE_THRESHOLD) {
             log.debug("文件大小超过阈值，使用大文件分块上传策略");
             // 大文件分块上传
@@ -491,14 +896,12 @@ public class LocalOssServiceImpl implements OssService {
 
             // 直接写入临时文件
 
-            try (var outputStream = Files.newOutputStream(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-                inputStream.transferTo(outputStream);
-            }
+            long bytesWritten = writeStream(inputStream, tempPath, (int) Math.min(Math.max(size, 8192), COPY_BUFFER_SIZE));
             log.debug("文件数据写入临时文件完成");
 
             // 验证文件完整性
             log.debug("验证文件完整性");
-            validateUploadedFile(tempPath, size);
+            validateUploadedFile(bytesWritten, size);
 
             // 原子性移动到目标位置
             log.debug("原子性移动文件到目标位置");
@@ -537,31 +940,14 @@ public class LocalOssServiceImpl implements OssService {
             tempPath = createTempFile(absolutePath);
             log.debug("临时文件创建成功: {}", tempPath);
 
-            // 分块写入大文件（8KB缓冲区）
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytesWritten = 0;
-            long lastProgressTime = System.currentTimeMillis();
-
-            log.debug("开始分块写入大文件，缓冲区大小: {} KB", buffer.length / 1024);
-            try (var outputStream = Files.newOutputStream(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
-
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                    totalBytesWritten += bytesRead;
-
-                    // 定期记录进度（每10MB或每5秒）
-                    long currentTime = System.currentTimeMillis();
-                    if (totalBytesWritten % (10 * 1024 * 1024) == 0 || (currentTime - lastProgressTime) > 5000) {
-                        lastProgressTime = currentTime;
-                    }
-                }
-            }
+            // 分块写入大文件（1MB缓冲区）
+            log.debug("开始分块写入大文件，缓冲区大小: {} KB", COPY_BUFFER_SIZE / 1024);
+            long totalBytesWritten = writeStream(inputStream, tempPath, COPY_BUFFER_SIZE);
             log.debug("大文件数据写入完成，总计: {} MB", totalBytesWritten / (1024 * 1024));
 
             // 验证文件完整性
             log.debug("验证大文件完整性");
-            validateUploadedFile(tempPath, size);
+            validateUploadedFile(totalBytesWritten, size);
 
             // 原子性移动到目标位置
             log.debug("原子性移动大文件到目标位置");
@@ -580,6 +966,163 @@ public class LocalOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 压缩上传文件, 写入临时文件时以 gzip 压缩, 完成后回填文件的压缩编码
+     *
+     * @param inputStream 文件输入流
+     * @param file 文件信息
+     * @param absolutePath 目标路径
+     * @return 上传是否成功
+     */
+    private boolean uploadCompressedFile(InputStream inputStream, UploadFileDTO file, Path absolutePath) {
+        Path tempPath = null;
+        long startTime = System.currentTimeMillis();
+        String filename = file.getFileName();
+        log.debug("开始压缩上传文件 - 文件名: {}, 压缩级别: {}", filename, compressionConfig.getLevel());
+
+        try {
+            tempPath = createTempFile(absolutePath);
+
+            long totalBytesRead = 0;
+            byte[] buffer = COPY_BUFFERS.get();
+            try (OutputStream outputStream = new LeveledGzipOutputStream(Files.newOutputStream(tempPath), compressionConfig.getLevel())) {
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, bytesRead);
+                    totalBytesRead += bytesRead;
+                }
+            }
+            validateUploadedFile(totalBytesRead, file.getSize());
+
+            Files.move(tempPath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            file.setContentEncoding(GZIP_ENCODING);
+
+            log.info("文件压缩上传成功 - 文件名: {}, 原始大小: {} bytes, 压缩后: {} bytes, 耗时: {} ms", filename,
+                    totalBytesRead, Files.size(absolutePath), System.currentTimeMillis() - startTime);
+            return true;
+        } catch (Exception e) {
+            log.warn("文件压缩上传失败 - 文件名: {}, 错误信息: {}", filename, e.getMessage(), e);
+            cleanupTempFile(tempPath);
+            throw new OssException("文件压缩上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 判断文件是否启用压缩存储, 头像不压缩
+     *
+     * @param file 文件信息
+     * @return 是否启用压缩存储
+     */
+    private boolean isCompressionEnabled(UploadFileDTO file) {
+        return file.getVisibility() != VisibilityEnum.USER_INFO
+                && compressionConfig.getVisibilities().contains(file.getVisibility())
+                && file.getSize() >= compressionConfig.getMinSize();
+    }
+
+    /**
+     * 读取文件头部检测文件类型, 判断是否值得压缩, 读取后输入流回到起始位置
+     *
+     * @param inputStream 支持 mark 的输入流
+     * @param filename 文件名
+     * @return 是否值得压缩
+     * @throws IOException 读取失败
+     */
+    private boolean isCompressible(InputStream inputStream, String filename) throws IOException {
+        inputStream.mark(MimeTypeUtil.SNIFF_SIZE);
+        byte[] prefix = inputStream.readNBytes(MimeTypeUtil.SNIFF_SIZE);
+        inputStream.reset();
+        String mimeType = MimeTypeUtil.detect(prefix, filename);
+        boolean compressible = MimeTypeUtil.isCompressible(mimeType);
+        log.debug("文件类型: {}, 是否压缩存储: {}", mimeType, compressible);
+        return compressible;
+    }
+
+    /**
+     * 转移本地临时文件
+     * 优先在同一文件系统内原子重命名, 无法重命名时(如跨文件系统)通过 FileChannel 由内核复制, 数据不经过堆内存
+     *
+     * @param sourcePath 临时文件路径
+     * @param filename 文件名
+     * @param size 文件大小
+     * @param absolutePath 目标路径
+     * @return 上传是否成功
+     */
+    private boolean transferSourceFile(Path sourcePath, String filename, long size, Path absolutePath) {
+        Path tempPath = null;
+        long startTime = System.currentTimeMillis();
+        try {
+            validateUploadedFile(Files.size(sourcePath), size);
+            try {
+                Files.move(sourcePath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("文件转移成功(重命名) - 文件名: {}, 耗时: {} ms", filename, System.currentTimeMillis() - startTime);
+                return true;
+            } catch (AtomicMoveNotSupportedException e) {
+                log.debug("无法原子重命名临时文件，改为通道复制: {}", e.getMessage());
+            }
+
+            tempPath = createTempFile(absolutePath);
+            try (FileChannel source = FileChannel.open(sourcePath, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < size) {
+                    long transferred = target.transferFrom(source, position, size - position);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                validateUploadedFile(position, size);
+            }
+            Files.move(tempPath, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(sourcePath);
+            log.info("文件转移成功(通道复制) - 文件名: {}, 耗时: {} ms", filename, System.currentTimeMillis() - startTime);
+            return true;
+        } catch (Exception e) {
+            log.warn("文件转移失败 - 文件名: {}, 错误信息: {}", filename, e.getMessage(), e);
+            cleanupTempFile(tempPath);
+            throw new OssException("文件转移失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将输入流写入文件, 复用当前线程的复制缓冲区
+     *
+     * @param inputStream 输入流
+     * @param targetPath 目标文件
+     * @param bufferSize 单次读取的字节数上限, 不超过复制缓冲区大小
+     * @return 写入的字节数
+     * @throws IOException 读写失败
+     */
+    private long writeStream(InputStream inputStream, Path targetPath, int bufferSize) throws IOException {
+        byte[] buffer = COPY_BUFFERS.get();
+        int readSize = Math.min(bufferSize, buffer.length);
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        long totalBytesWritten = 0;
+        try (FileChannel channel = FileChannel.open(targetPath, StandardOpenOption.WRITE)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer, 0, readSize)) != -1) {
+                wrapped.clear().limit(bytesRead);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                totalBytesWritten += bytesRead;
+            }
+        }
+        return totalBytesWritten;
+    }
+
+    /**
+     * 创建本地临时文件路径, 位于存储目录所在的文件系统内, 以便上传数据可直接重命名到目标位置
+     *
+     * @param id 文件 ID
+     * @return 临时文件路径(文件尚未创建)
+     */
+    public Path createIngestPath(Long id) {
+        Path ingestDir = Path.of(privatePath, MULTIPART_STAGING_PATH);
+        createDirectoriesIfNotExists(ingestDir);
+        return ingestDir.resolve("ingest-" + id + ".tmp");
+    }
+
     /**
      * 验证文件大小
      *
@@ -639,18 +1182,12 @@ public class LocalOssServiceImpl implements OssService {
     }
 
     /**
-     * 验证上传的文件
+     * 验证上传的文件, 以写入的字节数校验, 无需再次读取文件属性
      *
-     * @param filePath 文件路径
+     * @param actualSize 实际写入的字节数
      * @param expectedSize 期望的文件大小
      */
-    private void validateUploadedFile(Path filePath, long expectedSize) {
-        long actualSize;
-        try {
-            actualSize = Files.size(filePath);
-        } catch (IOException e) {
-            throw new OssException("无法获取文件大小进行验证", e);
-        }
+    private void validateUploadedFile(long actualSize, long expectedSize) {
         if (actualSize != expectedSize) {
             throw new OssException(String.format("文件大小不匹配，期望: %d bytes, 实际: %d bytes", expectedSize, actualSize));
         }
@@ -672,6 +1209,37 @@ public class LocalOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 获取分片目录
+     *
+     * @param uploadId 分片上传 id
+     * @return 分片目录
+     */
+    private Path getStagingDir(String uploadId) {
+        if (!uploadId.matches("[0-9a-f]{32}")) {
+            throw new OssException("非法的分片上传 id");
+        }
+        return Path.of(privatePath, MULTIPART_STAGING_PATH, uploadId).normalize();
+    }
+
+    /**
+     * 删除分片目录
+     *
+     * @param stagingDir 分片目录
+     * @throws IOException 删除失败
+     */
+    private void deleteStagingDir(Path stagingDir) throws IOException {
+        if (!Files.exists(stagingDir)) {
+            return;
+        }
+        try (Stream<Path> parts = Files.list(stagingDir)) {
+            for (Path part : parts.toList()) {
+                Files.deleteIfExists(part);
+            }
+        }
+        Files.deleteIfExists(stagingDir);
+    }
+
     /**
      * 获取完整路径
      *
@@ -695,4 +1263,14 @@ public class LocalOssServiceImpl implements OssService {
         return targetPath.normalize();
     }
 
+    /**
+     * 可指定压缩级别的 gzip 输出流
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream outputStream, int level) throws IOException {
+            super(outputStream, COPY_BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
 }
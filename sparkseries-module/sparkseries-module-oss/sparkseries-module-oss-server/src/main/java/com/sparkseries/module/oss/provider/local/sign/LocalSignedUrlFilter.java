@@ -0,0 +1,122 @@
+package com.sparkseries.module.oss.provider.local.sign;
+
+import com.sparkseries.module.oss.provider.local.oss.LocalOssServiceImpl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地存储签名 URL 过滤器
+ * 校验签名及过期时间后直接响应文件, 不经过控制器, 不查询文件元数据
+ */
+@Slf4j
+@Component
+public class LocalSignedUrlFilter extends OncePerRequestFilter {
+
+    private final LocalUrlSigner urlSigner;
+
+    private final LocalOssServiceImpl localOssService;
+
+    public LocalSignedUrlFilter(LocalUrlSigner urlSigner, LocalOssServiceImpl localOssService) {
+        this.urlSigner = urlSigner;
+        this.localOssService = localOssService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !urlSigner.isEnabled() || !pathWithinApplication(request).startsWith(LocalUrlSigner.PATH_PREFIX + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            response.sendError(HttpStatus.METHOD_NOT_ALLOWED.value());
+            return;
+        }
+
+        String key = decodeKey(pathWithinApplication(request).substring(LocalUrlSigner.PATH_PREFIX.length() + 1));
+        long expires = NumberUtils.toLong(request.getParameter("e"), 0);
+        String disposition = "attachment".equals(request.getParameter("d")) ? "attachment" : "inline";
+        String fileName = StringUtils.defaultIfEmpty(request.getParameter("n"), StringUtils.substringAfterLast("/" + key, "/"));
+        String encoding = request.getParameter("c");
+        if (key == null || !urlSigner.verify(key, expires, disposition, fileName, encoding, request.getParameter("s"))) {
+            log.debug("签名URL校验失败: {}", request.getRequestURI());
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+
+        write(localOssService.serveSignedObject(key, disposition, fileName, encoding, expires), request, response);
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * 解码对象路径, 拒绝空段及相对路径段
+     *
+     * @param rawPath 未解码的对象路径
+     * @return 解码后的对象路径, 路径不合法时为 null
+     */
+    private static String decodeKey(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String rawSegment : rawPath.split("/", -1)) {
+            String segment = UriUtils.decode(rawSegment, StandardCharsets.UTF_8);
+            if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment) || segment.contains("/") || segment.contains("\\")) {
+                return null;
+            }
+            segments.add(segment);
+        }
+        return segments.size() < 2 ? null : String.join("/", segments);
+    }
+
+    /**
+     * 将响应实体写出到 Servlet 响应
+     *
+     * @param entity 响应实体
+     * @param request 当前请求
+     * @param response Servlet 响应
+     * @throws IOException 写出失败
+     */
+    private static void write(ResponseEntity<?> entity, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(entity.getStatusCode().value());
+        entity.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        Object body = entity.getBody();
+        if (body == null || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        OutputStream outputStream = response.getOutputStream();
+        if (body instanceof StreamingResponseBody streamingBody) {
+            streamingBody.writeTo(outputStream);
+        } else if (body instanceof Resource resource) {
+            if (resource.isFile() && entity.getHeaders().getContentLength() < 0) {
+                response.setContentLengthLong(resource.contentLength());
+            }
+            try (InputStream inputStream = resource.getInputStream()) {
+                inputStream.transferTo(outputStream);
+            }
+        }
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,113 @@
+package com.sparkseries.module.oss.provider.local.sign;
+
+import com.sparkseries.module.oss.common.config.LocalSignedUrlConfig;
+import com.sparkseries.module.oss.common.exception.OssException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 本地存储签名 URL 的签名及校验
+ * 签名内容为对象路径、过期时间、响应方式、文件名及内容编码, 校验时不需要查询文件元数据
+ */
+@Slf4j
+@Component
+public class LocalUrlSigner {
+
+    /**
+     * 签名 URL 的路径前缀
+     */
+    public static final String PATH_PREFIX = "/local-object";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final LocalSignedUrlConfig config;
+
+    private final ThreadLocal<Mac> macs;
+
+    public LocalUrlSigner(LocalSignedUrlConfig config) {
+        this.config = config;
+        byte[] secret;
+        if (StringUtils.isBlank(config.getSecret())) {
+            log.warn("[本地签名URL] 未配置签名密钥, 已随机生成, 重启或多实例部署时已签发的URL将无法通过校验");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = config.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new OssException("初始化签名算法失败", e);
+            }
+        });
+    }
+
+    /**
+     * 是否启用签名 URL
+     *
+     * @return 启用时为 true
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 计算本次签发的过期时间
+     * 按有效期划分时间窗口, 同一窗口内签发的 URL 完全相同, 便于客户端及 CDN 复用缓存
+     *
+     * @return 过期时间(秒级时间戳)
+     */
+    public long nextExpires() {
+        long window = config.getExpireSeconds();
+        long now = System.currentTimeMillis() / 1000;
+        return (now / window + 2) * window;
+    }
+
+    /**
+     * 生成签名
+     *
+     * @param key 对象路径
+     * @param expires 过期时间(秒级时间戳)
+     * @param disposition 响应方式
+     * @param fileName 响应的文件名
+     * @param encoding 存储的内容编码, 未压缩时为空
+     * @return URL 安全的 Base64 签名
+     */
+    public String sign(String key, long expires, String disposition, String fileName, String encoding) {
+        String payload = String.join("\n", key, Long.toString(expires), disposition, fileName, StringUtils.defaultString(encoding));
+        byte[] signature = macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    /**
+     * 校验签名及过期时间
+     *
+     * @param key 对象路径
+     * @param expires 过期时间(秒级时间戳)
+     * @param disposition 响应方式
+     * @param fileName 响应的文件名
+     * @param encoding 存储的内容编码
+     * @param signature 待校验的签名
+     * @return 签名正确且未过期时为 true
+     */
+    public boolean verify(String key, long expires, String disposition, String fileName, String encoding, String signature) {
+        if (expires <= System.currentTimeMillis() / 1000 || signature == null) {
+            return false;
+        }
+        String expected = sign(key, expires, disposition, fileName, encoding);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII));
+    }
+}
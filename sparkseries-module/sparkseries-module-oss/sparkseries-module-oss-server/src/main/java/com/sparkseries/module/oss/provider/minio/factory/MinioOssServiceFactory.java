@@ -6,9 +6,10 @@ import com.sparkseries.module.oss.cloud.dao.CloudConfigMapper;
 import com.sparkseries.module.oss.cloud.entity.MinioConfigEntity;
 import com.sparkseries.module.oss.common.api.provider.factory.OssServiceFactory;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.ObjectDiskCache;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.config.PoolConfig;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
 import com.sparkseries.module.oss.provider.minio.connection.MinioValidConnectServiceImpl;
 import com.sparkseries.module.oss.provider.minio.oss.MinioOssServiceImpl;
 import com.sparkseries.module.oss.provider.minio.pool.MinioClientPool;
@@ -32,7 +33,8 @@ public class MinioOssServiceFactory implements OssServiceFactory {
 
     private final CloudConfigMapper cloudConfigMapper;
     private final PoolConfig poolConfig;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectDiskCache objectDiskCache;
 
     /**
      * 获取存储类型
@@ -74,6 +76,9 @@ public class MinioOssServiceFactory implements OssServiceFactory {
         }
 
         MinioClientPool minioClientPool = new MinioClientPool(minio.getEndpoint(), minio.getAccessKey(), minio.getSecretKey(), poolConfig);
-        return new MinioOssServiceImpl(minioClientPool, map, metadataMapper);
+        // 新配置可能更换了密钥, 旧地址不再复用
+        presignedUrlCache.invalidateAll(getStorageType());
+        objectDiskCache.invalidateAll(getStorageType());
+        return new MinioOssServiceImpl(minioClientPool, map, presignedUrlCache);
     }
 }
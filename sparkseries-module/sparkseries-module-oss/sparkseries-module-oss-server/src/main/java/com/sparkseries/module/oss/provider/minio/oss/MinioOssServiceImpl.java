@@ -4,14 +4,15 @@ import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
-import com.sparkseries.module.oss.file.vo.FileInfoVO;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
-import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
 import com.sparkseries.module.oss.provider.minio.pool.MinioClientPool;
 import io.minio.*;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.net.URLCodec;
@@ -24,7 +25,7 @@ import java.util.stream.Collectors;
 
 import static com.sparkeries.constant.Constants.AVATAR_STORAGE_PATH;
 import static com.sparkeries.constant.Constants.MINIO_SIZE_THRESHOLD;
-import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
+import static com.sparkeries.constant.Constants.MULTIPART_STAGING_PATH;
 import static com.sparkeries.enums.StorageTypeEnum.MINIO;
 import static com.sparkeries.enums.VisibilityEnum.*;
 
@@ -34,16 +35,27 @@ import static com.sparkeries.enums.VisibilityEnum.*;
 @Slf4j
 public class MinioOssServiceImpl implements OssService {
 
+    /**
+     * 下载地址有效期(秒)
+     */
+    private static final int DOWNLOAD_URL_EXPIRE_SECONDS = 30 * 60;
+
+    /**
+     * 预览地址有效期(秒)
+     */
+    private static final int PREVIEW_URL_EXPIRE_SECONDS = 3 * 60;
+
     public final MinioClientPool clientPool;
     public final Map<VisibilityEnum, String> bucketName;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
 
-    public MinioOssServiceImpl(MinioClientPool clientPool, Map<VisibilityEnum, String> bucketName, MetadataMapper metadataMapper) {
+    public MinioOssServiceImpl(MinioClientPool clientPool, Map<VisibilityEnum, String> bucketName,
+                               PresignedUrlCache presignedUrlCache) {
 
         log.info("[初始化Minio服务] 开始初始化Minio存储服务");
         this.clientPool = clientPool;
         this.bucketName = bucketName;
-        this.metadataMapper = metadataMapper;
+        this.presignedUrlCache = presignedUrlCache;
         log.debug("Minio客户端连接池实例: {}", clientPool.getClass().getSimpleName());
         log.info("[初始化Minio服务] Minio存储服务初始化完成，存储桶: {}", bucketName);
     }
@@ -56,6 +68,7 @@ public class MinioOssServiceImpl implements OssService {
      */
     @Override
     public boolean uploadFile(UploadFileDTO file) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
         String absolutePath = String.join("/",file.getFolderPath(), file.getFileName());
         String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
         log.info("[上传文件操作] 开始上传文件:{}到Minio", targetPath);
@@ -127,6 +140,7 @@ public class MinioOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", folderPath, fileName), visibility, userId);
         String bucketName = getBucketName(visibility);
         String absolutePath = String.join("/",folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
@@ -160,6 +174,7 @@ public class MinioOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFolder(String folderName, String folderPath, VisibilityEnum visibility, String userId) {
+        presignedUrlCache.invalidatePrefix(MINIO, getBucketName(visibility), getTargetPath(String.join("/", folderPath, folderName), visibility, userId) + "/");
         MinioClient client = null;
 
         String bucketName = getBucketName(visibility);
@@ -217,6 +232,10 @@ public class MinioOssServiceImpl implements OssService {
         String bucketName = getBucketName(visibility);
         String absolutePath = String.join("/",folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
+        String cachedUrl = presignedUrlCache.get(MINIO, bucketName, targetPath, PresignedUrlCache.ATTACHMENT);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         log.info("[下载文件操作] 开始获取下载链接 - 文件路径: {}, 下载文件名: {}", targetPath, fileName);
         try {
             log.debug("开始编码下载文件名: {}", fileName);
@@ -229,11 +248,12 @@ public class MinioOssServiceImpl implements OssService {
 
             client = clientPool.getClient();
 
-            String url = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(targetPath).method(Method.GET).expiry(30, TimeUnit.MINUTES).extraQueryParams(reqParams).build());
+            String url = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(targetPath).method(Method.GET).expiry(DOWNLOAD_URL_EXPIRE_SECONDS, TimeUnit.SECONDS).extraQueryParams(reqParams).build());
 
 
             log.info("[下载文件操作] 获取下载链接成功 - 文件路径: {}, 链接有效期: 30分钟", targetPath);
             log.debug("生成的下载链接: {}", url);
+            presignedUrlCache.put(MINIO, bucketName, targetPath, PresignedUrlCache.ATTACHMENT, url, DOWNLOAD_URL_EXPIRE_SECONDS);
             return url;
         } catch (Exception e) {
 
@@ -247,29 +267,6 @@ public class MinioOssServiceImpl implements OssService {
 
     }
 
-    /**
-     * 列出指定路径下的文件和文件夹
-     *
-     * @param folderName 文件夹名称
-     * @param folderPath 文件夹路径
-     * @param visibility 文件可见性
-     * @return 文件和文件夹信息列表
-     */
-    @Override
-    public FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId) {
-
-        String absolutePath = String.join("/",folderPath, folderName);
-
-        log.info("[列出文件操作] 开始列出路径下的文件和文件夹: {}", absolutePath);
-
-        List<FileInfoVO> fileInfos = metadataMapper.listFileByFolderPath(absolutePath, MINIO, visibility, userId);
-
-        Set<FolderInfoVO> folders = metadataMapper.listFolderNameByFolderPath(absolutePath, MINIO, visibility, userId).stream().map(s -> new FolderInfoVO(s, folderPath)).collect(Collectors.toSet());
-        folders.addAll(metadataMapper.listFolderPathByFolderName(folderPath, LOCAL, visibility).stream().map(s -> new FolderInfoVO(s.replace(folderPath, "").split("/")[0], folderPath)).collect(Collectors.toSet()));
-
-        return new FilesAndFoldersVO(fileInfos, folders);
-    }
-
     /**
      * 生成文件的预览链接
      *
@@ -282,6 +279,11 @@ public class MinioOssServiceImpl implements OssService {
     @Override
     public String previewFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
         String bucketName = getBucketName(visibility);
+        String targetPath = getTargetPath(String.join("/", folderPath, fileName), visibility, userId);
+        String cachedUrl = presignedUrlCache.get(MINIO, bucketName, targetPath, PresignedUrlCache.INLINE);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         Map<String, String> extraQueryParams = new HashMap<>(1);
         // 设置 Content-Disposition 为 inline，提示浏览器在线预览
         extraQueryParams.put("response-content-disposition", "inline");
@@ -290,10 +292,11 @@ public class MinioOssServiceImpl implements OssService {
         log.info("[预览文件操作] 开始获取预览链接 - 文件路径: {}", fileName);
         try {
             client = clientPool.getClient();
-            String url = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(fileName).method(Method.GET).expiry(3, TimeUnit.MINUTES).extraQueryParams(extraQueryParams).build());
+            String url = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(targetPath).method(Method.GET).expiry(PREVIEW_URL_EXPIRE_SECONDS, TimeUnit.SECONDS).extraQueryParams(extraQueryParams).build());
 
             long duration = System.currentTimeMillis() - startTime;
             log.info("[预览文件操作] 获取预览链接成功 - 文件路径: {}, 链接有效期: 3分钟, 耗时: {} ms", fileName, duration);
+            presignedUrlCache.put(MINIO, bucketName, targetPath, PresignedUrlCache.INLINE, url, PREVIEW_URL_EXPIRE_SECONDS);
             return url;
         } catch (Exception e) {
             long duration = System.currentTimeMillis() - startTime;
@@ -319,6 +322,8 @@ public class MinioOssServiceImpl implements OssService {
      */
     @Override
     public boolean moveFile(String fileName, String sourceFolderPath, String targetFolderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", sourceFolderPath, fileName), visibility, userId);
+        invalidatePresignedUrl(String.join("/", targetFolderPath, fileName), visibility, userId);
         MinioClient client = null;
         String sourceAbsolutePath = String.join("/",sourceFolderPath, fileName);
         String targetAbsolutePath = String.join("/",targetFolderPath, fileName);
@@ -359,6 +364,197 @@ public class MinioOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 初始化分片上传
+     * Minio 客户端未公开原生分片上传接口, 分片以临时对象保存, 完成时通过 composeObject 合并
+     *
+     * @param file 文件信息
+     * @return 分片上传 id
+     */
+    @Override
+    public String initiateMultipartUpload(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        log.info("[分片上传操作] Minio 分片上传初始化成功: {}, uploadId: {}", targetPath, uploadId);
+        return uploadId;
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param file 分片信息
+     * @param uploadId 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片 ETag
+     */
+    @Override
+    public String uploadPart(UploadFileDTO file, String uploadId, int partNumber) {
+        String bucketName = getBucketName(file.getVisibility());
+        String partObject = getPartObjectName(uploadId, partNumber);
+        MinioClient client = null;
+        try (InputStream inputStream = file.getInputStream()) {
+            client = clientPool.getClient();
+            ObjectWriteResponse response = client.putObject(PutObjectArgs.builder().bucket(bucketName).object(partObject)
+                    .stream(inputStream, file.getSize(), -1).build());
+            log.debug("[分片上传操作] Minio 分片 {} 上传成功: {}, 大小: {} bytes", partNumber, partObject, file.getSize());
+            return response.etag();
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Minio 分片 {} 上传失败: {}, 错误信息: {}", partNumber, partObject, e.getMessage(), e);
+            throw new OssException("分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    @Override
+    public boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
+        String bucketName = getBucketName(file.getVisibility());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        List<ComposeSource> sources = new TreeMap<>(partETags).keySet().stream()
+                .map(partNumber -> ComposeSource.builder().bucket(bucketName).object(getPartObjectName(uploadId, partNumber)).build())
+                .collect(Collectors.toCollection(ArrayList::new));
+        MinioClient client = null;
+        try {
+            client = clientPool.getClient();
+            client.composeObject(ComposeObjectArgs.builder().bucket(bucketName).object(targetPath).sources(sources).build());
+            log.info("[分片上传操作] Minio 分片合并成功: {}, 分片数: {}", targetPath, sources.size());
+            removePartObjects(client, bucketName, uploadId);
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Minio 分片合并失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片合并失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id
+     * @return 操作结果
+     */
+    @Override
+    public boolean abortMultipartUpload(UploadFileDTO file, String uploadId) {
+        String bucketName = getBucketName(file.getVisibility());
+        MinioClient client = null;
+        try {
+            client = clientPool.getClient();
+            removePartObjects(client, bucketName, uploadId);
+            log.info("[分片上传操作] Minio 已取消分片上传, uploadId: {}", uploadId);
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Minio 取消分片上传失败, uploadId: {}, 错误信息: {}", uploadId, e.getMessage(), e);
+            throw new OssException("取消分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 生成预签名上传地址, 分片直接上传为暂存对象, 完成时再合并
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id, 为空时生成整体上传地址
+     * @param partNumber 分片序号
+     * @param expireSeconds 地址有效期(秒)
+     * @return 预签名上传地址
+     */
+    @Override
+    public PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds) {
+        String bucketName = getBucketName(file.getVisibility());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String objectName = uploadId == null
+                ? getTargetPath(absolutePath, file.getVisibility(), file.getUserId())
+                : getPartObjectName(uploadId, partNumber);
+        MinioClient client = null;
+        try {
+            client = clientPool.getClient();
+            String url = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder().bucket(bucketName).object(objectName)
+                    .method(Method.PUT).expiry(expireSeconds, TimeUnit.SECONDS).build());
+            log.debug("[直传操作] Minio 生成预签名上传地址: {}", objectName);
+            return new PresignedUploadVO(partNumber, Method.PUT.name(), url, Map.of(), Map.of());
+        } catch (Exception e) {
+            log.warn("[直传操作] Minio 生成预签名上传地址失败: {}, 错误信息: {}", objectName, e.getMessage(), e);
+            throw new OssException("生成上传地址失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 获取对象元信息
+     *
+     * @param file 文件信息
+     * @return 对象大小及 ETag
+     */
+    @Override
+    public ObjectStatDTO statObject(UploadFileDTO file) {
+        String bucketName = getBucketName(file.getVisibility());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        MinioClient client = null;
+        try {
+            client = clientPool.getClient();
+            StatObjectResponse stat = client.statObject(StatObjectArgs.builder().bucket(bucketName).object(targetPath).build());
+            return new ObjectStatDTO(stat.size(), stat.etag());
+        } catch (Exception e) {
+            log.warn("[直传操作] Minio 获取对象元信息失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("获取文件信息失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 打开存储对象的输入流
+     *
+     * @param file 文件信息
+     * @return 对象内容的输入流
+     */
+    @Override
+    public InputStream openObject(UploadFileDTO file) {
+        String bucketName = getBucketName(file.getVisibility());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        MinioClient client = null;
+        try {
+            client = clientPool.getClient();
+            return client.getObject(GetObjectArgs.builder().bucket(bucketName).object(targetPath).build());
+        } catch (Exception e) {
+            log.warn("[读取文件操作] Minio 打开对象失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
     /**
      * 获取当前存储类型
      *
@@ -430,6 +626,40 @@ public class MinioOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 获取分片临时对象名
+     *
+     * @param uploadId 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片临时对象名
+     */
+    private String getPartObjectName(String uploadId, int partNumber) {
+        return String.join("/", MULTIPART_STAGING_PATH, uploadId, String.valueOf(partNumber));
+    }
+
+    /**
+     * 删除分片临时对象
+     *
+     * @param client Minio 客户端
+     * @param bucketName 桶名
+     * @param uploadId 分片上传 id
+     * @throws Exception 删除失败
+     */
+    private void removePartObjects(MinioClient client, String bucketName, String uploadId) throws Exception {
+        String prefix = String.join("/", MULTIPART_STAGING_PATH, uploadId) + "/";
+        List<DeleteObject> parts = new ArrayList<>();
+        for (Result<Item> item : client.listObjects(ListObjectsArgs.builder().bucket(bucketName).prefix(prefix).recursive(true).build())) {
+            parts.add(new DeleteObject(item.get().objectName()));
+        }
+        if (parts.isEmpty()) {
+            return;
+        }
+        for (Result<DeleteError> result : client.removeObjects(RemoveObjectsArgs.builder().bucket(bucketName).objects(parts).build())) {
+            DeleteError error = result.get();
+            log.warn("[分片上传操作] Minio 删除分片临时对象失败: {}, 错误信息: {}", error.objectName(), error.message());
+        }
+    }
+
     /**
      * 获取目标路径
      *
@@ -477,4 +707,16 @@ public class MinioOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 失效对象的预签名地址缓存
+     *
+     * @param absolutePath 文件的绝对路径
+     * @param visibility 文件可见性
+     * @param userId 用户 ID
+     */
+    private void invalidatePresignedUrl(String absolutePath, VisibilityEnum visibility, String userId) {
+        if (visibility != null) {
+            presignedUrlCache.invalidate(MINIO, getBucketName(visibility), getTargetPath(absolutePath, visibility, userId));
+        }
+    }
 }
@@ -6,9 +6,10 @@ import com.sparkseries.module.oss.cloud.dao.CloudConfigMapper;
 import com.sparkseries.module.oss.cloud.entity.KodoConfigEntity;
 import com.sparkseries.module.oss.common.api.provider.factory.OssServiceFactory;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.ObjectDiskCache;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.config.PoolConfig;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
 import com.sparkseries.module.oss.provider.qiniu.connection.KodoValidConnectServiceImpl;
 import com.sparkseries.module.oss.provider.qiniu.oss.KodoOssServiceImpl;
 import com.sparkseries.module.oss.provider.qiniu.pool.KodoClientPool;
@@ -32,7 +33,8 @@ public class KodoOssServiceFactory implements OssServiceFactory {
 
     private final CloudConfigMapper cloudConfigMapper;
     private final PoolConfig poolConfig;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectDiskCache objectDiskCache;
 
     /**
      * 获取存储类型
@@ -73,6 +75,9 @@ public class KodoOssServiceFactory implements OssServiceFactory {
         }
         KodoClientPool kodoClientPool = new KodoClientPool(kodo.getAccessKey(), kodo.getSecretKey(), poolConfig);
 
-        return new KodoOssServiceImpl(kodoClientPool, map, metadataMapper);
+        // 新配置可能更换了密钥, 旧地址不再复用
+        presignedUrlCache.invalidateAll(getStorageType());
+        objectDiskCache.invalidateAll(getStorageType());
+        return new KodoOssServiceImpl(kodoClientPool, map, presignedUrlCache);
     }
 }
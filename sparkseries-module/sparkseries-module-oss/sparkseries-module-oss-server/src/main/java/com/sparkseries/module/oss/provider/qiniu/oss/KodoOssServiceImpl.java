@@ -1,23 +1,21 @@
 package com.sparkseries.module.oss.provider.qiniu.oss;
 
 import com.qiniu.common.QiniuException;
+import com.qiniu.http.Client;
 import com.qiniu.http.Response;
-import com.qiniu.storage.BucketManager;
-import com.qiniu.storage.Configuration;
-import com.qiniu.storage.Region;
-import com.qiniu.storage.UploadManager;
+import com.qiniu.storage.*;
 import com.qiniu.storage.model.FileInfo;
 import com.qiniu.storage.model.FileListing;
 import com.qiniu.util.Auth;
+import com.qiniu.util.UrlSafeBase64;
 import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
-import com.sparkseries.module.oss.file.vo.FileInfoVO;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
-import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
 import com.sparkseries.module.oss.provider.qiniu.pool.KodoClientPool;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.CharEncoding;
@@ -26,19 +24,17 @@ import org.apache.commons.codec.net.URLCodec;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.sparkeries.constant.Constants.AVATAR_STORAGE_PATH;
 import static com.sparkeries.constant.Constants.KODO_SIZE_THRESHOLD;
 import static com.sparkeries.enums.StorageTypeEnum.KODO;
-import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
 import static com.sparkeries.enums.VisibilityEnum.*;
 
 /**
@@ -47,17 +43,28 @@ import static com.sparkeries.enums.VisibilityEnum.*;
 @Slf4j
 public class KodoOssServiceImpl implements OssService {
 
+    /**
+     * 下载地址有效期(秒)
+     */
+    private static final int DOWNLOAD_URL_EXPIRE_SECONDS = 3600;
+
+    /**
+     * 预览地址有效期(秒)
+     */
+    private static final int PREVIEW_URL_EXPIRE_SECONDS = 300;
+
     private final Map<VisibilityEnum, String> bucketName;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
     private final Configuration config;
     private final KodoClientPool clientPool;
 
-    public KodoOssServiceImpl(KodoClientPool clientPool, Map<VisibilityEnum, String> bucketName, MetadataMapper metadataMapper) {
+    public KodoOssServiceImpl(KodoClientPool clientPool, Map<VisibilityEnum, String> bucketName,
+                              PresignedUrlCache presignedUrlCache) {
 
         log.info("[初始化Kodo存储服务] 开始初始化，存储桶: {}", bucketName);
         this.bucketName = bucketName;
         this.clientPool = clientPool;
-        this.metadataMapper = metadataMapper;
+        this.presignedUrlCache = presignedUrlCache;
         this.config = new Configuration(Region.autoRegion());
         config.resumableUploadAPIVersion = Configuration.ResumableUploadAPIVersion.V2;
         config.resumableUploadMaxConcurrentTaskCount = 20;
@@ -88,6 +95,7 @@ public class KodoOssServiceImpl implements OssService {
      */
     @Override
     public boolean uploadFile(UploadFileDTO file) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
         String filename = file.getFileName();
         String folderPath = file.getFolderPath();
         String absolutePath = String.join("/",folderPath, filename);
@@ -190,6 +198,7 @@ public class KodoOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", folderPath, fileName), visibility, userId);
         String absolutePath = String.join("/",folderPath, fileName);
         String bucketName = getBucketName(visibility);
         log.info("[删除文件操作] 开始删除文件: {}", absolutePath);
@@ -230,6 +239,7 @@ public class KodoOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFolder(String folderName, String folderPath, VisibilityEnum visibility, String userId) {
+        presignedUrlCache.invalidatePrefix(KODO, getBucketName(visibility), getTargetPath(String.join("/", folderPath, folderName), visibility, userId) + "/");
 
         String absolutePath = String.join("/",folderPath, folderName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
@@ -291,6 +301,10 @@ public class KodoOssServiceImpl implements OssService {
         String absolutePath = String.join("/",folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
         String bucketName = getBucketName(visibility);
+        String cachedUrl = presignedUrlCache.get(KODO, bucketName, targetPath, PresignedUrlCache.ATTACHMENT);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         log.info("[下载文件操作] 开始生成文件:{}下载链接", targetPath);
         Auth client = null;
         try {
@@ -312,8 +326,9 @@ public class KodoOssServiceImpl implements OssService {
             String baseUrl = domains[0] + "/" + encodedAbsolutePath + "?attname=" + encodedFileName;
 
             // 生成带签名的私有下载 URL，有效期 1 小时 (3600 秒)
-            String downloadUrl = client.privateDownloadUrl(baseUrl);
+            String downloadUrl = client.privateDownloadUrl(baseUrl, DOWNLOAD_URL_EXPIRE_SECONDS);
             log.info("[下载文件操作] 生成下载 URL 成功: {}", downloadUrl);
+            presignedUrlCache.put(KODO, bucketName, targetPath, PresignedUrlCache.ATTACHMENT, downloadUrl, DOWNLOAD_URL_EXPIRE_SECONDS);
             return downloadUrl;
         } catch (Exception e) {
             log.warn("[下载文件操作] 生成下载链接时发生异常: {}", e.getMessage(), e);
@@ -327,31 +342,6 @@ public class KodoOssServiceImpl implements OssService {
 
     }
 
-    /**
-     * 列出指定路径下的文件和文件夹
-     *
-     * @param folderName 文件夹名称
-     * @param folderPath 文件夹路径
-     * @param visibility 文件可见性
-     * @param userId 用户 ID
-     * @return 文件和文件夹信息列表
-     */
-    @Override
-    public FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId) {
-
-        String absolutePath = String.join("/",folderPath, folderName);
-
-        log.info("[列出文件操作] 开始列出路径下的文件和文件夹: {}", absolutePath);
-
-
-        List<FileInfoVO> fileInfos = metadataMapper.listFileByFolderPath(absolutePath, KODO, visibility, userId);
-
-        Set<FolderInfoVO> folders = metadataMapper.listFolderNameByFolderPath(absolutePath, KODO, visibility, userId).stream().map(s -> new FolderInfoVO(s, folderPath)).collect(Collectors.toSet());
-        folders.addAll(metadataMapper.listFolderPathByFolderName(folderPath, LOCAL, visibility).stream().map(s -> new FolderInfoVO(s.replace(folderPath, "").split("/")[0], folderPath)).collect(Collectors.toSet()));
-
-        return new FilesAndFoldersVO(fileInfos, folders);
-    }
-
     /**
      * 生成文件预览链接
      *
@@ -366,9 +356,13 @@ public class KodoOssServiceImpl implements OssService {
         String absolutePath = String.join("/",folderPath, fileName);
         String bucketName = getBucketName(visibility);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
+        String cachedUrl = presignedUrlCache.get(KODO, bucketName, targetPath, PresignedUrlCache.INLINE);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         log.info("[预览文件操作] 开始生成预览链接: {}", targetPath);
         Auth client = null;
-        int expiryInSeconds = 300;
+        int expiryInSeconds = PREVIEW_URL_EXPIRE_SECONDS;
         try {
             log.debug("[预览文件操作] 从连接池获取Kodo客户端连接");
             client = clientPool.getClient();
@@ -381,6 +375,7 @@ public class KodoOssServiceImpl implements OssService {
 
             log.info("[预览文件操作] 成功为文件 '{}' 生成预签名 URL，有效期 {} 秒。", targetPath,
                     expiryInSeconds);
+            presignedUrlCache.put(KODO, bucketName, targetPath, PresignedUrlCache.INLINE, signedUrl, expiryInSeconds);
             return signedUrl;
 
         } catch (Exception e) {
@@ -407,6 +402,8 @@ public class KodoOssServiceImpl implements OssService {
      */
     @Override
     public boolean moveFile(String fileName, String sourceFolderPath, String targetFolderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", sourceFolderPath, fileName), visibility, userId);
+        invalidatePresignedUrl(String.join("/", targetFolderPath, fileName), visibility, userId);
         String sourceAbsolutePath = String.join("/",sourceFolderPath, fileName);
         String targetAbsolutePath = String.join("/",targetFolderPath, fileName);
         String bucketName = getBucketName(visibility);
@@ -466,6 +463,224 @@ public class KodoOssServiceImpl implements OssService {
 
     }
 
+    /**
+     * 初始化分片上传（分片上传 V2）
+     *
+     * @param file 文件信息
+     * @return Kodo 分片上传 id
+     */
+    @Override
+    public String initiateMultipartUpload(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        String bucketName = getBucketName(file.getVisibility());
+        Auth client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadToken = client.uploadToken(bucketName, targetPath);
+            ApiUploadV2InitUpload.Request request = new ApiUploadV2InitUpload.Request(config.upHost(uploadToken), uploadToken)
+                    .setKey(targetPath);
+            String uploadId = new ApiUploadV2InitUpload(new Client(config)).request(request).getUploadId();
+            log.info("[分片上传操作] Kodo 分片上传初始化成功: {}, uploadId: {}", targetPath, uploadId);
+            return uploadId;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Kodo 分片上传初始化失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片上传初始化失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 上传单个分片（分片上传 V2）
+     *
+     * @param file 分片信息
+     * @param uploadId Kodo 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片 ETag
+     */
+    @Override
+    public String uploadPart(UploadFileDTO file, String uploadId, int partNumber) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String bucketName = getBucketName(file.getVisibility());
+        Auth client = null;
+        try (InputStream inputStream = file.getInputStream()) {
+            client = clientPool.getClient();
+            String uploadToken = client.uploadToken(bucketName, targetPath);
+            ApiUploadV2UploadPart.Request request = new ApiUploadV2UploadPart.Request(config.upHost(uploadToken), uploadToken, uploadId, partNumber)
+                    .setKey(targetPath)
+                    .setUploadData(inputStream, "application/octet-stream", file.getSize());
+            String eTag = new ApiUploadV2UploadPart(new Client(config)).request(request).getEtag();
+            log.debug("[分片上传操作] Kodo 分片 {} 上传成功: {}, 大小: {} bytes", partNumber, targetPath, file.getSize());
+            return eTag;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Kodo 分片 {} 上传失败: {}, 错误信息: {}", partNumber, targetPath, e.getMessage(), e);
+            throw new OssException("分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 完成分片上传（分片上传 V2）
+     *
+     * @param file 文件信息
+     * @param uploadId Kodo 分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    @Override
+    public boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        String bucketName = getBucketName(file.getVisibility());
+        List<Map<String, Object>> partsInfo = new TreeMap<>(partETags).entrySet().stream()
+                .map(entry -> Map.<String, Object>of(
+                        ApiUploadV2CompleteUpload.Request.PART_NUMBER, entry.getKey(),
+                        ApiUploadV2CompleteUpload.Request.PART_ETG, entry.getValue()))
+                .collect(Collectors.toList());
+        Auth client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadToken = client.uploadToken(bucketName, targetPath);
+            ApiUploadV2CompleteUpload.Request request = new ApiUploadV2CompleteUpload.Request(config.upHost(uploadToken), uploadToken, uploadId, partsInfo)
+                    .setKey(targetPath)
+                    .setFileName(file.getFileName());
+            new ApiUploadV2CompleteUpload(new Client(config)).request(request);
+            log.info("[分片上传操作] Kodo 分片合并成功: {}, 分片数: {}", targetPath, partsInfo.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Kodo 分片合并失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片合并失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 取消分片上传（分片上传 V2）
+     *
+     * @param file 文件信息
+     * @param uploadId Kodo 分片上传 id
+     * @return 操作结果
+     */
+    @Override
+    public boolean abortMultipartUpload(UploadFileDTO file, String uploadId) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String bucketName = getBucketName(file.getVisibility());
+        Auth client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadToken = client.uploadToken(bucketName, targetPath);
+            ApiUploadV2AbortUpload.Request request = new ApiUploadV2AbortUpload.Request(config.upHost(uploadToken), uploadToken, uploadId)
+                    .setKey(targetPath);
+            new ApiUploadV2AbortUpload(new Client(config)).request(request);
+            log.info("[分片上传操作] Kodo 已取消分片上传: {}, uploadId: {}", targetPath, uploadId);
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] Kodo 取消分片上传失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("取消分片上传失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 生成直传上传地址
+     * <p>
+     * Kodo 不支持预签名 URL, 整体上传使用表单上传(携带上传凭证表单字段),
+     * 分片上传使用分片上传 v2 接口(携带上传凭证请求头)
+     *
+     * @param file 文件信息
+     * @param uploadId 分片上传 id, 为空时生成整体上传地址
+     * @param partNumber 分片序号
+     * @param expireSeconds 上传凭证有效期(秒)
+     * @return 上传地址
+     */
+    @Override
+    public PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String bucketName = getBucketName(file.getVisibility());
+        Auth client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadToken = client.uploadToken(bucketName, targetPath, expireSeconds, null);
+            String upHost = config.upHost(uploadToken);
+            if (uploadId == null) {
+                return new PresignedUploadVO(partNumber, "POST", upHost, Map.of(),
+                        Map.of("token", uploadToken, "key", targetPath));
+            }
+            String url = String.format("%s/buckets/%s/objects/%s/uploads/%s/%d",
+                    upHost, bucketName, UrlSafeBase64.encodeToString(targetPath), uploadId, partNumber);
+            return new PresignedUploadVO(partNumber, "PUT", url, Map.of("Authorization", "UpToken " + uploadToken), Map.of());
+        } catch (Exception e) {
+            log.warn("[直传操作] Kodo 生成上传地址失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("生成上传地址失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 获取对象元信息
+     *
+     * @param file 文件信息
+     * @return 对象大小及 hash(Kodo 的 ETag)
+     */
+    @Override
+    public ObjectStatDTO statObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        String bucketName = getBucketName(file.getVisibility());
+        Auth client = null;
+        try {
+            client = clientPool.getClient();
+            FileInfo fileInfo = new BucketManager(client, config).stat(bucketName, targetPath);
+            return new ObjectStatDTO(fileInfo.fsize, fileInfo.hash);
+        } catch (Exception e) {
+            log.warn("[直传操作] Kodo 获取对象元信息失败: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("获取文件信息失败: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                clientPool.returnClient(client);
+            }
+        }
+    }
+
+    /**
+     * 打开存储对象的输入流
+     * Kodo SDK 不提供对象读取接口, 通过私有下载地址读取
+     *
+     * @param file 文件信息
+     * @return 对象内容的输入流
+     */
+    @Override
+    public InputStream openObject(UploadFileDTO file) {
+        String url = previewFile(file.getFileName(), file.getFolderPath(), file.getVisibility(), file.getUserId());
+        try {
+            return new URL(url.contains("://") ? url : "http://" + url).openStream();
+        } catch (IOException e) {
+            log.warn("[读取文件操作] Kodo 打开对象失败: {}, 错误信息: {}", file.getFileName(), e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取当前存储类型
      *
@@ -705,4 +920,16 @@ public class KodoOssServiceImpl implements OssService {
         }
     }
 
+    /**
+     * 失效对象的预签名地址缓存
+     *
+     * @param absolutePath 文件的绝对路径
+     * @param visibility 文件可见性
+     * @param userId 用户 ID
+     */
+    private void invalidatePresignedUrl(String absolutePath, VisibilityEnum visibility, String userId) {
+        if (visibility != null) {
+            presignedUrlCache.invalidate(KODO, getBucketName(visibility), getTargetPath(absolutePath, visibility, userId));
+        }
+    }
 }
@@ -6,9 +6,11 @@ import com.sparkseries.module.oss.cloud.dao.CloudConfigMapper;
 import com.sparkseries.module.oss.cloud.entity.CosConfigEntity;
 import com.sparkseries.module.oss.common.api.provider.factory.OssServiceFactory;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.ObjectDiskCache;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
 import com.sparkseries.module.oss.common.config.PoolConfig;
+import com.sparkseries.module.oss.common.config.TransferExecutor;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
 import com.sparkseries.module.oss.provider.tencent.connection.CosValidConnectServiceImpl;
 import com.sparkseries.module.oss.provider.tencent.oss.CosOssServiceImpl;
 import com.sparkseries.module.oss.provider.tencent.pool.CosClientPool;
@@ -30,7 +32,9 @@ public class CosOssServiceFactory implements OssServiceFactory {
 
     private final CloudConfigMapper cloudConfigMapper;
     private final PoolConfig poolConfig;
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectDiskCache objectDiskCache;
+    private final TransferExecutor transferExecutor;
 
     /**
      * 获取存储类型
@@ -72,6 +76,9 @@ public class CosOssServiceFactory implements OssServiceFactory {
             throw new OssException("保存的COS存储配置失效了请重新保存");
         }
         CosClientPool cosClientPool = new CosClientPool(cos.getSecretId(), cos.getSecretKey(), cos.getRegion(), poolConfig);
-        return new CosOssServiceImpl(cosClientPool, map, metadataMapper);
+        // 新配置可能更换了密钥, 旧地址不再复用
+        presignedUrlCache.invalidateAll(getStorageType());
+        objectDiskCache.invalidateAll(getStorageType());
+        return new CosOssServiceImpl(cosClientPool, map, transferExecutor, presignedUrlCache);
     }
 }
\ No newline at end of file
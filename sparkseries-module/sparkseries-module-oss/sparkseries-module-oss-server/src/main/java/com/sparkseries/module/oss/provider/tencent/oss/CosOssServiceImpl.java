@@ -1,19 +1,17 @@
 package com.sparkseries.module.oss.provider.tencent.oss;
 
 import com.qcloud.cos.COSClient;
-import com.qcloud.cos.event.ProgressEventType;
 import com.qcloud.cos.model.*;
-import com.qcloud.cos.transfer.TransferManager;
-import com.qcloud.cos.transfer.Upload;
 import com.sparkeries.dto.UploadFileDTO;
 import com.sparkeries.enums.StorageTypeEnum;
 import com.sparkeries.enums.VisibilityEnum;
 import com.sparkseries.module.oss.common.api.provider.service.OssService;
+import com.sparkseries.module.oss.common.cache.PresignedUrlCache;
+import com.sparkseries.module.oss.common.config.TransferExecutor;
 import com.sparkseries.module.oss.common.exception.OssException;
-import com.sparkseries.module.oss.file.dao.MetadataMapper;
-import com.sparkseries.module.oss.file.vo.FileInfoVO;
-import com.sparkseries.module.oss.file.vo.FilesAndFoldersVO;
-import com.sparkseries.module.oss.file.vo.FolderInfoVO;
+import com.sparkseries.module.oss.common.util.PartBufferPool;
+import com.sparkseries.module.oss.file.dto.ObjectStatDTO;
+import com.sparkseries.module.oss.file.vo.PresignedUploadVO;
 import com.sparkseries.module.oss.provider.tencent.pool.CosClientPool;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.CharEncoding;
@@ -23,13 +21,14 @@ import java.io.*;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.qcloud.cos.http.HttpMethodName.GET;
+import static com.qcloud.cos.http.HttpMethodName.PUT;
 import static com.sparkeries.constant.Constants.AVATAR_STORAGE_PATH;
 import static com.sparkeries.constant.Constants.COS_SIZE_THRESHOLD;
 import static com.sparkeries.enums.StorageTypeEnum.COS;
-import static com.sparkeries.enums.StorageTypeEnum.LOCAL;
 import static com.sparkeries.enums.VisibilityEnum.*;
 
 /**
@@ -38,18 +37,33 @@ import static com.sparkeries.enums.VisibilityEnum.*;
 @Slf4j
 public class CosOssServiceImpl implements OssService {
 
+    /**
+     * 下载地址有效期(秒)
+     */
+    private static final int DOWNLOAD_URL_EXPIRE_SECONDS = 30;
+
+    /**
+     * 预览地址有效期(秒)
+     */
+    private static final int PREVIEW_URL_EXPIRE_SECONDS = 3 * 60;
+
     private final CosClientPool clientPool;
 
     private final Map<VisibilityEnum, String> bucketName;
 
-    private final MetadataMapper metadataMapper;
+    private final PresignedUrlCache presignedUrlCache;
+
+    private final TransferExecutor transferExecutor;
 
-    public CosOssServiceImpl(CosClientPool clientPool, Map<VisibilityEnum, String> bucketName, MetadataMapper metadataMapper) {
+    public CosOssServiceImpl(CosClientPool clientPool, Map<VisibilityEnum, String> bucketName,
+                             TransferExecutor transferExecutor,
+                             PresignedUrlCache presignedUrlCache) {
 
         log.info("[初始化COS服务] 开始初始化腾讯云COS存储服务");
         this.clientPool = clientPool;
         this.bucketName = bucketName;
-        this.metadataMapper = metadataMapper;
+        this.presignedUrlCache = presignedUrlCache;
+        this.transferExecutor = transferExecutor;
         log.info("COS存储服务初始化完成 - 存储桶: {}, 连接池状态: {}",
                 bucketName, clientPool != null ? "已配置" : "未配置");
         log.debug("COS存储服务实例类型: {}, 分片上传阈值: {} MB",
@@ -65,9 +79,8 @@ public class CosOssServiceImpl implements OssService {
      */
     @Override
     public boolean uploadFile(UploadFileDTO file) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
         COSClient client = null;
-        ExecutorService threadPool = null;
-        TransferManager transferManager = null;
 
         VisibilityEnum visibility = file.getVisibility();
         String folderPath = file.getFolderPath();
@@ -89,11 +102,9 @@ public class CosOssServiceImpl implements OssService {
                         file.getSize(), COS_SIZE_THRESHOLD);
                 return uploadSmallFile(client, file);
             } else {
-                log.debug("文件大小 {} bytes 大于阈值 {} bytes，使用分片上传策略",
+                log.debug("文件大小 {} bytes 大于阈值 {} bytes，使用流式分片上传策略",
                         file.getSize(), COS_SIZE_THRESHOLD);
-                threadPool = createThreadPool();
-                transferManager = new TransferManager(client, threadPool);
-                return uploadLargeFile(file, transferManager);
+                return uploadLargeFile(client, file);
             }
 
         } catch (Exception e) {
@@ -104,7 +115,7 @@ public class CosOssServiceImpl implements OssService {
             throw new OssException("文件上传失败: " + e.getMessage());
         } finally {
             // 确保资源正确释放
-            closeResources(transferManager, threadPool, client);
+            closeResources(client);
         }
     }
 
@@ -176,6 +187,7 @@ public class CosOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFile(String fileName, String folderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", folderPath, fileName), visibility, userId);
         COSClient client = null;
         String absolutePath = String.join("/", folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
@@ -187,21 +199,20 @@ public class CosOssServiceImpl implements OssService {
             client = clientPool.getClient();
             log.debug("[删除文件操作] 成功获取COS客户端连接，检查文件是否存在");
 
-            if (!client.doesObjectExist(bucketName, absolutePath)) {
-                log.warn("COS 文件不存在 - 路径: {}", absolutePath);
+            if (!client.doesObjectExist(bucketName, targetPath)) {
+                log.warn("COS 文件不存在 - 路径: {}", targetPath);
                 return false;
             }
 
             log.debug("文件存在，开始执行删除操作");
             // 删除文件
-            client.deleteObject(bucketName, absolutePath);
+            client.deleteObject(bucketName, targetPath);
 
-
-            log.info("COS 文件删除成功 - 路径: {}", absolutePath);
+            log.info("COS 文件删除成功 - 路径: {}", targetPath);
             return true;
         } catch (Exception e) {
 
-            log.warn("COS 删除文件失败 - 路径: {},错误信息: {}", absolutePath, e.getMessage(), e);
+            log.warn("COS 删除文件失败 - 路径: {},错误信息: {}", targetPath, e.getMessage(), e);
             throw new OssException("删除文件失败: " + e.getMessage());
         } finally {
             // 确保客户端归还到池中
@@ -227,6 +238,7 @@ public class CosOssServiceImpl implements OssService {
      */
     @Override
     public boolean deleteFolder(String folderName, String folderPath, VisibilityEnum visibility, String userId) {
+        presignedUrlCache.invalidatePrefix(COS, getBucketName(visibility), getTargetPath(String.join("/", folderPath, folderName), visibility, userId) + "/");
         COSClient client = null;
         String absolutePath = String.join("/", folderPath, folderName);
         String bucketName = getBucketName(visibility);
@@ -254,9 +266,10 @@ public class CosOssServiceImpl implements OssService {
                 listRequest.setMarker(objectListing.getNextMarker());
             } while (objectListing.isTruncated());
 
+            // 隐式创建的文件夹及只含去重文件的文件夹没有存储对象, 无需删除
             if (keysToDelete.isEmpty()) {
-                log.warn("COS 文件夹下未找到对象 - 路径: {}", targetPath);
-                return false;
+                log.info("COS 文件夹下没有对象, 无需删除 - 路径: {}", targetPath);
+                return true;
             }
 
             log.debug("找到 {} 个对象需要删除", keysToDelete.size());
@@ -305,6 +318,10 @@ public class CosOssServiceImpl implements OssService {
         String bucketName = getBucketName(visibility);
         String absolutePath = String.join("/", folderPath, fileName);
         String targetPath = getTargetPath(absolutePath, visibility, userId);
+        String cachedUrl = presignedUrlCache.get(COS, bucketName, targetPath, PresignedUrlCache.ATTACHMENT);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         log.info("COS 开始生成下载链接 - 文件路径: {}", targetPath);
 
         try {
@@ -313,7 +330,7 @@ public class CosOssServiceImpl implements OssService {
             log.debug("[下载文件操作] 成功获取COS客户端连接，开始生成预签名URL");
 
             // 设置签名过期时间
-            Date expiration = new Date(System.currentTimeMillis() + 30 * 1000L);
+            Date expiration = new Date(System.currentTimeMillis() + DOWNLOAD_URL_EXPIRE_SECONDS * 1000L);
 
             // 创建签名 URL 请求
             GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, targetPath)
@@ -333,6 +350,7 @@ public class CosOssServiceImpl implements OssService {
                     "COS 生成下载链接成功 - 文件路径: {}, 下载文件名: {}, 链接有效期: 30秒",
                     absolutePath, fileName);
             log.debug("生成的下载链接: {}", downloadUrl);
+            presignedUrlCache.put(COS, bucketName, targetPath, PresignedUrlCache.ATTACHMENT, downloadUrl, DOWNLOAD_URL_EXPIRE_SECONDS);
             return downloadUrl;
         } catch (Exception e) {
 
@@ -353,31 +371,6 @@ public class CosOssServiceImpl implements OssService {
         }
     }
 
-    /**
-     * 列出指定路径下的文件和文件夹
-     *
-     * @param folderName 文件夹名称
-     * @param folderPath 文件夹路径
-     * @param userId 用户 ID
-     * @param visibility 文件可见性
-     * @return 文件和文件夹信息
-     */
-    @Override
-    public FilesAndFoldersVO listFileAndFolder(String folderName, String folderPath, VisibilityEnum visibility, Long userId) {
-
-        String absolutePath = String.join("/", folderPath, folderName);
-
-        log.info("[列出文件操作] 开始列出路径下的文件和文件夹: {}", absolutePath);
-
-
-        List<FileInfoVO> fileInfos = metadataMapper.listFileByFolderPath(absolutePath, COS, visibility, userId);
-
-        Set<FolderInfoVO> folders = metadataMapper.listFolderNameByFolderPath(absolutePath, COS, visibility, userId).stream().map(s -> new FolderInfoVO(s, folderPath)).collect(Collectors.toSet());
-        folders.addAll(metadataMapper.listFolderPathByFolderName(folderPath, LOCAL, visibility).stream().map(s -> new FolderInfoVO(s.replace(folderPath, "").split("/")[0], folderPath)).collect(Collectors.toSet()));
-
-        return new FilesAndFoldersVO(fileInfos, folders);
-    }
-
     /**
      * 生成文件的预览链接
      *
@@ -393,14 +386,19 @@ public class CosOssServiceImpl implements OssService {
 
         log.info("COS 开始生成文件预览URL - 路径: {}", fileName);
         String bucketName = getBucketName(visibility);
+        String targetPath = getTargetPath(String.join("/", folderPath, fileName), visibility, userId);
+        String cachedUrl = presignedUrlCache.get(COS, bucketName, targetPath, PresignedUrlCache.INLINE);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
         try {
             log.debug("[预览文件操作] 从连接池获取COS客户端连接");
             client = clientPool.getClient();
             log.debug("[预览文件操作] 成功获取COS客户端连接，开始生成预签名URL");
 
-            GeneratePresignedUrlRequest req = new GeneratePresignedUrlRequest(bucketName, fileName, GET);
+            GeneratePresignedUrlRequest req = new GeneratePresignedUrlRequest(bucketName, targetPath, GET);
             // 设置过期时间
-            long expirationTimeMillis = System.currentTimeMillis() + 3 * 60 * 1000;
+            long expirationTimeMillis = System.currentTimeMillis() + PREVIEW_URL_EXPIRE_SECONDS * 1000L;
             Date expirationDate = new Date(expirationTimeMillis);
             req.setExpiration(expirationDate);
             ResponseHeaderOverrides responseHeaders = new ResponseHeaderOverrides();
@@ -416,6 +414,7 @@ public class CosOssServiceImpl implements OssService {
                     expirationDate);
             log.debug("生成的预览URL: {}", url.toString());
 
+            presignedUrlCache.put(COS, bucketName, targetPath, PresignedUrlCache.INLINE, url.toString(), PREVIEW_URL_EXPIRE_SECONDS);
             return url.toString();
 
         } catch (Exception e) {
@@ -447,6 +446,8 @@ public class CosOssServiceImpl implements OssService {
      */
     @Override
     public boolean moveFile(String fileName, String sourceFolderPath, String targetFolderPath, VisibilityEnum visibility, String userId) {
+        invalidatePresignedUrl(String.join("/", sourceFolderPath, fileName), visibility, userId);
+        invalidatePresignedUrl(String.join("/", targetFolderPath, fileName), visibility, userId);
 
         COSClient client = null;
         String sourceAbsolutePath = String.join("/", sourceFolderPath, fileName);
@@ -501,6 +502,205 @@ public class CosOssServiceImpl implements OssService {
 
     }
 
+    /**
+     * 初始化分片上传
+     *
+     * @param file 文件信息
+     * @return COS 分片上传 id
+     */
+    @Override
+    public String initiateMultipartUpload(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            String uploadId = client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, targetPath)).getUploadId();
+            log.info("[分片上传操作] COS 分片上传初始化成功 - 文件: {}, uploadId: {}", targetPath, uploadId);
+            return uploadId;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] COS 分片上传初始化失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片上传初始化失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 上传单个分片
+     *
+     * @param file 分片信息
+     * @param uploadId COS 分片上传 id
+     * @param partNumber 分片序号
+     * @return 分片 ETag
+     */
+    @Override
+    public String uploadPart(UploadFileDTO file, String uploadId, int partNumber) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        COSClient client = null;
+        try (InputStream inputStream = file.getInputStream()) {
+            client = clientPool.getClient();
+            UploadPartRequest uploadPartRequest = new UploadPartRequest();
+            uploadPartRequest.setBucketName(bucketName);
+            uploadPartRequest.setKey(targetPath);
+            uploadPartRequest.setUploadId(uploadId);
+            uploadPartRequest.setPartNumber(partNumber);
+            uploadPartRequest.setInputStream(inputStream);
+            uploadPartRequest.setPartSize(file.getSize());
+            String eTag = client.uploadPart(uploadPartRequest).getETag();
+            log.debug("[分片上传操作] COS 分片 {} 上传成功 - 文件: {}, 大小: {} bytes", partNumber, targetPath, file.getSize());
+            return eTag;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] COS 分片 {} 上传失败 - 文件: {}, 错误信息: {}", partNumber, targetPath, e.getMessage(), e);
+            throw new OssException("分片上传失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId COS 分片上传 id
+     * @param partETags 分片序号与分片 ETag 的映射
+     * @return 操作结果
+     */
+    @Override
+    public boolean completeMultipartUpload(UploadFileDTO file, String uploadId, Map<Integer, String> partETags) {
+        invalidatePresignedUrl(String.join("/", file.getFolderPath(), file.getFileName()), file.getVisibility(), file.getUserId());
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        file.setTargetPath(targetPath);
+        List<PartETag> parts = new TreeMap<>(partETags).entrySet().stream()
+                .map(entry -> new PartETag(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, targetPath, uploadId, parts));
+            log.info("[分片上传操作] COS 分片上传完成 - 文件: {}, 分片数: {}", targetPath, parts.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] COS 分片合并失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("分片合并失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @param file 文件信息
+     * @param uploadId COS 分片上传 id
+     * @return 操作结果
+     */
+    @Override
+    public boolean abortMultipartUpload(UploadFileDTO file, String uploadId) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, targetPath, uploadId));
+            log.info("[分片上传操作] COS 已取消分片上传 - 文件: {}, uploadId: {}", targetPath, uploadId);
+            return true;
+        } catch (Exception e) {
+            log.warn("[分片上传操作] COS 取消分片上传失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("取消分片上传失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 生成预签名上传地址
+     *
+     * @param file 文件信息
+     * @param uploadId COS 分片上传 id, 为空时生成整体上传地址
+     * @param partNumber 分片序号
+     * @param expireSeconds 地址有效期(秒)
+     * @return 预签名上传地址
+     */
+    @Override
+    public PresignedUploadVO presignUpload(UploadFileDTO file, String uploadId, int partNumber, int expireSeconds) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, targetPath, PUT)
+                    .withExpiration(new Date(System.currentTimeMillis() + expireSeconds * 1000L));
+            if (uploadId != null) {
+                request.addRequestParameter("partNumber", String.valueOf(partNumber));
+                request.addRequestParameter("uploadId", uploadId);
+            }
+            String url = client.generatePresignedUrl(request).toString();
+            log.debug("[直传操作] COS 生成预签名上传地址 - 文件: {}, 分片序号: {}", targetPath, partNumber);
+            return new PresignedUploadVO(partNumber, PUT.name(), url, Map.of(), Map.of());
+        } catch (Exception e) {
+            log.warn("[直传操作] COS 生成预签名上传地址失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("生成上传地址失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 获取对象元信息
+     *
+     * @param file 文件信息
+     * @return 对象大小及 ETag
+     */
+    @Override
+    public ObjectStatDTO statObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            ObjectMetadata metadata = client.getObjectMetadata(bucketName, targetPath);
+            return new ObjectStatDTO(metadata.getContentLength(), metadata.getETag());
+        } catch (Exception e) {
+            log.warn("[直传操作] COS 获取对象元信息失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("获取文件信息失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
+    /**
+     * 打开存储对象的输入流
+     *
+     * @param file 文件信息
+     * @return 对象内容的输入流
+     */
+    @Override
+    public InputStream openObject(UploadFileDTO file) {
+        String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
+        String bucketName = getBucketName(file.getVisibility());
+        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
+        COSClient client = null;
+        try {
+            client = clientPool.getClient();
+            return client.getObject(bucketName, targetPath).getObjectContent();
+        } catch (Exception e) {
+            log.warn("[读取文件操作] COS 打开对象失败 - 文件: {}, 错误信息: {}", targetPath, e.getMessage(), e);
+            throw new OssException("读取文件失败: " + e.getMessage());
+        } finally {
+            closeResources(client);
+        }
+    }
+
     /**
      * 获取当前存储类型
      *
@@ -541,187 +741,167 @@ public class CosOssServiceImpl implements OssService {
     }
 
     /**
-     * 上传大文件（分片上传）
+     * 上传大文件（流式分片上传）
+     * 从输入流中按分片大小读取数据, 每读满一个分片立即提交上传, 不落地临时文件,
+     * 分片缓冲区循环复用, 内存占用上限为 缓冲区数 × 分片大小
      *
+     * @param client COS 客户端
      * @param file 文件信息
-     * @param transferManager 传输管理器
      * @return 操作结果
      */
-    private boolean uploadLargeFile(UploadFileDTO file,
-                                    TransferManager transferManager) {
-        File tempFile = null;
+    private boolean uploadLargeFile(COSClient client, UploadFileDTO file) {
         String absolutePath = String.join("/", file.getFolderPath(), file.getFileName());
         String bucketName = getBucketName(file.getVisibility());
         String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
-        log.debug("COS 开始大文件分片上传 - 文件: {}, 大小: {} bytes", targetPath,
-                file.getSize());
+        long partSize = calculatePartSize(file.getSize());
+        int partCount = (int) Math.ceil((double) file.getSize() / partSize);
+        log.debug("COS 开始大文件流式分片上传 - 文件: {}, 大小: {} bytes, 分片大小: {} bytes", targetPath,
+                file.getSize(), partSize);
 
-        try {
-            // 创建临时文件
-            log.debug("创建临时文件用于分片上传");
-            tempFile = createTempFile(file);
-            log.debug("临时文件创建成功: {}", tempFile.getAbsolutePath());
+        String uploadId = null;
+        PartBufferPool bufferPool = transferExecutor.newPartBufferPool(partSize);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<PartETag>> futures = new ArrayList<>();
 
-            // 配置分片上传请求
-            PutObjectRequest putRequest = new PutObjectRequest(bucketName, targetPath,
-                    tempFile);
+        try (InputStream inputStream = file.getInputStream()) {
+            InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucketName, targetPath);
+            uploadId = client.initiateMultipartUpload(initiateRequest).getUploadId();
+            log.debug("COS 分片上传初始化成功 - 文件: {}, uploadId: {}", targetPath, uploadId);
+
+            int partNumber = 1;
+            while (failure.get() == null) {
+                // 缓冲区全部占用时阻塞读取, 形成背压
+                byte[] buffer = bufferPool.acquire();
+                int bytesRead = inputStream.readNBytes(buffer, 0, buffer.length);
+                if (bytesRead <= 0) {
+                    bufferPool.release(buffer);
+                    break;
+                }
+                futures.add(uploadPartAsync(client, bucketName, targetPath, uploadId, partNumber++,
+                        buffer, bytesRead, bufferPool, failure));
+                if (bytesRead < buffer.length) {
+                    break;
+                }
+            }
 
-            // 执行上传并监控进度
-            log.debug("开始执行分片上传");
-            Upload upload = transferManager.upload(putRequest);
-            monitorUploadProgress(upload, file);
+            List<PartETag> partETags = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            // 输入流提前结束时分片数不足, 不能合并为不完整的文件
+            if (partETags.size() != partCount) {
+                throw new IllegalStateException("分片上传不完整，期望 " + partCount + " 个分片，实际 " + partETags.size());
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
 
-            upload.waitForCompletion();
+            client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, targetPath, uploadId, partETags));
 
-            log.info("COS 大文件分片上传成功 - 文件: {}, 大小: {} bytes",
-                    targetPath, file.getSize());
+            log.info("COS 大文件流式分片上传成功 - 文件: {}, 大小: {} bytes, 分片数: {}",
+                    targetPath, file.getSize(), partETags.size());
             return true;
 
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-
+            // 等待已提交的分片结束后再取消, 取消后完成的分片会残留在存储桶中
+            transferExecutor.awaitParts(futures);
+            abortMultipartUpload(client, bucketName, targetPath, uploadId);
             log.warn("COS 大文件上传被中断 - 文件: {}, 大小: {} bytes",
                     targetPath, file.getSize());
             throw new OssException("大文件上传被中断");
         } catch (Exception e) {
-
+            transferExecutor.awaitParts(futures);
+            abortMultipartUpload(client, bucketName, targetPath, uploadId);
             log.warn(
                     "COS 大文件分片上传失败 - 文件: {}, 大小: {} bytes,错误信息: {}",
                     targetPath, file.getSize(), e.getMessage(), e);
             throw new OssException("大文件上传失败: " + e.getMessage());
-        } finally {
-            cleanupTempFile(tempFile);
         }
     }
 
     /**
-     * 创建临时文件
+     * 异步上传单个分片, 上传结束后归还分片缓冲区
      *
-     * @param file 文件信息
-     * @return 临时文件
+     * @param client COS 客户端
+     * @param bucketName 桶名
+     * @param targetPath 目标路径
+     * @param uploadId 分片上传 ID
+     * @param partNumber 分片序号
+     * @param buffer 分片数据
+     * @param length 分片数据长度
+     * @param bufferPool 分片缓冲区池
+     * @param failure 分片上传失败原因
+     * @return 分片 ETag
+     * @throws InterruptedException 等待全局分片许可时被中断
      */
-    private File createTempFile(UploadFileDTO file) {
-        File tempFile;
-
-        try (InputStream inputStream = file.getInputStream()) {
-            tempFile = File.createTempFile("cos_upload_", "_" + file.getFileName());
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            inputStream.transferTo(fos);
-        } catch (IOException e) {
-            log.warn("创建临时文件失败", e);
-            throw new OssException("创建临时文件失败");
+    private CompletableFuture<PartETag> uploadPartAsync(COSClient client, String bucketName, String targetPath,
+                                                        String uploadId, int partNumber, byte[] buffer, int length,
+                                                        PartBufferPool bufferPool, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        CompletableFuture<PartETag> future;
+        try {
+            future = transferExecutor.submitPart(() -> {
+                UploadPartRequest uploadPartRequest = new UploadPartRequest();
+                uploadPartRequest.setBucketName(bucketName);
+                uploadPartRequest.setKey(targetPath);
+                uploadPartRequest.setUploadId(uploadId);
+                uploadPartRequest.setPartNumber(partNumber);
+                uploadPartRequest.setInputStream(new ByteArrayInputStream(buffer, 0, length));
+                uploadPartRequest.setPartSize(length);
+                PartETag partETag = client.uploadPart(uploadPartRequest).getPartETag();
+                log.debug("COS 分片 {} 上传成功 - 文件: {}, 大小: {} bytes", partNumber, targetPath, length);
+                return partETag;
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            bufferPool.release(buffer);
+            throw e;
         }
-
-        return tempFile;
-    }
-
-    /**
-     * 监控上传进度
-     *
-     * @param upload 上传对象
-     * @param file 文件信息
-     */
-    private void monitorUploadProgress(Upload upload, UploadFileDTO file) {
-
-        String fileName = file.getFileName();
-        String folderPath = file.getFolderPath();
-        String absolutePath = String.join("/", folderPath, fileName);
-        String targetPath = getTargetPath(absolutePath, file.getVisibility(), file.getUserId());
-
-        upload.addProgressListener(progressEvent -> {
-            if (progressEvent.getEventType() == ProgressEventType.TRANSFER_COMPLETED_EVENT) {
-                log.info("上传完成: key={}", targetPath);
-            } else if (progressEvent.getEventType() == ProgressEventType.TRANSFER_FAILED_EVENT) {
-                log.warn("上传失败: key={}", targetPath);
-            }
-
-            // 记录进度（可选）
-            double percentage = (double) progressEvent.getBytesTransferred() / file.getSize() * 100;
-            if (percentage % 10 == 0) { // 每10%记录一次
-                log.debug("上传进度: {}% for key={}", percentage, targetPath);
+        return future.whenComplete((partETag, e) -> {
+            bufferPool.release(buffer);
+            if (e != null) {
+                failure.compareAndSet(null, e);
             }
         });
     }
 
     /**
-     * 创建线程池
+     * 取消分片上传
      *
-     * @return 线程池
+     * @param client COS 客户端
+     * @param bucketName 桶名
+     * @param targetPath 目标路径
+     * @param uploadId 分片上传 ID
      */
-    private ExecutorService createThreadPool() {
-        int corePoolSize = Math.min(10, Runtime.getRuntime().availableProcessors() * 2);
-        long keepAliveTime = 60L;
-        TimeUnit unit = TimeUnit.SECONDS;
-        BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(100);
-        ThreadFactory threadFactory = r -> {
-            Thread t = new Thread(r, "cos-uploadFile-thread");
-            t.setDaemon(true);
-            return t;
-        };
-        RejectedExecutionHandler handler = new ThreadPoolExecutor.CallerRunsPolicy();
-
-        return new ThreadPoolExecutor(
-                corePoolSize,
-                corePoolSize,
-                keepAliveTime,
-                unit,
-                workQueue,
-                threadFactory,
-                handler
-        );
+    private void abortMultipartUpload(COSClient client, String bucketName, String targetPath, String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, targetPath, uploadId));
+            log.debug("COS 已取消分片上传 - 文件: {}, uploadId: {}", targetPath, uploadId);
+        } catch (Exception e) {
+            log.warn("COS 取消分片上传失败 - 文件: {}, uploadId: {}", targetPath, uploadId, e);
+        }
     }
 
     /**
-     * 清理临时文件
+     * 计算分片大小
      *
-     * @param tempFile 临时文件
+     * @param fileSize 文件大小
+     * @return 分片大小
      */
-    private void cleanupTempFile(File tempFile) {
-        if (tempFile != null && tempFile.exists()) {
-            if (!tempFile.delete()) {
-                log.warn("删除临时文件失败: {}", tempFile.getAbsolutePath());
-                tempFile.deleteOnExit();
-            }
-        }
+    private long calculatePartSize(long fileSize) {
+        long minPartSize = 5 * 1024 * 1024;
+        long maxPartSize = 100 * 1024 * 1024;
+        int maxParts = 10000;
+        long idealPartSize = (long) Math.ceil((double) fileSize / maxParts);
+        return Math.max(minPartSize, Math.min(maxPartSize, idealPartSize));
     }
 
     /**
      * 关闭资源
      *
-     * @param transferManager 传输管理器
-     * @param threadPool 线程池
      * @param client COS 客户端
      */
-    private void closeResources(TransferManager transferManager, ExecutorService threadPool,
-                                COSClient client) {
-        // 关闭TransferManager
-        if (transferManager != null) {
-            try {
-                log.debug("关闭TransferManager");
-                transferManager.shutdownNow();
-                log.debug("TransferManager关闭成功");
-            } catch (Exception e) {
-                log.warn("关闭TransferManager时出错", e);
-            }
-        }
-
-        // 关闭线程池
-        if (threadPool != null) {
-            try {
-                log.debug("关闭线程池");
-                threadPool.shutdown();
-                if (!threadPool.awaitTermination(5, TimeUnit.SECONDS)) {
-                    log.debug("线程池未在5秒内关闭，强制关闭");
-                    threadPool.shutdownNow();
-                }
-                log.debug("线程池关闭成功");
-            } catch (InterruptedException e) {
-                log.debug("线程池关闭被中断，强制关闭");
-                threadPool.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-
+    private void closeResources(COSClient client) {
         // 归还客户端
         if (client != null) {
             try {
@@ -780,4 +960,17 @@ public class CosOssServiceImpl implements OssService {
             throw new OssException("错误操作");
         }
     }
+
+    /**
+     * 失效对象的预签名地址缓存
+     *
+     * @param absolutePath 文件的绝对路径
+     * @param visibility 文件可见性
+     * @param userId 用户 ID
+     */
+    private void invalidatePresignedUrl(String absolutePath, VisibilityEnum visibility, String userId) {
+        if (visibility != null) {
+            presignedUrlCache.invalidate(COS, getBucketName(visibility), getTargetPath(absolutePath, visibility, userId));
+        }
+    }
 }
@@ -0,0 +1,107 @@
+-- 对象存储服务的基线表结构, 与引入迁移前已部署的库一致
+-- 已部署的库由 baseline 接入后从本脚本开始执行, 数据表已存在时跳过; 此后新增的列及数据表在后续脚本中添加,
+-- 新库与已部署的库执行完全部脚本后结构相同
+
+CREATE TABLE IF NOT EXISTS file_metadata
+(
+    id               BIGINT       NOT NULL COMMENT '文件 id',
+    user_id          BIGINT       NOT NULL COMMENT '所属用户 id',
+    folder_path      VARCHAR(255) NOT NULL COMMENT '文件所在文件夹路径',
+    file_name        VARCHAR(255) NOT NULL COMMENT '文件名',
+    file_type        VARCHAR(127)          DEFAULT NULL COMMENT '文件 MIME 类型',
+    file_size        VARCHAR(32)           DEFAULT NULL COMMENT '文件大小(可读格式)',
+    storage_type     VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    visibility       VARCHAR(16)  NOT NULL COMMENT '能见度',
+    last_update_date DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='文件元数据';
+
+CREATE TABLE IF NOT EXISTS folder_metadata
+(
+    id               BIGINT       NOT NULL COMMENT '文件夹 id',
+    user_id          BIGINT       NOT NULL COMMENT '所属用户 id',
+    folder_path      VARCHAR(255) NOT NULL COMMENT '父文件夹路径',
+    folder_name      VARCHAR(255) NOT NULL COMMENT '文件夹名',
+    storage_type     VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    visibility       VARCHAR(16)  NOT NULL COMMENT '能见度',
+    last_update_date DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='文件夹元数据';
+
+CREATE TABLE IF NOT EXISTS user_avatar_metadata
+(
+    user_id          BIGINT       NOT NULL COMMENT '用户 id',
+    storage_type     VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    suffix_name      VARCHAR(16)  NOT NULL COMMENT '头像扩展名',
+    folder_path      VARCHAR(255) NOT NULL COMMENT '头像所在文件夹路径',
+    size             VARCHAR(32)           DEFAULT NULL COMMENT '头像大小(可读格式)',
+    PRIMARY KEY (user_id, storage_type)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='用户头像元数据';
+
+CREATE TABLE IF NOT EXISTS cloud_active
+(
+    id     BIGINT  NOT NULL COMMENT '云服务配置 id',
+    type   INT     NOT NULL COMMENT '云服务类型',
+    status TINYINT NOT NULL DEFAULT 1 COMMENT '状态(1 激活, 0 未激活)',
+    KEY idx_cloud_active_status (status)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='当前激活的存储服务';
+
+CREATE TABLE IF NOT EXISTS oss_config
+(
+    id                    BIGINT       NOT NULL COMMENT '配置 id',
+    endpoint              VARCHAR(255) NOT NULL COMMENT '访问域名',
+    access_key_id         VARCHAR(255) NOT NULL COMMENT 'accessKeyId',
+    access_key_secret     VARCHAR(255) NOT NULL COMMENT 'accessKeySecret',
+    public_bucket_name    VARCHAR(63)  NOT NULL COMMENT '公共桶名',
+    private_bucket_name   VARCHAR(63)  NOT NULL COMMENT '私有桶名',
+    user_info_bucket_name VARCHAR(63)  NOT NULL COMMENT '用户信息桶名',
+    region                VARCHAR(63)           DEFAULT NULL COMMENT '地域',
+    status                TINYINT      NOT NULL DEFAULT 1 COMMENT '状态(1 可用, 0 已删除)',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='OSS 云服务配置';
+
+CREATE TABLE IF NOT EXISTS cos_config
+(
+    id                    BIGINT       NOT NULL COMMENT '配置 id',
+    secret_id             VARCHAR(255) NOT NULL COMMENT 'secretId',
+    secret_key            VARCHAR(255) NOT NULL COMMENT 'secretKey',
+    public_bucket_name    VARCHAR(63)  NOT NULL COMMENT '公共桶名',
+    private_bucket_name   VARCHAR(63)  NOT NULL COMMENT '私有桶名',
+    user_info_bucket_name VARCHAR(63)  NOT NULL COMMENT '用户信息桶名',
+    region                VARCHAR(63)           DEFAULT NULL COMMENT '地域',
+    status                TINYINT      NOT NULL DEFAULT 1 COMMENT '状态(1 可用, 0 已删除)',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='COS 云服务配置';
+
+CREATE TABLE IF NOT EXISTS kodo_config
+(
+    id                    BIGINT       NOT NULL COMMENT '配置 id',
+    access_key            VARCHAR(255) NOT NULL COMMENT 'accessKey',
+    secret_key            VARCHAR(255) NOT NULL COMMENT 'secretKey',
+    public_bucket_name    VARCHAR(63)  NOT NULL COMMENT '公共桶名',
+    private_bucket_name   VARCHAR(63)  NOT NULL COMMENT '私有桶名',
+    user_info_bucket_name VARCHAR(63)  NOT NULL COMMENT '用户信息桶名',
+    status                TINYINT      NOT NULL DEFAULT 1 COMMENT '状态(1 可用, 0 已删除)',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='KODO 云服务配置';
+
+CREATE TABLE IF NOT EXISTS minio_config
+(
+    id                    BIGINT       NOT NULL COMMENT '配置 id',
+    endpoint              VARCHAR(255) NOT NULL COMMENT '访问地址',
+    access_key            VARCHAR(255) NOT NULL COMMENT 'accessKey',
+    secret_key            VARCHAR(255) NOT NULL COMMENT 'secretKey',
+    public_bucket_name    VARCHAR(63)  NOT NULL COMMENT '公共桶名',
+    private_bucket_name   VARCHAR(63)  NOT NULL COMMENT '私有桶名',
+    user_info_bucket_name VARCHAR(63)  NOT NULL COMMENT '用户信息桶名',
+    status                TINYINT      NOT NULL DEFAULT 1 COMMENT '状态(1 可用, 0 已删除)',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='MinIO 云服务配置';
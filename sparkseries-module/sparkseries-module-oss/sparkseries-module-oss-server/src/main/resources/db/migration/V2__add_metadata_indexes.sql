@@ -0,0 +1,24 @@
+-- 文件及文件夹元数据的查询索引
+-- 所有查询都以 storage_type, visibility 等值过滤开头, 文件夹路径的 LIKE 'xxx%' 前缀匹配作为范围条件放在其后
+
+-- 同一用户同一文件夹下文件名唯一
+-- 文件列表 (listFileByFolderPath) 及文件夹树遍历 (listFileByFolderTree) 按 user_id, folder_path 查找
+ALTER TABLE file_metadata
+    ADD UNIQUE KEY uk_file_path (storage_type, visibility, user_id, folder_path, file_name);
+
+-- 文件列表的覆盖索引, 返回 id, file_name, file_size, last_update_date 时不回表
+ALTER TABLE file_metadata
+    ADD KEY idx_file_listing (storage_type, visibility, user_id, folder_path, file_name, file_size, last_update_date);
+
+-- 文件名存在性检查 (isExistFileByFileName, listExistFileNames) 不带 user_id
+-- 同时用于按文件夹前缀删除 (deleteFileByFolderPath) 及查询 (listContentFileByFolderPath, listFolderPathByFolderName)
+ALTER TABLE file_metadata
+    ADD KEY idx_file_folder (storage_type, visibility, folder_path, file_name);
+
+-- 文件夹存在性检查 (isExistFolderByFolderPath) 及按文件夹前缀删除 (deleteSubfoldersByFolderPath)
+ALTER TABLE folder_metadata
+    ADD KEY idx_folder_path (storage_type, visibility, folder_path, folder_name);
+
+-- 子文件夹列表 (listFolderNameByFolderPath) 的覆盖索引
+ALTER TABLE folder_metadata
+    ADD KEY idx_folder_listing (storage_type, visibility, user_id, folder_path, folder_name);
@@ -0,0 +1,19 @@
+-- 文件夹树
+-- 文件夹以 parent_id 组成树, folder_closure 保存每个文件夹与其所有祖先(含自身)的关系,
+-- 子文件夹列表、子树删除等操作按 id 索引查找, 不再依赖 folder_path 的 LIKE 前缀匹配
+
+ALTER TABLE folder_metadata
+    ADD COLUMN parent_id BIGINT NOT NULL DEFAULT 0 COMMENT '父文件夹 id, 顶层文件夹为 0';
+
+ALTER TABLE file_metadata
+    ADD COLUMN folder_id BIGINT DEFAULT NULL COMMENT '所在文件夹 id';
+
+CREATE TABLE IF NOT EXISTS folder_closure
+(
+    ancestor_id   BIGINT NOT NULL COMMENT '祖先文件夹 id',
+    descendant_id BIGINT NOT NULL COMMENT '后代文件夹 id',
+    depth         INT    NOT NULL COMMENT '层级差, 自身为 0',
+    PRIMARY KEY (ancestor_id, descendant_id),
+    KEY idx_closure_descendant (descendant_id, depth)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='文件夹祖先关系';
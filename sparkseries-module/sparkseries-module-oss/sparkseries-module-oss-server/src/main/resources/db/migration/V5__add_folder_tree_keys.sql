@@ -0,0 +1,16 @@
+-- 文件夹树的约束及索引, 在 V4 回填已有数据之后添加
+
+-- 同一父文件夹下文件夹名唯一, 同时用于子文件夹列表
+ALTER TABLE folder_metadata
+    ADD UNIQUE KEY uk_folder_parent (parent_id, storage_type, visibility, user_id, folder_name);
+
+-- 文件列表的覆盖索引, 按文件夹 id 查找
+ALTER TABLE file_metadata
+    ADD KEY idx_file_folder_id (folder_id, file_name, file_size, last_update_date);
+
+-- 文件夹及文件列表改为按文件夹 id 查找, 以下按路径查找的索引不再使用
+ALTER TABLE folder_metadata
+    DROP KEY idx_folder_path;
+
+ALTER TABLE file_metadata
+    DROP KEY idx_file_listing;
@@ -0,0 +1,6 @@
+-- 文件夹游标分页按 (名称, id) 排序, 索引中紧接名称包含 id, 分页查询为索引范围扫描且不需要额外排序
+-- 子文件夹分页使用 uk_folder_parent, InnoDB 二级索引末尾隐含主键 id, 无需调整
+
+ALTER TABLE file_metadata
+    DROP KEY idx_file_folder_id,
+    ADD KEY idx_file_folder_id (folder_id, file_name, id, file_size, last_update_date);
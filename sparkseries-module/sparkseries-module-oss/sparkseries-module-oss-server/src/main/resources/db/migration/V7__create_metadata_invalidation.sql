@@ -0,0 +1,15 @@
+-- 文件元数据缓存失效日志, 各节点轮询本表失效本地缓存
+
+CREATE TABLE IF NOT EXISTS metadata_invalidation
+(
+    id           BIGINT       NOT NULL AUTO_INCREMENT COMMENT '日志 id, 按写入顺序递增',
+    file_id      BIGINT                DEFAULT NULL COMMENT '失效的文件 id, 为空时按文件夹失效',
+    user_id      BIGINT                DEFAULT NULL COMMENT '失效文件夹的所属用户 id',
+    folder_path  VARCHAR(255)          DEFAULT NULL COMMENT '失效的文件夹路径, 包括其子文件夹',
+    storage_type VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    visibility   VARCHAR(16)  NOT NULL COMMENT '能见度',
+    create_time  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '写入时间',
+    PRIMARY KEY (id),
+    KEY idx_create_time (create_time)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='文件元数据缓存失效日志';
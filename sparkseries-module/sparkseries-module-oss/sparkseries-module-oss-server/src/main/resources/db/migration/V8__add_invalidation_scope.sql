@@ -0,0 +1,8 @@
+-- 失效日志增加失效范围, 文件夹列表缓存复用同一日志
+
+ALTER TABLE metadata_invalidation
+    ADD COLUMN scope VARCHAR(16) NOT NULL DEFAULT 'FILE' COMMENT '失效范围: FILE 文件, FOLDER 文件夹及其子文件夹, LISTING 文件夹列表' AFTER id;
+
+UPDATE metadata_invalidation
+SET scope = 'FOLDER'
+WHERE file_id IS NULL;
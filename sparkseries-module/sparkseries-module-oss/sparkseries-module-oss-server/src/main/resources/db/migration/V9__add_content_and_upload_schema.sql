@@ -0,0 +1,55 @@
+-- 基线之后新增的列及数据表: 内容去重、压缩存储、头像缩略图及分片上传
+-- 基线库中没有这些列, V1 不会修改已存在的数据表, 因此以 ALTER TABLE 显式添加
+
+ALTER TABLE file_metadata
+    ADD COLUMN file_size_bytes  BIGINT      DEFAULT NULL COMMENT '文件大小(字节), 早于该列写入的文件为空' AFTER file_size,
+    ADD COLUMN content_hash     CHAR(64)    DEFAULT NULL COMMENT '文件内容 SHA-256' AFTER visibility,
+    ADD COLUMN crc32c           CHAR(8)     DEFAULT NULL COMMENT '文件内容 CRC32C' AFTER content_hash,
+    ADD COLUMN content_encoding VARCHAR(16) DEFAULT NULL COMMENT '存储对象的压缩编码, 为空时未压缩' AFTER crc32c;
+
+ALTER TABLE user_avatar_metadata
+    ADD COLUMN derivative_sizes VARCHAR(64) DEFAULT NULL COMMENT '已生成的缩略图边长, 以逗号分隔' AFTER size;
+
+CREATE TABLE IF NOT EXISTS file_content
+(
+    content_hash     CHAR(64)     NOT NULL COMMENT '文件内容 SHA-256',
+    storage_type     VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    visibility       VARCHAR(16)  NOT NULL COMMENT '能见度',
+    user_id          BIGINT       NOT NULL COMMENT '内容所属用户 id, 私有文件按用户隔离, 其余为 0',
+    folder_path      VARCHAR(255) NOT NULL COMMENT '存储对象的文件夹路径',
+    file_name        VARCHAR(255) NOT NULL COMMENT '存储对象的文件名',
+    file_size        BIGINT       NOT NULL COMMENT '文件大小(字节)',
+    crc32c           CHAR(8)               DEFAULT NULL COMMENT '文件内容 CRC32C',
+    content_encoding VARCHAR(16)           DEFAULT NULL COMMENT '存储对象的压缩编码, 为空时未压缩',
+    ref_count        INT          NOT NULL DEFAULT 1 COMMENT '引用计数',
+    create_date      DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (content_hash, storage_type, visibility, user_id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='文件内容索引';
+
+CREATE TABLE IF NOT EXISTS multipart_upload
+(
+    id           BIGINT       NOT NULL COMMENT '上传任务 id',
+    user_id      BIGINT       NOT NULL COMMENT '所属用户 id',
+    upload_id    VARCHAR(255)          DEFAULT NULL COMMENT '存储服务的分片上传 id',
+    file_name    VARCHAR(255) NOT NULL COMMENT '文件名',
+    file_type    VARCHAR(127)          DEFAULT NULL COMMENT '文件 MIME 类型',
+    file_size    BIGINT       NOT NULL COMMENT '文件大小(字节)',
+    folder_path  VARCHAR(255) NOT NULL COMMENT '文件所在文件夹路径',
+    storage_type VARCHAR(16)  NOT NULL COMMENT '存储类型',
+    visibility   VARCHAR(16)  NOT NULL COMMENT '能见度',
+    create_date  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='分片上传任务';
+
+CREATE TABLE IF NOT EXISTS multipart_upload_part
+(
+    upload_id        BIGINT       NOT NULL COMMENT '上传任务 id',
+    part_number      INT          NOT NULL COMMENT '分片序号',
+    part_size        BIGINT       NOT NULL COMMENT '分片大小(字节)',
+    etag             VARCHAR(128)          DEFAULT NULL COMMENT '分片 ETag',
+    last_update_date DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+    PRIMARY KEY (upload_id, part_number)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4 COMMENT ='分片上传的分片';
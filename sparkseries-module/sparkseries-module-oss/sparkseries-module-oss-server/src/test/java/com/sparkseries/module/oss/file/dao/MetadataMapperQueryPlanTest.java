@@ -0,0 +1,206 @@
+package com.sparkseries.module.oss.file.dao;
+
+import com.sparkeries.enums.StorageTypeEnum;
+import com.sparkeries.enums.VisibilityEnum;
+import com.sparkseries.module.oss.common.migration.V4__BackfillFolderTree;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 元数据查询的执行计划检查
+ * 在 MySQL 容器中执行全部迁移脚本并写入样本数据, 对 MetadataMapper.xml 中的查询、修改及删除语句执行 EXPLAIN,
+ * 确认每张表都通过索引访问, 没有全表扫描; 没有 Docker 时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MetadataMapperQueryPlanTest {
+
+    private static final String NAMESPACE = MetadataMapper.class.getName() + ".";
+
+    private static final String MAPPER_XML = "mapper/file/MetadataMapper.xml";
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static Configuration configuration;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        Flyway.configure()
+                .dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())
+                .locations("classpath:db/migration")
+                .javaMigrations(new V4__BackfillFolderTree())
+                .load()
+                .migrate();
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("SET SESSION cte_max_recursion_depth = 10000");
+            // 20 个用户, 每个用户 10 个顶层文件夹, 每个文件夹 25 个文件, 一半文件引用去重内容
+            statement.execute("""
+                    INSERT INTO folder_metadata (id, user_id, folder_path, folder_name, storage_type, visibility, parent_id)
+                    WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 200)
+                    SELECT n, n % 20, '', CONCAT('folder', n), 'LOCAL', 'PRIVATE', 0 FROM seq""");
+            statement.execute("INSERT INTO folder_closure (ancestor_id, descendant_id, depth) SELECT id, id, 0 FROM folder_metadata");
+            statement.execute("""
+                    INSERT INTO file_metadata (id, user_id, folder_path, folder_id, file_name, file_type, file_size, storage_type,
+                                               visibility, content_hash)
+                    WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 5000)
+                    SELECT n, (n % 200 + 1) % 20, CONCAT('folder', n % 200 + 1), n % 200 + 1, CONCAT('file', n, '.txt'),
+                           'text/plain', '1.00KB', 'LOCAL', 'PRIVATE', IF(n % 2 = 0, SHA2(n, 256), NULL)
+                    FROM seq""");
+            statement.execute("""
+                    INSERT INTO file_content (content_hash, storage_type, visibility, user_id, folder_path, file_name, file_size)
+                    SELECT content_hash, storage_type, visibility, user_id, CONCAT('.content/', id), file_name, 1024
+                    FROM file_metadata
+                    WHERE content_hash IS NOT NULL""");
+            statement.execute("""
+                    INSERT INTO metadata_invalidation (scope, file_id, storage_type, visibility)
+                    WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 2000)
+                    SELECT 'FILE', n, 'LOCAL', 'PRIVATE' FROM seq""");
+            statement.execute("ANALYZE TABLE file_metadata, folder_metadata, folder_closure, file_content, metadata_invalidation");
+        }
+
+        configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        try (InputStream inputStream = Resources.getResourceAsStream(MAPPER_XML)) {
+            new XMLMapperBuilder(inputStream, configuration, MAPPER_XML, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    @Test
+    void fileQueriesUseIndexes() throws SQLException {
+        assertNoFullScan("deleteFileById", params("id", 42L));
+        assertNoFullScan("deleteFileBySubtree", params("folderId", 7L));
+        assertNoFullScan("updateFileFolderPath", params("id", 42L, "folderPath", "folder8", "folderId", 8L));
+        assertNoFullScan("isExistFileByFileName", params("fileName", "file7.txt", "folderPath", "folder8"));
+        assertNoFullScan("listExistFileNames", params("fileNames", List.of("file7.txt", "file207.txt"), "folderPath", "folder8"));
+        assertNoFullScan("isExistFileById", params("id", 42L));
+        assertNoFullScan("getFileMetadataById", params("id", 42L));
+        assertNoFullScan("listFileByFolderId", params("folderId", 8L));
+        assertNoFullScan("listFileEntries", params("folderId", 8L, "afterName", null, "afterId", 0L, "limit", 100));
+        assertNoFullScan("listFileEntries", params("folderId", 8L, "afterName", "file1007.txt", "afterId", 1007L, "limit", 100));
+        assertNoFullScan("countFileByFolderId", params("folderId", 8L));
+        assertNoFullScan("listContentFileBySubtree", params("folderId", 8L));
+        assertNoFullScan("listFileBySubtree", params("folderId", 8L, "afterId", 0L, "limit", 500));
+        assertNoFullScan("listFileAfterId", params("afterId", 4500L, "limit", 500));
+        assertNoFullScan("listFileByFolderPath", params("folderPath", "folder8", "userId", 8L));
+        assertNoFullScan("listFileSearchByIds", params("ids", List.of(7L, 207L, 407L), "userId", 8L));
+    }
+
+    @Test
+    void contentQueriesUseIndexes() throws SQLException {
+        Map<String, Object> content = params("contentHash", sha256(42), "userId", 3L);
+        assertNoFullScan("getContent", content);
+        assertNoFullScan("incrementContentRef", content);
+        assertNoFullScan("decrementContentRef", content);
+        assertNoFullScan("deleteUnreferencedContent", content);
+        assertNoFullScan("listContentByHashes", params("contentHashes", List.of(sha256(42), sha256(44)), "userId", 3L));
+    }
+
+    @Test
+    void folderQueriesUseIndexes() throws SQLException {
+        assertNoFullScan("deleteFolderById", params("id", 8L));
+        assertNoFullScan("getFolderByPath", params("folderPath", "", "folderName", "folder8", "userId", 8L));
+        assertNoFullScan("listChildFolderNames", params("parentId", 0L, "userId", 8L));
+        assertNoFullScan("listChildFolderEntries", params("parentId", 0L, "userId", 8L, "afterName", null, "afterId", 0L,
+                "limit", 100));
+        assertNoFullScan("listChildFolderEntries", params("parentId", 0L, "userId", 8L, "afterName", "folder108", "afterId", 108L,
+                "limit", 100));
+        assertNoFullScan("countChildFolders", params("parentId", 0L, "userId", 8L));
+        assertNoFullScan("insertFolderClosure", params("id", 1000L, "parentId", 8L));
+        assertNoFullScan("deleteFolderBySubtree", params("folderId", 8L));
+        assertNoFullScan("deleteFolderClosureBySubtree", params("folderId", 8L));
+    }
+
+    @Test
+    void invalidationQueriesUseIndexes() throws SQLException {
+        assertNoFullScan("listInvalidationsAfter", params("afterId", 1900L, "limit", 1000));
+        assertNoFullScan("getMaxInvalidationId", params());
+        assertNoFullScan("deleteInvalidationsBefore", params("before", LocalDateTime.now().minusHours(1)));
+    }
+
+    /**
+     * 对映射语句执行 EXPLAIN, 断言每张表的访问方式都不是全表扫描
+     *
+     * @param statementId 映射语句 id
+     * @param params 语句参数
+     */
+    private static void assertNoFullScan(String statementId, Map<String, Object> params) throws SQLException {
+        MappedStatement statement = configuration.getMappedStatement(NAMESPACE + statementId);
+        BoundSql boundSql = statement.getBoundSql(params);
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = connect();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(statement, params, boundSql).setParameters(explain);
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    // 派生表及 UNION 结果等临时表不是数据表, 写入目标表及没有访问方式的行(如优化器已直接得出结果)不检查
+                    if (table == null || table.startsWith("<") || "INSERT".equals(plan.getString("select_type"))
+                            || plan.getString("type") == null) {
+                        continue;
+                    }
+                    if ("ALL".equals(plan.getString("type")) || "index".equals(plan.getString("type"))) {
+                        fullScans.add(table + " (" + plan.getString("type") + ")");
+                    }
+                }
+            }
+        }
+        assertThat(fullScans).as("%s 的执行计划存在全表扫描: %s", statementId, boundSql.getSql()).isEmpty();
+    }
+
+    /**
+     * 构造语句参数, 默认使用样本数据的存储类型及能见度
+     *
+     * @param keyValues 参数名及参数值交替排列
+     * @return 语句参数
+     */
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("storageType", StorageTypeEnum.LOCAL);
+        params.put("visibility", VisibilityEnum.PRIVATE);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+
+    private static String sha256(int value) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement("SELECT SHA2(?, 256)")) {
+            statement.setInt(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+    }
+}